@@ -0,0 +1,58 @@
+package com.example.secondhand.benchmark;
+
+import com.example.secondhand.SecondhandApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+/**
+ * 基准测试运行环境
+ * 启动嵌入式Redis和使用H2内存数据库的完整Spring上下文（jmh配置），基准测试直接调用其中的Bean，
+ * 与线上相同的代码路径（事务、锁、看门狗、释放通知）都会被测量到
+ */
+public class BenchmarkEnvironment implements AutoCloseable {
+
+    public static final int REDIS_PORT = 6390;
+
+    private final RedisServer redisServer;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(RedisServer redisServer, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.context = context;
+    }
+
+    /**
+     * 启动运行环境
+     *
+     * @param properties 额外的配置项（key=value），覆盖 application-jmh.properties
+     * @return 运行环境
+     */
+    public static BenchmarkEnvironment start(String... properties) throws Exception {
+        RedisServer redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+        try {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SecondhandApplication.class)
+                    .profiles("jmh")
+                    .properties(properties)
+                    .run();
+            return new BenchmarkEnvironment(redisServer, context);
+        } catch (Exception e) {
+            redisServer.stop();
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            context.close();
+        } finally {
+            redisServer.stop();
+        }
+    }
+}
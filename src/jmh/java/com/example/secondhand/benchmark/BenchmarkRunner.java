@@ -0,0 +1,45 @@
+package com.example.secondhand.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+
+/**
+ * 基准测试入口
+ * 依次以 1~64 个线程运行全部基准测试，每个线程数的结果写入一个JSON文件（threads-N.json），
+ * 可与上一次发布的结果对比，发现预扣路径的性能回退
+ *
+ * 参数：[结果目录] [基准测试名称正则]
+ */
+public class BenchmarkRunner {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws RunnerException {
+        File outputDir = new File(args.length > 0 ? args[0] : "target/jmh-results");
+        String include = args.length > 1 ? args[1] : "com\\.example\\.secondhand\\.benchmark\\..*Benchmark";
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("无法创建结果目录: " + outputDir);
+        }
+
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(2))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(2))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(outputDir, "threads-" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
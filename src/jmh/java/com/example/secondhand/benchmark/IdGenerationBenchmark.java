@@ -0,0 +1,98 @@
+package com.example.secondhand.benchmark;
+
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.entity.OrderItem;
+import com.example.secondhand.entity.PaymentLog;
+import com.example.secondhand.repository.OrderItemRepository;
+import com.example.secondhand.repository.OrderRepository;
+import com.example.secondhand.repository.PaymentLogRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主键生成与插入批处理基准测试
+ * POOLED 为实体上配置的表生成器（可批量插入），IDENTITY 通过 jmh-identity-orm.xml 把主键改回自增作为对照；
+ * 分别测量下单（1个订单 + 20个订单项）和支付日志写入（单条、每个事务10条）的吞吐量。
+ * H2内存数据库没有网络往返，测得的差距小于MySQL，需要线上数据的结论时将数据源指向MySQL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdGenerationBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 20;
+    private static final int LOGS_PER_TRANSACTION = 10;
+
+    @Param({"IDENTITY", "POOLED"})
+    public String idMapping;
+
+    private BenchmarkEnvironment environment;
+    private TransactionTemplate transactionTemplate;
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+    private PaymentLogRepository paymentLogRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = "IDENTITY".equals(idMapping)
+                ? BenchmarkEnvironment.start("spring.jpa.mapping-resources=META-INF/jmh-identity-orm.xml")
+                : BenchmarkEnvironment.start();
+        transactionTemplate = environment.getBean(TransactionTemplate.class);
+        orderRepository = environment.getBean(OrderRepository.class);
+        orderItemRepository = environment.getBean(OrderItemRepository.class);
+        paymentLogRepository = environment.getBean(PaymentLogRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public Order checkout() {
+        return transactionTemplate.execute(status -> {
+            String orderNo = UUID.randomUUID().toString();
+            Order order = orderRepository.save(new Order(orderNo, 1L, "基准测试用户",
+                    BigDecimal.valueOf(ITEMS_PER_ORDER), "地址", "13800000000", ""));
+            List<OrderItem> items = new ArrayList<>(ITEMS_PER_ORDER);
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                items.add(new OrderItem(order, (long) i + 1, "基准测试商品" + i, null, BigDecimal.ONE, 1, 2L, "卖家"));
+            }
+            orderItemRepository.saveAll(items);
+            return order;
+        });
+    }
+
+    @Benchmark
+    public PaymentLog paymentLog() {
+        return paymentLogRepository.save(
+                PaymentLog.info(UUID.randomUUID().toString(), PaymentLog.LogOperation.PAYMENT_QUERY, "基准测试"));
+    }
+
+    @Benchmark
+    public List<PaymentLog> paymentLogBatch() {
+        return transactionTemplate.execute(status -> {
+            String orderNo = UUID.randomUUID().toString();
+            List<PaymentLog> logs = new ArrayList<>(LOGS_PER_TRANSACTION);
+            for (int i = 0; i < LOGS_PER_TRANSACTION; i++) {
+                logs.add(PaymentLog.info(orderNo, PaymentLog.LogOperation.PAYMENT_CALLBACK, "基准测试" + i));
+            }
+            return paymentLogRepository.saveAll(logs);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.secondhand.benchmark;
+
+import com.example.secondhand.entity.OrderItem;
+import com.example.secondhand.entity.Product;
+import com.example.secondhand.repository.ProductRepository;
+import com.example.secondhand.service.InventoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 库存预扣基准测试
+ * 按预扣模式和商品数量（1个商品时所有线程争用同一行）测量预扣及预扣 + 恢复的吞吐量；
+ * 不关联订单，不写入预扣台账，只测量库存路径本身
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InventoryBenchmark {
+
+    // 足够大的初始库存，测量期间不会售罄
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"PESSIMISTIC", "OPTIMISTIC", "REDIS"})
+    public String mode;
+
+    @Param({"1", "64"})
+    public int productCount;
+
+    private BenchmarkEnvironment environment;
+    private InventoryService inventoryService;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = BenchmarkEnvironment.start("app.inventory.mode=" + mode);
+        inventoryService = environment.getBean(InventoryService.class);
+
+        ProductRepository productRepository = environment.getBean(ProductRepository.class);
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setName("基准测试商品" + i);
+            product.setPrice(BigDecimal.ONE);
+            product.setStatus(1);
+            product.setQuantity(INITIAL_STOCK);
+            productIds.add(productRepository.save(product).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+        productIds.clear();
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        return inventoryService.reserveInventory(randomItems());
+    }
+
+    @Benchmark
+    public boolean reserveAndRestore() {
+        List<OrderItem> items = randomItems();
+        boolean reserved = inventoryService.reserveInventory(items);
+        if (reserved) {
+            inventoryService.restoreInventory(items);
+        }
+        return reserved;
+    }
+
+    private List<OrderItem> randomItems() {
+        OrderItem item = new OrderItem();
+        item.setProductId(productIds.get(ThreadLocalRandom.current().nextInt(productIds.size())));
+        item.setQuantity(1);
+        return List.of(item);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.secondhand.benchmark;
+
+import com.example.secondhand.service.ConcurrencyLockManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁基准测试
+ * 分别测量无争用（每线程独立锁键）、单键争用和批量短租约锁的加锁 + 释放吞吐量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LockManagerBenchmark {
+
+    private static final String HOT_KEY = ConcurrencyLockManager.getProductLockKey(1L);
+    private static final List<String> BATCH_KEYS = List.of(
+            ConcurrencyLockManager.getProductLockKey(1L),
+            ConcurrencyLockManager.getProductLockKey(2L),
+            ConcurrencyLockManager.getProductLockKey(3L));
+
+    private BenchmarkEnvironment environment;
+    private ConcurrencyLockManager lockManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = BenchmarkEnvironment.start();
+        lockManager = environment.getBean(ConcurrencyLockManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    /**
+     * 每个线程独立的锁键
+     */
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private String key;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            key = "benchmark:" + UUID.randomUUID();
+        }
+    }
+
+    @Benchmark
+    public boolean acquireReleaseUncontended(ThreadKey threadKey) {
+        String lockValue = lockManager.acquireLock(threadKey.key);
+        return lockValue != null && lockManager.releaseLock(threadKey.key, lockValue);
+    }
+
+    @Benchmark
+    public boolean acquireReleaseContended() {
+        String lockValue = lockManager.tryLockWithTimeout(HOT_KEY, Duration.ofSeconds(30), Duration.ofSeconds(5));
+        return lockValue != null && lockManager.releaseLock(HOT_KEY, lockValue);
+    }
+
+    @Benchmark
+    public boolean leasedBatchContended() {
+        ConcurrencyLockManager.LockHandle handle = lockManager.tryLeasedLocks(BATCH_KEYS, Duration.ofSeconds(5));
+        return handle != null && lockManager.releaseLocks(handle);
+    }
+}
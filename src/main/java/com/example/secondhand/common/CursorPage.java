@@ -0,0 +1,87 @@
+package com.example.secondhand.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 按（创建时间, ID）倒序分页，游标是上一页最后一条记录的创建时间和ID编码后的字符串，客户端原样传回即可
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public CursorPage(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param createTime 最后一条记录的创建时间
+     * @param id 最后一条记录的ID
+     * @return 游标
+     */
+    public static String encodeCursor(LocalDateTime createTime, Long id) {
+        String raw = createTime + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 游标，为空表示第一页
+     * @return 游标位置，第一页返回null
+     */
+    public static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 游标位置
+     */
+    public static class Cursor {
+        private final LocalDateTime createTime;
+        private final Long id;
+
+        public Cursor(LocalDateTime createTime, Long id) {
+            this.createTime = createTime;
+            this.id = id;
+        }
+
+        public LocalDateTime getCreateTime() {
+            return createTime;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
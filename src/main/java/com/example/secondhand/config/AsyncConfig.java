@@ -14,6 +14,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 异步配置
@@ -33,4 +34,52 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Redis库存模式下的库存异步持久化线程池
+     * 单线程保证同一商品的增量按提交顺序写入；队列满时调用线程阻塞等待入队以形成背压，
+     * 不在调用线程中执行，持久化不会加入调用方的事务，也不会打乱增量顺序
+     */
+    @Bean(name = "stockPersistExecutor")
+    public Executor stockPersistExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("StockPersist-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("库存持久化线程池已关闭");
+            }
+            try {
+                pool.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("等待库存持久化队列时被中断", e);
+            }
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 异步下单处理线程池
+     * 每个线程运行一个按商品分配的处理循环，线程数与处理循环数相同，不排队；
+     * 停止时等待处理循环处理完队列中的请求
+     */
+    @Bean(name = "orderSubmitExecutor")
+    public Executor orderSubmitExecutor(OrderSubmitConfig orderSubmitConfig) {
+        int threads = Math.max(1, orderSubmitConfig.getWorkerThreads());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("OrderSubmit-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(orderSubmitConfig.getShutdownDrainMs());
+        executor.initialize();
+        return executor;
+    }
+}
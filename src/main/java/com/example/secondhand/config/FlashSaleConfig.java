@@ -0,0 +1,114 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 秒杀准入配置类
+ * 用于控制下单前的按商品排队准入
+ */
+@Component
+@ConfigurationProperties(prefix = "app.flash-sale")
+public class FlashSaleConfig {
+
+    /**
+     * 是否启用下单准入控制，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 参与准入控制的商品ID，为空表示所有商品
+     */
+    private List<Long> productIds = new ArrayList<>();
+
+    /**
+     * 每个商品最多排队的请求数，超出时立即拒绝
+     */
+    private int maxQueuePerProduct = 200;
+
+    /**
+     * 每个商品同时进入下单流程的请求数，默认1（按到达顺序逐个处理）
+     */
+    private int concurrencyPerProduct = 1;
+
+    /**
+     * 排队最长等待时间（毫秒）
+     */
+    private long maxWaitMs = 5000L;
+
+    /**
+     * 令牌用完后按实际库存重新校准的最小间隔（毫秒），用于回收取消订单退回的库存
+     */
+    private long tokenResyncIntervalMs = 1000L;
+
+    /**
+     * 闲置多久（毫秒）的商品闸口被回收，回收后再次下单时按实际库存重新建立
+     */
+    private long gateIdleTimeoutMs = 60000L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public int getMaxQueuePerProduct() {
+        return maxQueuePerProduct;
+    }
+
+    public void setMaxQueuePerProduct(int maxQueuePerProduct) {
+        this.maxQueuePerProduct = maxQueuePerProduct;
+    }
+
+    public int getConcurrencyPerProduct() {
+        return concurrencyPerProduct;
+    }
+
+    public void setConcurrencyPerProduct(int concurrencyPerProduct) {
+        this.concurrencyPerProduct = concurrencyPerProduct;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public long getTokenResyncIntervalMs() {
+        return tokenResyncIntervalMs;
+    }
+
+    public void setTokenResyncIntervalMs(long tokenResyncIntervalMs) {
+        this.tokenResyncIntervalMs = tokenResyncIntervalMs;
+    }
+
+    public long getGateIdleTimeoutMs() {
+        return gateIdleTimeoutMs;
+    }
+
+    public void setGateIdleTimeoutMs(long gateIdleTimeoutMs) {
+        this.gateIdleTimeoutMs = gateIdleTimeoutMs;
+    }
+
+    /**
+     * 商品是否参与准入控制
+     */
+    public boolean appliesTo(Long productId) {
+        return enabled && (productIds.isEmpty() || productIds.contains(productId));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.secondhand.config;
+
+import com.example.secondhand.service.HotStockService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 热门商品分片库存启动配置
+ * 在应用启动时拆分配置的热门商品库存，并启用分片预扣（分片表中已拆分的商品一并启用）
+ */
+@Component
+public class HotStockStartupConfig implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockStartupConfig.class);
+
+    @Autowired
+    private HotStockService hotStockService;
+
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (inventoryConfig.isRedisMode()) {
+            if (!inventoryConfig.getHotProductIds().isEmpty()) {
+                logger.warn("Redis库存计数器模式下不启用热门商品分片库存");
+            }
+            return;
+        }
+
+        // 以分片表为准：已拆分的商品即使不在配置中，库存也仍在分片上
+        Set<Long> productIds = new TreeSet<>(inventoryConfig.getHotProductIds());
+        try {
+            productIds.addAll(hotStockService.findShardedProductIds());
+        } catch (Exception e) {
+            logger.error("查询已拆分库存的热门商品失败", e);
+        }
+
+        for (Long productId : productIds) {
+            try {
+                // 分片事务提交后再启用，避免预扣落到尚未提交的分片上
+                if (hotStockService.shardProduct(productId)) {
+                    hotStockService.activate(productId);
+                }
+            } catch (Exception e) {
+                logger.error("启用热门商品分片库存失败，商品ID: {}", productId, e);
+            }
+        }
+    }
+}
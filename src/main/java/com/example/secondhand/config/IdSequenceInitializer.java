@@ -0,0 +1,44 @@
+package com.example.secondhand.config;
+
+import com.example.secondhand.entity.IdGeneration;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 主键序列初始化
+ * 序列表中缺少某个实体的行时，Hibernate会从初始值开始分配主键，与已有数据冲突；
+ * 启动时（表结构更新之后、接收请求之前）按各表当前最大主键补齐缺失的行，已存在的行不会被修改
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // 使用表生成器的实体表，序列名与表名相同
+    private static final List<String> SEQUENCE_TABLES = List.of(
+        "orders", "order_items", "payment_logs", "cart", "product", "product_comment", "inventory_reservations",
+        "seller_order_index");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void initialize() {
+        for (String table : SEQUENCE_TABLES) {
+            int inserted = jdbcTemplate.update(
+                "INSERT IGNORE INTO " + IdGeneration.TABLE + " (" + IdGeneration.PK_COLUMN + ", "
+                    + IdGeneration.VALUE_COLUMN + ") SELECT ?, COALESCE(MAX(id), 0) + 1 FROM " + table, table);
+            if (inserted > 0) {
+                logger.info("初始化主键序列，序列名: {}", table);
+            }
+        }
+    }
+}
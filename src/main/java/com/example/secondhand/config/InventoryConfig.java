@@ -0,0 +1,311 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 库存配置类
+ * 用于选择库存预扣模式及相关参数
+ */
+@Component
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryConfig {
+
+    /**
+     * 库存预扣模式
+     */
+    public enum Mode {
+        /** Redis分布式锁 + 数据库悲观锁（默认） */
+        PESSIMISTIC,
+        /** Redis库存计数器 + Lua脚本原子扣减，异步持久化到MySQL */
+        REDIS,
+        /** 条件扣减（UPDATE ... WHERE quantity >= ?），不使用Redis锁 */
+        OPTIMISTIC,
+        /** 按商品争用情况自适应：热门商品走悲观锁，其余走条件扣减 */
+        ADAPTIVE
+    }
+
+    /**
+     * 库存预扣模式，默认悲观锁模式
+     */
+    private Mode mode = Mode.PESSIMISTIC;
+
+    /**
+     * Redis库存计数器对账间隔（毫秒），默认60秒
+     */
+    private long reconcileIntervalMs = 60000L;
+
+    /**
+     * 自适应模式下判定为争用的耗时阈值（毫秒）：等待锁或执行条件扣减超过该时间视为一次争用
+     */
+    private long contentionLatencyMs = 50L;
+
+    /**
+     * 自适应模式下切换为悲观锁的争用分数阈值（0~1），默认0.3
+     */
+    private double contentionThreshold = 0.3;
+
+    /**
+     * 预扣台账有效期（分钟），应大于订单超时时间，默认20分钟（订单15分钟超时 + 5分钟宽限）
+     */
+    private int reservationTtlMinutes = 20;
+
+    /**
+     * 过期预扣回收间隔（毫秒），默认60秒
+     */
+    private long reservationSweepIntervalMs = 60000L;
+
+    /**
+     * 过期预扣每批回收的最大台账行数，默认1000
+     */
+    private int reservationSweepBatchSize = 1000;
+
+    /**
+     * 热门商品ID列表：启动时把这些商品的库存拆分到多个分片行，预扣时分散行锁（Redis库存计数器模式下不生效）
+     */
+    private List<Long> hotProductIds = new ArrayList<>();
+
+    /**
+     * 热门商品库存分片数，默认8
+     */
+    private int hotShardCount = 8;
+
+    /**
+     * 热门商品分片合计同步到商品表的间隔（毫秒），默认5秒
+     */
+    private long hotSyncIntervalMs = 5000L;
+
+    /**
+     * 是否启用库存增量写回合并（仅Redis库存计数器模式）：增量先写入Redis Stream日志，再按批合并写入MySQL
+     */
+    private boolean writeBehindEnabled = false;
+
+    /**
+     * 写回合并的刷新间隔（毫秒），默认200毫秒
+     */
+    private long writeBehindFlushIntervalMs = 200L;
+
+    /**
+     * 写回合并每批读取的日志条数，未刷新的日志达到该数量时提前刷新，默认500
+     */
+    private int writeBehindBatchSize = 500;
+
+    /**
+     * 是否启用Redis库存计数器全量对账（按商品ID分块扫描整个商品表）
+     */
+    private boolean fullReconcileEnabled = false;
+
+    /**
+     * 全量对账间隔（毫秒），默认1小时
+     */
+    private long fullReconcileIntervalMs = 3600000L;
+
+    /**
+     * 全量对账每块商品数，默认1000
+     */
+    private int fullReconcileChunkSize = 1000;
+
+    /**
+     * 全量对账每秒最多处理的块数，限制对数据库和Redis的压力，默认20
+     */
+    private int fullReconcileMaxChunksPerSecond = 20;
+
+    /**
+     * 全量对账发现确认的偏差时是否自动修复MySQL（以Redis为准），默认只报告；
+     * 仅在开启写回合并时生效，逐条异步持久化时其他节点未落库的增量无法判断，只报告偏差
+     */
+    private boolean fullReconcileAutoRepair = false;
+
+    /**
+     * 是否启用库存近端缓存（只读的库存展示和检查使用）
+     */
+    private boolean nearCacheEnabled = true;
+
+    /**
+     * 近端缓存条目有效期（毫秒），默认1秒
+     */
+    private long nearCacheTtlMs = 1000L;
+
+    /**
+     * 近端缓存最多缓存的商品数，默认10000
+     */
+    private int nearCacheMaxSize = 10000;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public long getReconcileIntervalMs() {
+        return reconcileIntervalMs;
+    }
+
+    public void setReconcileIntervalMs(long reconcileIntervalMs) {
+        this.reconcileIntervalMs = reconcileIntervalMs;
+    }
+
+    public long getContentionLatencyMs() {
+        return contentionLatencyMs;
+    }
+
+    public void setContentionLatencyMs(long contentionLatencyMs) {
+        this.contentionLatencyMs = contentionLatencyMs;
+    }
+
+    public double getContentionThreshold() {
+        return contentionThreshold;
+    }
+
+    public void setContentionThreshold(double contentionThreshold) {
+        this.contentionThreshold = contentionThreshold;
+    }
+
+    public int getReservationTtlMinutes() {
+        return reservationTtlMinutes;
+    }
+
+    public void setReservationTtlMinutes(int reservationTtlMinutes) {
+        this.reservationTtlMinutes = reservationTtlMinutes;
+    }
+
+    public long getReservationSweepIntervalMs() {
+        return reservationSweepIntervalMs;
+    }
+
+    public void setReservationSweepIntervalMs(long reservationSweepIntervalMs) {
+        this.reservationSweepIntervalMs = reservationSweepIntervalMs;
+    }
+
+    public int getReservationSweepBatchSize() {
+        return reservationSweepBatchSize;
+    }
+
+    public void setReservationSweepBatchSize(int reservationSweepBatchSize) {
+        this.reservationSweepBatchSize = reservationSweepBatchSize;
+    }
+
+    public List<Long> getHotProductIds() {
+        return hotProductIds;
+    }
+
+    public void setHotProductIds(List<Long> hotProductIds) {
+        this.hotProductIds = hotProductIds;
+    }
+
+    public int getHotShardCount() {
+        return hotShardCount;
+    }
+
+    public void setHotShardCount(int hotShardCount) {
+        this.hotShardCount = hotShardCount;
+    }
+
+    public long getHotSyncIntervalMs() {
+        return hotSyncIntervalMs;
+    }
+
+    public void setHotSyncIntervalMs(long hotSyncIntervalMs) {
+        this.hotSyncIntervalMs = hotSyncIntervalMs;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+        this.writeBehindEnabled = writeBehindEnabled;
+    }
+
+    public long getWriteBehindFlushIntervalMs() {
+        return writeBehindFlushIntervalMs;
+    }
+
+    public void setWriteBehindFlushIntervalMs(long writeBehindFlushIntervalMs) {
+        this.writeBehindFlushIntervalMs = writeBehindFlushIntervalMs;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    public boolean isFullReconcileEnabled() {
+        return fullReconcileEnabled;
+    }
+
+    public void setFullReconcileEnabled(boolean fullReconcileEnabled) {
+        this.fullReconcileEnabled = fullReconcileEnabled;
+    }
+
+    public long getFullReconcileIntervalMs() {
+        return fullReconcileIntervalMs;
+    }
+
+    public void setFullReconcileIntervalMs(long fullReconcileIntervalMs) {
+        this.fullReconcileIntervalMs = fullReconcileIntervalMs;
+    }
+
+    public int getFullReconcileChunkSize() {
+        return fullReconcileChunkSize;
+    }
+
+    public void setFullReconcileChunkSize(int fullReconcileChunkSize) {
+        this.fullReconcileChunkSize = fullReconcileChunkSize;
+    }
+
+    public int getFullReconcileMaxChunksPerSecond() {
+        return fullReconcileMaxChunksPerSecond;
+    }
+
+    public void setFullReconcileMaxChunksPerSecond(int fullReconcileMaxChunksPerSecond) {
+        this.fullReconcileMaxChunksPerSecond = fullReconcileMaxChunksPerSecond;
+    }
+
+    public boolean isFullReconcileAutoRepair() {
+        return fullReconcileAutoRepair;
+    }
+
+    public void setFullReconcileAutoRepair(boolean fullReconcileAutoRepair) {
+        this.fullReconcileAutoRepair = fullReconcileAutoRepair;
+    }
+
+    public boolean isNearCacheEnabled() {
+        return nearCacheEnabled;
+    }
+
+    public void setNearCacheEnabled(boolean nearCacheEnabled) {
+        this.nearCacheEnabled = nearCacheEnabled;
+    }
+
+    public long getNearCacheTtlMs() {
+        return nearCacheTtlMs;
+    }
+
+    public void setNearCacheTtlMs(long nearCacheTtlMs) {
+        this.nearCacheTtlMs = nearCacheTtlMs;
+    }
+
+    public int getNearCacheMaxSize() {
+        return nearCacheMaxSize;
+    }
+
+    public void setNearCacheMaxSize(int nearCacheMaxSize) {
+        this.nearCacheMaxSize = nearCacheMaxSize;
+    }
+
+    /**
+     * 是否启用Redis库存计数器模式
+     */
+    public boolean isRedisMode() {
+        return mode == Mode.REDIS;
+    }
+}
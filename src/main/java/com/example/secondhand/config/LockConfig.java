@@ -0,0 +1,108 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分布式锁配置类
+ * 用于选择锁等待方式及相关参数
+ */
+@Component
+@ConfigurationProperties(prefix = "app.lock")
+public class LockConfig {
+
+    /**
+     * 锁等待方式
+     */
+    public enum WaitMode {
+        /** 固定间隔轮询SETNX */
+        POLL,
+        /** 订阅锁释放通知，被唤醒后立即重试，轮询作为兜底 */
+        NOTIFY
+    }
+
+    /**
+     * 锁等待方式，默认订阅释放通知
+     */
+    private WaitMode waitMode = WaitMode.NOTIFY;
+
+    /**
+     * 轮询间隔（毫秒），POLL模式下默认50毫秒
+     */
+    private long pollIntervalMs = 50L;
+
+    /**
+     * 通知模式下的兜底轮询间隔（毫秒），防止通知丢失时一直等待，默认200毫秒
+     */
+    private long notifyFallbackPollMs = 200L;
+
+    /**
+     * 看门狗续期锁的租约时长（毫秒），默认3秒
+     */
+    private long leaseMs = 3000L;
+
+    /**
+     * 看门狗续期间隔（毫秒），应明显小于租约时长，默认1秒
+     */
+    private long watchdogIntervalMs = 1000L;
+
+    /**
+     * Redis不可用时的熔断冷却时间（毫秒），期间使用进程内分段锁，默认5秒
+     */
+    private long redisCooldownMs = 5000L;
+
+    public WaitMode getWaitMode() {
+        return waitMode;
+    }
+
+    public void setWaitMode(WaitMode waitMode) {
+        this.waitMode = waitMode;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public long getNotifyFallbackPollMs() {
+        return notifyFallbackPollMs;
+    }
+
+    public void setNotifyFallbackPollMs(long notifyFallbackPollMs) {
+        this.notifyFallbackPollMs = notifyFallbackPollMs;
+    }
+
+    public long getLeaseMs() {
+        return leaseMs;
+    }
+
+    public void setLeaseMs(long leaseMs) {
+        this.leaseMs = leaseMs;
+    }
+
+    public long getWatchdogIntervalMs() {
+        return watchdogIntervalMs;
+    }
+
+    public void setWatchdogIntervalMs(long watchdogIntervalMs) {
+        this.watchdogIntervalMs = watchdogIntervalMs;
+    }
+
+    public long getRedisCooldownMs() {
+        return redisCooldownMs;
+    }
+
+    public void setRedisCooldownMs(long redisCooldownMs) {
+        this.redisCooldownMs = redisCooldownMs;
+    }
+
+    /**
+     * 是否启用释放通知等待
+     */
+    public boolean isNotifyMode() {
+        return waitMode == WaitMode.NOTIFY;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单归档配置类
+ * 用于控制归档的订单年龄、每批移动的订单数和批次间的限速
+ */
+@Component
+@ConfigurationProperties(prefix = "app.order-archive")
+public class OrderArchiveConfig {
+
+    /**
+     * 是否启用订单归档任务，默认关闭（需先执行归档表迁移脚本）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 已完成或已取消的订单创建超过该天数后归档，默认180天
+     */
+    private int minAgeDays = 180;
+
+    /**
+     * 每批移动的订单数，每批一个事务，默认200
+     */
+    private int chunkSize = 200;
+
+    /**
+     * 两批之间的暂停时间（毫秒），降低对在线业务的影响，默认200毫秒
+     */
+    private long chunkPauseMs = 200L;
+
+    /**
+     * 每次运行最多移动的批数，未完成的部分下次运行时从检查点继续，默认100
+     */
+    private int maxChunksPerRun = 100;
+
+    /**
+     * 归档任务运行间隔（毫秒），默认1小时
+     */
+    private long intervalMs = 3600000L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinAgeDays() {
+        return minAgeDays;
+    }
+
+    public void setMinAgeDays(int minAgeDays) {
+        this.minAgeDays = minAgeDays;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getChunkPauseMs() {
+        return chunkPauseMs;
+    }
+
+    public void setChunkPauseMs(long chunkPauseMs) {
+        this.chunkPauseMs = chunkPauseMs;
+    }
+
+    public int getMaxChunksPerRun() {
+        return maxChunksPerRun;
+    }
+
+    public void setMaxChunksPerRun(int maxChunksPerRun) {
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单状态计数配置类
+ * 用于控制按用户缓存的订单状态计数的有效期和修复任务
+ */
+@Component
+@ConfigurationProperties(prefix = "app.order-counter")
+public class OrderCounterConfig {
+
+    /**
+     * 计数有效期（毫秒），过期后下次查询时从数据库重新统计，默认1天
+     */
+    private long ttlMs = 86400000L;
+
+    /**
+     * 刚统计标记有效期（毫秒），统计写入后该时间内收到的调整可能已包含在统计结果中，
+     * 对应计数记入待修复集合重新统计，默认10秒
+     */
+    private long loadGraceMs = 10000L;
+
+    /**
+     * 修复任务间隔（毫秒），默认1分钟
+     */
+    private long repairIntervalMs = 60000L;
+
+    /**
+     * 每次修复的最大计数数量，默认200
+     */
+    private int repairBatchSize = 200;
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public long getLoadGraceMs() {
+        return loadGraceMs;
+    }
+
+    public void setLoadGraceMs(long loadGraceMs) {
+        this.loadGraceMs = loadGraceMs;
+    }
+
+    public long getRepairIntervalMs() {
+        return repairIntervalMs;
+    }
+
+    public void setRepairIntervalMs(long repairIntervalMs) {
+        this.repairIntervalMs = repairIntervalMs;
+    }
+
+    public int getRepairBatchSize() {
+        return repairBatchSize;
+    }
+
+    public void setRepairBatchSize(int repairBatchSize) {
+        this.repairBatchSize = repairBatchSize;
+    }
+}
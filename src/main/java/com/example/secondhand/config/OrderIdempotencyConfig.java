@@ -0,0 +1,52 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 下单幂等配置类
+ * 用于控制幂等键记录的保留时间和幂等键长度
+ */
+@Component
+@ConfigurationProperties(prefix = "app.order-idempotency")
+public class OrderIdempotencyConfig {
+
+    /**
+     * 下单处理中记录的有效期（毫秒），应大于下单请求的最长处理时间，默认1分钟
+     */
+    private long processingTtlMs = 60000L;
+
+    /**
+     * 下单成功后结果的保留时间（毫秒），期间使用同一幂等键重试都返回原订单，默认1天
+     */
+    private long resultTtlMs = 86400000L;
+
+    /**
+     * 幂等键最大长度，默认64
+     */
+    private int maxKeyLength = 64;
+
+    public long getProcessingTtlMs() {
+        return processingTtlMs;
+    }
+
+    public void setProcessingTtlMs(long processingTtlMs) {
+        this.processingTtlMs = processingTtlMs;
+    }
+
+    public long getResultTtlMs() {
+        return resultTtlMs;
+    }
+
+    public void setResultTtlMs(long resultTtlMs) {
+        this.resultTtlMs = resultTtlMs;
+    }
+
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    public void setMaxKeyLength(int maxKeyLength) {
+        this.maxKeyLength = maxKeyLength;
+    }
+}
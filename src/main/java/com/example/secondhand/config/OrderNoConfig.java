@@ -0,0 +1,64 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单号生成配置类
+ * 订单号由时间、节点号和毫秒内序号组成，节点号可以固定配置，也可以从Redis租用
+ */
+@Component
+@ConfigurationProperties(prefix = "app.order-no")
+public class OrderNoConfig {
+
+    /**
+     * 节点号的取值上限（不含），订单号中固定占3位
+     */
+    public static final int MAX_NODE_ID = 1000;
+
+    /**
+     * 固定节点号（0-999），多实例部署时每个实例必须不同；小于0表示从Redis租用，默认从Redis租用
+     */
+    private int nodeId = -1;
+
+    /**
+     * 节点号租约时长（毫秒），默认30秒
+     */
+    private long leaseTtlMs = 30000L;
+
+    /**
+     * 节点号租约续期间隔（毫秒），应明显小于租约时长，默认10秒
+     */
+    private long leaseRenewIntervalMs = 10000L;
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getLeaseTtlMs() {
+        return leaseTtlMs;
+    }
+
+    public void setLeaseTtlMs(long leaseTtlMs) {
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    public long getLeaseRenewIntervalMs() {
+        return leaseRenewIntervalMs;
+    }
+
+    public void setLeaseRenewIntervalMs(long leaseRenewIntervalMs) {
+        this.leaseRenewIntervalMs = leaseRenewIntervalMs;
+    }
+
+    /**
+     * 是否使用固定配置的节点号
+     */
+    public boolean isNodeIdConfigured() {
+        return nodeId >= 0;
+    }
+}
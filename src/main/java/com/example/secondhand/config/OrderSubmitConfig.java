@@ -0,0 +1,104 @@
+package com.example.secondhand.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步下单配置类
+ * 用于控制排队下单的队列容量、处理线程数和结果保留时间
+ */
+@Component
+@ConfigurationProperties(prefix = "app.order-submit")
+public class OrderSubmitConfig {
+
+    /**
+     * 是否启用异步下单接口，默认启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 处理线程数，同一商品的下单请求总是由同一个线程处理，默认4
+     */
+    private int workerThreads = 4;
+
+    /**
+     * 排队下单请求总数上限，超出时立即拒绝，默认2000
+     */
+    private int queueCapacity = 2000;
+
+    /**
+     * 每个处理线程一次取出的最大请求数，默认50
+     */
+    private int batchSize = 50;
+
+    /**
+     * 下单结果保留时间（毫秒），默认10分钟
+     */
+    private long resultTtlMs = 600000L;
+
+    /**
+     * 查询结果时最长等待时间（毫秒），默认30秒
+     */
+    private long maxPollWaitMs = 30000L;
+
+    /**
+     * 停止服务时等待处理线程处理完队列中请求的最长时间（毫秒），默认30秒
+     */
+    private long shutdownDrainMs = 30000L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getResultTtlMs() {
+        return resultTtlMs;
+    }
+
+    public void setResultTtlMs(long resultTtlMs) {
+        this.resultTtlMs = resultTtlMs;
+    }
+
+    public long getMaxPollWaitMs() {
+        return maxPollWaitMs;
+    }
+
+    public void setMaxPollWaitMs(long maxPollWaitMs) {
+        this.maxPollWaitMs = maxPollWaitMs;
+    }
+
+    public long getShutdownDrainMs() {
+        return shutdownDrainMs;
+    }
+
+    public void setShutdownDrainMs(long shutdownDrainMs) {
+        this.shutdownDrainMs = shutdownDrainMs;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.secondhand.config;
 
+import com.example.secondhand.service.InventoryNearCache;
+import com.example.secondhand.service.LockReleaseNotifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -27,4 +31,19 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Redis消息监听容器
+     * 订阅锁释放通知频道，唤醒本节点上等待锁的线程；订阅库存缓存失效频道，清除本节点的近端缓存
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       LockReleaseNotifier lockReleaseNotifier,
+                                                                       InventoryNearCache inventoryNearCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(lockReleaseNotifier, new ChannelTopic(LockReleaseNotifier.CHANNEL));
+        container.addMessageListener(inventoryNearCache, new ChannelTopic(InventoryNearCache.CHANNEL));
+        return container;
+    }
+}
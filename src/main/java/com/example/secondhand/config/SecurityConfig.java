@@ -54,6 +54,9 @@ public class SecurityConfig {
         // ✅✅✅【新增：支付宝支付接口放行】
                 .requestMatchers("/api/pay/**").permitAll()
 
+                // 运行指标接口需要登录
+                .requestMatchers("/metrics/**").authenticated()
+
                 // 其他接口需要登录
                 .anyRequest().authenticated()
         );
@@ -0,0 +1,167 @@
+package com.example.secondhand.controller;
+
+import com.example.secondhand.service.ConcurrencyLockManager;
+import com.example.secondhand.service.FlashSaleAdmissionService;
+import com.example.secondhand.service.InventoryNearCache;
+import com.example.secondhand.service.InventoryService;
+import com.example.secondhand.service.InventoryWriteBehindService;
+import com.example.secondhand.service.LockMetrics;
+import com.example.secondhand.service.OrderArchiveService;
+import com.example.secondhand.service.OrderIdempotencyService;
+import com.example.secondhand.service.OrderNoGenerator;
+import com.example.secondhand.service.OrderStatusCounterService;
+import com.example.secondhand.service.OrderSubmissionService;
+import com.example.secondhand.service.StockReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 运行指标接口
+ * 暴露锁、库存、订单等组件的运行统计，需要登录后访问
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    @Autowired
+    private ConcurrencyLockManager lockManager;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private FlashSaleAdmissionService flashSaleAdmissionService;
+
+    @Autowired
+    private InventoryWriteBehindService writeBehindService;
+
+    @Autowired
+    private InventoryNearCache inventoryNearCache;
+
+    @Autowired
+    private StockReconciliationService stockReconciliationService;
+
+    @Autowired
+    private OrderNoGenerator orderNoGenerator;
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private OrderStatusCounterService orderStatusCounterService;
+
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    /**
+     * 分布式锁等待统计
+     */
+    @GetMapping("/lock-wait")
+    public ConcurrencyLockManager.LockWaitStatistics getLockWaitStats() {
+        return lockManager.getWaitStatistics();
+    }
+
+    /**
+     * 分布式锁降级统计
+     */
+    @GetMapping("/lock-fallback")
+    public ConcurrencyLockManager.FallbackStatistics getLockFallbackStats() {
+        return lockManager.getFallbackStatistics();
+    }
+
+    /**
+     * 按锁键前缀统计的加锁指标及争用最多的锁键
+     */
+    @GetMapping("/lock")
+    public LockMetrics.Snapshot getLockMetrics(@RequestParam(defaultValue = "20") int top) {
+        return lockManager.getLockMetrics(top);
+    }
+
+    /**
+     * 库存预扣策略统计
+     */
+    @GetMapping("/inventory-strategy")
+    public Map<String, Object> getInventoryStrategyStats() {
+        return inventoryService.getReservationStatistics();
+    }
+
+    /**
+     * 秒杀准入统计
+     */
+    @GetMapping("/flash-sale")
+    public Map<String, Object> getFlashSaleStats() {
+        return flashSaleAdmissionService.getStatistics();
+    }
+
+    /**
+     * 库存异步回写统计
+     */
+    @GetMapping("/write-behind")
+    public InventoryWriteBehindService.WriteBehindStatistics getWriteBehindStats() {
+        return writeBehindService.getStatistics();
+    }
+
+    /**
+     * 库存本地缓存统计
+     */
+    @GetMapping("/near-cache")
+    public Map<String, Object> getNearCacheStats() {
+        return inventoryNearCache.getStatistics();
+    }
+
+    /**
+     * 库存对账统计
+     */
+    @GetMapping("/stock-reconciliation")
+    public Map<String, Object> getStockReconciliationStats() {
+        return stockReconciliationService.getStatistics();
+    }
+
+    /**
+     * 订单号生成统计
+     */
+    @GetMapping("/order-no")
+    public Map<String, Object> getOrderNoStats() {
+        return orderNoGenerator.getStatistics();
+    }
+
+    /**
+     * 订单提交队列统计
+     */
+    @GetMapping("/order-submit")
+    public Map<String, Object> getOrderSubmitStats() {
+        return orderSubmissionService.getStatistics();
+    }
+
+    /**
+     * 订单状态计数统计
+     */
+    @GetMapping("/order-counter")
+    public Map<String, Object> getOrderCounterStats() {
+        return orderStatusCounterService.getStatistics();
+    }
+
+    /**
+     * 下单幂等统计
+     */
+    @GetMapping("/order-idempotency")
+    public Map<String, Object> getOrderIdempotencyStats() {
+        return orderIdempotencyService.getStatistics();
+    }
+
+    /**
+     * 订单归档统计
+     */
+    @GetMapping("/order-archive")
+    public Map<String, Object> getOrderArchiveStats() {
+        return orderArchiveService.getStatistics();
+    }
+}
@@ -1,72 +1,164 @@
 package com.example.secondhand.controller;
 
 import com.example.secondhand.common.Result;
+import com.example.secondhand.config.OrderSubmitConfig;
 import com.example.secondhand.entity.Order;
 import com.example.secondhand.entity.OrderItem;
+import com.example.secondhand.service.FlashSaleAdmissionService;
+import com.example.secondhand.service.OrderIdempotencyService;
 import com.example.secondhand.service.OrderService;
+import com.example.secondhand.service.OrderStatusCounterService;
+import com.example.secondhand.service.OrderSubmissionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/order")
 @CrossOrigin
 public class OrderController {
 
+    // 历史订单未指定条数时的每页条数
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private FlashSaleAdmissionService flashSaleAdmissionService;
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private OrderSubmitConfig orderSubmitConfig;
+
+    @Autowired
+    private OrderStatusCounterService orderStatusCounterService;
+
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
+
     /**
      * 创建订单（支持前端购物车）
+     * 携带Idempotency-Key请求头时，使用同一幂等键的重试返回原订单
      */
     @PostMapping("/create")
-    public Result<Order> createOrder(@RequestBody Map<String, Object> request) {
+    public Result<Order> createOrder(@RequestBody Map<String, Object> request,
+                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             Long userId = Long.valueOf(request.get("userId").toString());
             String address = request.get("address").toString();
             String phone = request.get("phone").toString();
             String remark = request.get("remark") != null ? request.get("remark").toString() : "";
 
-            // 检查是否有购物车商品信息（新版本）
-            if (request.containsKey("cartItems")) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> cartItems = (List<Map<String, Object>>) request.get("cartItems");
-                Order order = orderService.createOrderFromFrontendCart(userId, cartItems, address, phone, remark);
-                return Result.success(order);
-            } 
-            // 兼容旧版本（基于商品ID列表）
-            else if (request.containsKey("productIds")) {
-                @SuppressWarnings("unchecked")
-                List<Long> productIds = (List<Long>) request.get("productIds");
-                Order order = orderService.createOrder(userId, productIds, address, phone, remark);
-                return Result.success(order);
-            } 
-            else {
-                throw new RuntimeException("缺少商品信息");
-            }
+            Order order = orderIdempotencyService.createOnce(userId, idempotencyKey, request, () -> {
+                // 检查是否有购物车商品信息（新版本）
+                if (request.containsKey("cartItems")) {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> cartItems = (List<Map<String, Object>>) request.get("cartItems");
+                    return flashSaleAdmissionService.createOrder(userId, cartItems, address, phone, remark);
+                }
+                // 兼容旧版本（基于商品ID列表）
+                else if (request.containsKey("productIds")) {
+                    @SuppressWarnings("unchecked")
+                    List<Long> productIds = (List<Long>) request.get("productIds");
+                    return orderService.createOrder(userId, productIds, address, phone, remark);
+                }
+                else {
+                    throw new RuntimeException("缺少商品信息");
+                }
+            });
+            return Result.success(order);
         } catch (Exception e) {
             return Result.error( e.getMessage());
         }
     }
 
+    /**
+     * 异步提交订单：校验参数后排队，立即返回下单凭证
+     */
+    @PostMapping("/submit")
+    public Result<Map<String, Object>> submitOrder(@RequestBody Map<String, Object> request) {
+        try {
+            if (request.get("userId") == null || request.get("address") == null || request.get("phone") == null) {
+                throw new RuntimeException("缺少用户或收货信息");
+            }
+            Long userId = Long.valueOf(request.get("userId").toString());
+            String address = request.get("address").toString();
+            String phone = request.get("phone").toString();
+            String remark = request.get("remark") != null ? request.get("remark").toString() : "";
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> cartItems = (List<Map<String, Object>>) request.get("cartItems");
+            if (cartItems == null || cartItems.isEmpty()) {
+                throw new RuntimeException("购物车商品信息不能为空");
+            }
+            for (Map<String, Object> item : cartItems) {
+                if (item.get("productId") == null || item.get("quantity") == null
+                        || Integer.parseInt(item.get("quantity").toString()) <= 0) {
+                    throw new RuntimeException("购物车商品信息不正确");
+                }
+            }
+
+            String ticketId = orderSubmissionService.submit(userId, cartItems, address, phone, remark);
+            return Result.success(Map.of("ticketId", ticketId, "status", OrderSubmissionService.STATUS_QUEUED));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询异步下单结果
+     * waitMs大于0且下单尚未完成时等待结果（不占用请求线程），超时返回当前状态
+     */
+    @GetMapping("/ticket/{ticketId}")
+    public DeferredResult<Result<Map<String, Object>>> getTicket(@PathVariable String ticketId,
+                                                                 @RequestParam Long userId,
+                                                                 @RequestParam(defaultValue = "0") long waitMs) {
+        DeferredResult<Result<Map<String, Object>>> deferred = new DeferredResult<>(
+                Math.max(1L, Math.min(waitMs, orderSubmitConfig.getMaxPollWaitMs())));
+        Map<String, Object> ticket = orderSubmissionService.getTicket(ticketId);
+        if (ticket == null || !userId.equals(ticket.get("userId"))) {
+            deferred.setResult(Result.error("下单凭证不存在或已过期"));
+            return deferred;
+        }
+        CompletableFuture<Map<String, Object>> completion = orderSubmissionService.watch(ticketId);
+        if (waitMs <= 0 || completion == null || completion.isDone()) {
+            deferred.setResult(Result.success(completion != null && completion.isDone() ? completion.join() : ticket));
+            return deferred;
+        }
+        deferred.onTimeout(() -> deferred.setResult(Result.success(orderSubmissionService.getTicket(ticketId))));
+        completion.thenAccept(result -> deferred.setResult(Result.success(result)));
+        return deferred;
+    }
+
     /**
      * 获取我的订单列表（买家视角）
+     * 传入size时按游标分页返回，cursor为上一页返回的nextCursor；不传size时返回全部订单
+     * history为true时按游标分页返回已归档的历史订单
      */
     @GetMapping("/my")
-    public Result<List<Order>> getMyOrders(@RequestParam Long userId, 
-                                          @RequestParam(required = false) String status) {
+    public Result<?> getMyOrders(@RequestParam Long userId, 
+                                 @RequestParam(required = false) String status,
+                                 @RequestParam(required = false) Integer size,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "false") boolean history) {
         try {
             List<Order> orders;
+            if (history) {
+                return Result.success(orderService.getBuyerOrderHistoryPage(userId, parseStatus(status), cursor,
+                        size != null ? size : DEFAULT_PAGE_SIZE));
+            }
+            if (size != null) {
+                return Result.success(orderService.getBuyerOrderPage(userId, parseStatus(status), cursor, size));
+            }
             if (status != null && !status.equals("all")) {
-                // 处理状态映射，兼容旧的PENDING状态
-                String normalizedStatus = status.toUpperCase();
-                if ("PENDING".equals(normalizedStatus)) {
-                    normalizedStatus = "PENDING_PAYMENT";
-                }
-                
-                Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(normalizedStatus);
+                Order.OrderStatus orderStatus = parseStatus(status);
                 orders = orderService.getBuyerOrdersByStatus(userId, orderStatus);
             } else {
                 orders = orderService.getBuyerOrders(userId);
@@ -81,20 +173,26 @@ public class OrderController {
 
     /**
      * 获取我的销售订单（卖家视角）
+     * 传入size时按游标分页返回，cursor为上一页返回的nextCursor；不传size时返回全部订单
+     * history为true时按游标分页返回已归档的历史订单
      */
     @GetMapping("/sales")
-    public Result<List<Order>> getMySales(@RequestParam Long userId, 
-                                         @RequestParam(required = false) String status) {
+    public Result<?> getMySales(@RequestParam Long userId, 
+                                @RequestParam(required = false) String status,
+                                @RequestParam(required = false) Integer size,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "false") boolean history) {
         try {
             List<Order> orders;
+            if (history) {
+                return Result.success(orderService.getSellerOrderHistoryPage(userId, parseStatus(status), cursor,
+                        size != null ? size : DEFAULT_PAGE_SIZE));
+            }
+            if (size != null) {
+                return Result.success(orderService.getSellerOrderPage(userId, parseStatus(status), cursor, size));
+            }
             if (status != null && !status.equals("all")) {
-                // 处理状态映射，兼容旧的PENDING状态
-                String normalizedStatus = status.toUpperCase();
-                if ("PENDING".equals(normalizedStatus)) {
-                    normalizedStatus = "PENDING_PAYMENT";
-                }
-                
-                Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(normalizedStatus);
+                Order.OrderStatus orderStatus = parseStatus(status);
                 orders = orderService.getSellerOrdersByStatus(userId, orderStatus);
             } else {
                 orders = orderService.getSellerOrders(userId);
@@ -107,12 +205,46 @@ public class OrderController {
         }
     }
 
+    /**
+     * 解析订单状态参数，为空或all表示全部
+     */
+    private Order.OrderStatus parseStatus(String status) {
+        if (status == null || status.equals("all")) {
+            return null;
+        }
+        // 处理状态映射，兼容旧的PENDING状态
+        String normalizedStatus = status.toUpperCase();
+        if ("PENDING".equals(normalizedStatus)) {
+            normalizedStatus = "PENDING_PAYMENT";
+        }
+        return Order.OrderStatus.valueOf(normalizedStatus);
+    }
+
+    /**
+     * 按状态计数转换为接口返回的数量
+     */
+    private Map<String, Long> toCountView(Map<Order.OrderStatus, Long> counts) {
+        long totalCount = counts.values().stream().mapToLong(Long::longValue).sum();
+        return Map.of(
+            "total", totalCount,
+            "pendingPayment", counts.get(Order.OrderStatus.PENDING_PAYMENT),
+            "pendingShipment", counts.get(Order.OrderStatus.PENDING_SHIPMENT),
+            "shipping", counts.get(Order.OrderStatus.SHIPPING),
+            "completed", counts.get(Order.OrderStatus.COMPLETED),
+            "cancelled", counts.get(Order.OrderStatus.CANCELLED)
+        );
+    }
+
     /**
      * 获取订单详情
      */
     @GetMapping("/{id}")
-    public Result<Order> getOrderDetail(@PathVariable Long id, @RequestParam Long userId) {
+    public Result<?> getOrderDetail(@PathVariable Long id, @RequestParam Long userId,
+                                    @RequestParam(defaultValue = "false") boolean history) {
         try {
+            if (history) {
+                return Result.success(orderService.getArchivedOrderDetail(id, userId));
+            }
             Order order = orderService.getOrderDetail(id, userId);
             return Result.success(order);
         } catch (Exception e) {
@@ -216,22 +348,7 @@ public class OrderController {
     @GetMapping("/count/buyer")
     public Result<Map<String, Long>> getBuyerOrderCount(@RequestParam Long userId) {
         try {
-            long totalCount = orderService.countBuyerOrders(userId);
-            long pendingPaymentCount = orderService.countBuyerOrdersByStatus(userId, Order.OrderStatus.PENDING_PAYMENT);
-            long pendingShipmentCount = orderService.countBuyerOrdersByStatus(userId, Order.OrderStatus.PENDING_SHIPMENT);
-            long shippingCount = orderService.countBuyerOrdersByStatus(userId, Order.OrderStatus.SHIPPING);
-            long completedCount = orderService.countBuyerOrdersByStatus(userId, Order.OrderStatus.COMPLETED);
-            long cancelledCount = orderService.countBuyerOrdersByStatus(userId, Order.OrderStatus.CANCELLED);
-            
-            Map<String, Long> result = Map.of(
-                "total", totalCount,
-                "pendingPayment", pendingPaymentCount,
-                "pendingShipment", pendingShipmentCount,
-                "shipping", shippingCount,
-                "completed", completedCount,
-                "cancelled", cancelledCount
-            );
-            return Result.success(result);
+            return Result.success(toCountView(orderStatusCounterService.getBuyerCounts(userId)));
         } catch (Exception e) {
             return Result.error("统计订单数量失败: " + e.getMessage());
         }
@@ -243,22 +360,7 @@ public class OrderController {
     @GetMapping("/count/seller")
     public Result<Map<String, Long>> getSellerOrderCount(@RequestParam Long userId) {
         try {
-            long totalCount = orderService.countSellerOrders(userId);
-            long pendingPaymentCount = orderService.countSellerOrdersByStatus(userId, Order.OrderStatus.PENDING_PAYMENT);
-            long pendingShipmentCount = orderService.countSellerOrdersByStatus(userId, Order.OrderStatus.PENDING_SHIPMENT);
-            long shippingCount = orderService.countSellerOrdersByStatus(userId, Order.OrderStatus.SHIPPING);
-            long completedCount = orderService.countSellerOrdersByStatus(userId, Order.OrderStatus.COMPLETED);
-            long cancelledCount = orderService.countSellerOrdersByStatus(userId, Order.OrderStatus.CANCELLED);
-            
-            Map<String, Long> result = Map.of(
-                "total", totalCount,
-                "pendingPayment", pendingPaymentCount,
-                "pendingShipment", pendingShipmentCount,
-                "shipping", shippingCount,
-                "completed", completedCount,
-                "cancelled", cancelledCount
-            );
-            return Result.success(result);
+            return Result.success(toCountView(orderStatusCounterService.getSellerCounts(userId)));
         } catch (Exception e) {
             return Result.error("统计销售订单数量失败: " + e.getMessage());
         }
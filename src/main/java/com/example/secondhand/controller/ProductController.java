@@ -10,6 +10,9 @@ package com.example.secondhand.controller;
 
 import com.example.secondhand.entity.Product;
 import com.example.secondhand.repository.ProductRepository;
+import com.example.secondhand.service.HotStockService;
+import com.example.secondhand.service.InventoryNearCache;
+import com.example.secondhand.service.RedisStockService;
 import com.example.secondhand.common.Result;   // ✅ 一定要有这行
 import org.springframework.web.bind.annotation.*;
 
@@ -26,6 +29,15 @@ public class ProductController {
     @Resource
     private ProductRepository productRepository;
 
+    @Resource
+    private RedisStockService redisStockService;
+
+    @Resource
+    private HotStockService hotStockService;
+
+    @Resource
+    private InventoryNearCache inventoryNearCache;
+
     // ✅ 1. 新增商品
     @PostMapping("/add")
     public Result<Product> add(@RequestBody Product product, HttpServletRequest request) {
@@ -72,8 +84,19 @@ public class ProductController {
         
         // 保留原有的创建时间
         product.setCreateTime(existingProduct.getCreateTime());
+        Integer previousQuantity = existingProduct.getQuantity();
         
         Product save = productRepository.save(product);
+
+        // 库存被直接修改，按修改前后的差值原子调整Redis库存计数器，尚未落库的预扣增量仍然有效
+        if (previousQuantity != null && save.getQuantity() != null) {
+            redisStockService.adjustLoaded(save.getId(), save.getQuantity() - previousQuantity);
+        }
+        inventoryNearCache.invalidate(save.getId());
+        if (hotStockService.isHot(save.getId()) && save.getQuantity() != null) {
+            // 热门商品的可售库存在分片上，按新的总库存重新分配
+            hotStockService.resetStock(save.getId(), save.getQuantity());
+        }
         return Result.success(save);
     }
 
@@ -0,0 +1,116 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 归档订单实体类
+ * 已完成或已取消且超过保留期限的订单由归档任务从订单表移入，字段与订单表一致，只读
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_orders_archive_buyer_create_time", columnList = "buyer_id, create_time, id")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;                  // 原订单ID
+
+    @Column(unique = true, nullable = false)
+    private String orderNo;           // 订单号
+
+    @Column(nullable = false)
+    private Long buyerId;             // 买家ID
+
+    @Column(nullable = false)
+    private String buyerName;         // 买家姓名
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;   // 订单总金额
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status; // 订单状态
+
+    @Column(nullable = false, length = 500)
+    private String address;           // 收货地址
+
+    @Column(nullable = false, length = 20)
+    private String phone;             // 联系电话
+
+    @Column(length = 200)
+    private String remark;            // 备注信息
+
+    @Column(nullable = false)
+    private LocalDateTime createTime; // 创建时间
+
+    private LocalDateTime updateTime; // 更新时间
+
+    @Column(nullable = false)
+    private LocalDateTime archiveTime; // 归档时间
+
+    @OneToMany(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", insertable = false, updatable = false)
+    private List<ArchivedOrderItem> items; // 订单项列表
+
+    // 构造函数
+    public ArchivedOrder() {}
+
+    // Getter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public String getOrderNo() {
+        return orderNo;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public String getBuyerName() {
+        return buyerName;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public LocalDateTime getArchiveTime() {
+        return archiveTime;
+    }
+
+    public List<ArchivedOrderItem> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * 归档订单项实体类
+ * 随所属订单一起从订单项表移入，字段与订单项表一致，只读
+ */
+@Entity
+@Immutable
+@Table(name = "order_items_archive", indexes = {
+    @Index(name = "idx_order_items_archive_order", columnList = "order_id"),
+    @Index(name = "idx_order_items_archive_seller_order", columnList = "seller_id, order_id")
+})
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;                  // 原订单项ID
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;             // 所属订单ID
+
+    @Column(nullable = false)
+    private Long productId;           // 商品ID
+
+    @Column(nullable = false, length = 200)
+    private String productName;       // 商品名称
+
+    @Column(length = 500)
+    private String productImage;      // 商品图片
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal productPrice;  // 商品单价
+
+    @Column(nullable = false)
+    private Integer quantity;         // 购买数量
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal subtotal;      // 小计金额
+
+    @Column(nullable = false)
+    private Long sellerId;            // 卖家ID
+
+    @Column(nullable = false, length = 100)
+    private String sellerName;        // 卖家姓名
+
+    // 构造函数
+    public ArchivedOrderItem() {}
+
+    // Getter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getProductImage() {
+        return productImage;
+    }
+
+    public BigDecimal getProductPrice() {
+        return productPrice;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public String getSellerName() {
+        return sellerName;
+    }
+}
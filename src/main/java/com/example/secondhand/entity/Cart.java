@@ -10,7 +10,10 @@ import java.time.LocalDateTime;
 public class Cart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_id")
+    @TableGenerator(name = "cart_id", table = IdGeneration.TABLE, pkColumnName = IdGeneration.PK_COLUMN,
+                    valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "cart",
+                    allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
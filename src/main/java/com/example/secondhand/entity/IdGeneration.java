@@ -0,0 +1,27 @@
+package com.example.secondhand.entity;
+
+/**
+ * 主键生成配置
+ * 高频写入的实体使用表生成器按批分配主键（pooled-lo优化器，每次从序列表取一段），
+ * 主键在插入前即可确定，Hibernate可以将多条INSERT合并为一个JDBC批次；
+ * IDENTITY主键必须逐条插入后才能取得，会使Hibernate禁用插入批处理
+ */
+public final class IdGeneration {
+
+    /**
+     * 序列表，每个实体一行，记录下一段主键的起始值
+     */
+    public static final String TABLE = "id_sequences";
+
+    public static final String PK_COLUMN = "sequence_name";
+
+    public static final String VALUE_COLUMN = "next_val";
+
+    /**
+     * 每次分配的主键数量，节点重启时未用完的主键会被跳过
+     */
+    public static final int ALLOCATION_SIZE = 100;
+
+    private IdGeneration() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 库存增量日志检查点实体类
+ * 记录已合并写入商品表的最后一条日志ID，与库存更新在同一事务中提交，重启后从该位置继续刷新
+ */
+@Entity
+@Table(name = "inventory_journal_checkpoints")
+public class InventoryJournalCheckpoint {
+
+    @Id
+    @Column(name = "journal_name", length = 64)
+    private String journalName;       // 日志名称
+
+    @Column(name = "last_entry_id", nullable = false, length = 64)
+    private String lastEntryId;       // 最后一条已落库的日志ID
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime; // 更新时间
+
+    // 构造函数
+    public InventoryJournalCheckpoint() {}
+
+    public InventoryJournalCheckpoint(String journalName, String lastEntryId) {
+        this.journalName = journalName;
+        this.lastEntryId = lastEntryId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updateTime = LocalDateTime.now();
+    }
+
+    // Getter 和 Setter 方法
+    public String getJournalName() {
+        return journalName;
+    }
+
+    public void setJournalName(String journalName) {
+        this.journalName = journalName;
+    }
+
+    public String getLastEntryId() {
+        return lastEntryId;
+    }
+
+    public void setLastEntryId(String lastEntryId) {
+        this.lastEntryId = lastEntryId;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 库存预扣台账实体类
+ * 每个订单项一行，记录预扣数量、状态和过期时间，用于确认、释放和过期回收库存
+ */
+@Entity
+@Table(name = "inventory_reservations", indexes = {
+    @Index(name = "idx_reservation_order_no", columnList = "order_no"),
+    @Index(name = "idx_reservation_status_expire", columnList = "status, expire_time"),
+    @Index(name = "idx_reservation_sweep_id", columnList = "sweep_id")
+})
+public class InventoryReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "inventory_reservations_id")
+    @TableGenerator(name = "inventory_reservations_id", table = IdGeneration.TABLE, pkColumnName = IdGeneration.PK_COLUMN,
+                    valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "inventory_reservations",
+                    allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "order_no", nullable = false, length = 50)
+    private String orderNo;           // 订单号
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;           // 商品ID
+
+    @Column(nullable = false)
+    private Integer quantity;         // 预扣数量
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status; // 预扣状态
+
+    @Column(name = "expire_time", nullable = false)
+    private LocalDateTime expireTime; // 过期时间
+
+    @Column(name = "sweep_id", length = 50)
+    private String sweepId;           // 回收批次ID（过期回收或超时释放）
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime; // 创建时间
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime; // 更新时间
+
+    // 预扣状态枚举
+    public enum ReservationStatus {
+        RESERVED("已预扣"),
+        CONFIRMED("已确认"),
+        RELEASED("已释放"),
+        EXPIRED("已过期");
+
+        private final String description;
+
+        ReservationStatus(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    // 构造函数
+    public InventoryReservation() {}
+
+    public InventoryReservation(String orderNo, Long productId, Integer quantity, LocalDateTime expireTime) {
+        this.orderNo = orderNo;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expireTime = expireTime;
+        this.status = ReservationStatus.RESERVED;
+        this.createTime = LocalDateTime.now();
+        this.updateTime = LocalDateTime.now();
+    }
+
+    // Getter 和 Setter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOrderNo() {
+        return orderNo;
+    }
+
+    public void setOrderNo(String orderNo) {
+        this.orderNo = orderNo;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+        this.updateTime = LocalDateTime.now();
+    }
+
+    public LocalDateTime getExpireTime() {
+        return expireTime;
+    }
+
+    public void setExpireTime(LocalDateTime expireTime) {
+        this.expireTime = expireTime;
+    }
+
+    public String getSweepId() {
+        return sweepId;
+    }
+
+    public void setSweepId(String sweepId) {
+        this.sweepId = sweepId;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (this.createTime == null) {
+            this.createTime = LocalDateTime.now();
+        }
+        if (this.updateTime == null) {
+            this.updateTime = LocalDateTime.now();
+        }
+        if (this.status == null) {
+            this.status = ReservationStatus.RESERVED;
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updateTime = LocalDateTime.now();
+    }
+}
@@ -6,11 +6,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_buyer_create_time", columnList = "buyer_id, create_time, id")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id")
+    @TableGenerator(name = "orders_id", table = IdGeneration.TABLE, pkColumnName = IdGeneration.PK_COLUMN,
+                    valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "orders",
+                    allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -181,18 +186,6 @@ public class Order {
     }
 
     // 业务方法
-    /**
-     * 生成订单号
-     * 格式：ORD + 年月日时分秒 + 3位随机数
-     */
-    public static String generateOrderNo() {
-        java.time.format.DateTimeFormatter formatter = 
-            java.time.format.DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-        String timestamp = LocalDateTime.now().format(formatter);
-        int random = (int) (Math.random() * 1000);
-        return String.format("ORD%s%03d", timestamp, random);
-    }
-
     /**
      * 检查订单状态是否可以取消
      */
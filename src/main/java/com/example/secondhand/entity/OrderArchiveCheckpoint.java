@@ -0,0 +1,62 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 订单归档检查点实体类
+ * 记录本轮归档已扫描到的最大订单ID，与每批订单的移动在同一事务中提交，重启后从该位置继续
+ */
+@Entity
+@Table(name = "order_archive_checkpoints")
+public class OrderArchiveCheckpoint {
+
+    @Id
+    @Column(name = "archive_name", length = 64)
+    private String archiveName;       // 归档任务名称
+
+    @Column(name = "last_order_id", nullable = false)
+    private Long lastOrderId;         // 已扫描的最大订单ID，0表示从头开始
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime; // 更新时间
+
+    // 构造函数
+    public OrderArchiveCheckpoint() {}
+
+    public OrderArchiveCheckpoint(String archiveName, Long lastOrderId) {
+        this.archiveName = archiveName;
+        this.lastOrderId = lastOrderId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updateTime = LocalDateTime.now();
+    }
+
+    // Getter 和 Setter 方法
+    public String getArchiveName() {
+        return archiveName;
+    }
+
+    public void setArchiveName(String archiveName) {
+        this.archiveName = archiveName;
+    }
+
+    public Long getLastOrderId() {
+        return lastOrderId;
+    }
+
+    public void setLastOrderId(Long lastOrderId) {
+        this.lastOrderId = lastOrderId;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 public class PaymentLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "payment_logs_id")
+    @TableGenerator(name = "payment_logs_id", table = IdGeneration.TABLE, pkColumnName = IdGeneration.PK_COLUMN,
+                    valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "payment_logs",
+                    allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "order_no", nullable = false, length = 50)
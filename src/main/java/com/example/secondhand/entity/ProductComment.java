@@ -17,7 +17,10 @@ import java.util.List;
 public class ProductComment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_comment_id")
+    @TableGenerator(name = "product_comment_id", table = IdGeneration.TABLE, pkColumnName = IdGeneration.PK_COLUMN,
+                    valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "product_comment",
+                    allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     private Long userId;
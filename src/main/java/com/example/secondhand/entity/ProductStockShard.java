@@ -0,0 +1,69 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * 热门商品库存分片实体类
+ * 热门商品的库存拆分到多行，预扣时不同请求落在不同分片行上，避免所有请求排队等待同一行锁
+ */
+@Entity
+@Table(name = "product_stock_shards", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_product_shard", columnNames = {"product_id", "shard_no"})
+})
+public class ProductStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;           // 商品ID
+
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;          // 分片序号（从0开始）
+
+    @Column(nullable = false)
+    private Integer quantity;         // 分片库存
+
+    // 构造函数
+    public ProductStockShard() {}
+
+    public ProductStockShard(Long productId, Integer shardNo, Integer quantity) {
+        this.productId = productId;
+        this.shardNo = shardNo;
+        this.quantity = quantity;
+    }
+
+    // Getter 和 Setter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getShardNo() {
+        return shardNo;
+    }
+
+    public void setShardNo(Integer shardNo) {
+        this.shardNo = shardNo;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
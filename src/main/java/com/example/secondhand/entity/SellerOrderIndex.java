@@ -0,0 +1,91 @@
+package com.example.secondhand.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 卖家订单索引实体类
+ * 每个（卖家, 订单）一行，冗余订单状态和创建时间，卖家订单列表、计数和权限检查直接按卖家ID走索引，
+ * 不再联表订单项后去重排序。订单创建时写入，订单状态变更时同步更新
+ */
+@Entity
+@Table(name = "seller_order_index", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_seller_order", columnNames = {"seller_id", "order_id"})
+}, indexes = {
+    @Index(name = "idx_seller_order_create_time", columnList = "seller_id, create_time, order_id"),
+    @Index(name = "idx_seller_order_status_create_time", columnList = "seller_id, status, create_time, order_id"),
+    @Index(name = "idx_seller_order_order_id", columnList = "order_id")
+})
+public class SellerOrderIndex {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "seller_order_index_id")
+    @TableGenerator(name = "seller_order_index_id", table = IdGeneration.TABLE, pkColumnName = IdGeneration.PK_COLUMN,
+                    valueColumnName = IdGeneration.VALUE_COLUMN, pkColumnValue = "seller_order_index",
+                    allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;                  // 卖家ID
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;                   // 订单ID
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.OrderStatus status;       // 订单状态
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;       // 订单创建时间
+
+    // 构造函数
+    public SellerOrderIndex() {}
+
+    public SellerOrderIndex(Long sellerId, Order order) {
+        this.sellerId = sellerId;
+        this.orderId = order.getId();
+        this.status = order.getStatus();
+        this.createTime = order.getCreateTime();
+    }
+
+    // Getter 和 Setter 方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Order.OrderStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+}
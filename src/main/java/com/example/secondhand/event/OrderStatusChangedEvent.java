@@ -0,0 +1,48 @@
+package com.example.secondhand.event;
+
+import com.example.secondhand.entity.Order;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 订单状态变更事件
+ * 在创建订单或修改订单状态的事务中发布，用于维护依赖订单状态的冗余数据；
+ * 新建订单的原状态为空
+ */
+public class OrderStatusChangedEvent extends ApplicationEvent {
+
+    private final Long orderId;
+    private final Long buyerId;
+    private final Order.OrderStatus previousStatus;
+    private final Order.OrderStatus status;
+
+    public OrderStatusChangedEvent(Object source, Order order, Order.OrderStatus previousStatus) {
+        super(source);
+        this.orderId = order.getId();
+        this.buyerId = order.getBuyerId();
+        this.previousStatus = previousStatus;
+        this.status = order.getStatus();
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public Order.OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * 是否为新建订单
+     */
+    public boolean isCreated() {
+        return previousStatus == null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.secondhand.repository;
+
+import com.example.secondhand.entity.ArchivedOrder;
+import com.example.secondhand.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 归档订单数据访问接口
+ * 只在明确查询历史订单时使用，订单列表、计数等常规查询只访问订单表
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, ArchivedOrderRepositoryCustom {
+
+    /**
+     * 按（创建时间, ID）倒序查询买家归档订单的第一页（不加载订单项）
+     * @param buyerId 买家ID
+     * @param status 订单状态，为空表示全部
+     * @param pageable 分页参数（只使用条数）
+     * @return 归档订单列表
+     */
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.buyerId = :buyerId AND (:status IS NULL OR o.status = :status) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<ArchivedOrder> findBuyerOrderPage(@Param("buyerId") Long buyerId, @Param("status") Order.OrderStatus status,
+                                           Pageable pageable);
+
+    /**
+     * 按（创建时间, ID）倒序查询买家归档订单中位于游标之后的一页（不加载订单项）
+     * @param buyerId 买家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursorTime 游标创建时间
+     * @param cursorId 游标订单ID
+     * @param pageable 分页参数（只使用条数）
+     * @return 归档订单列表
+     */
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.buyerId = :buyerId AND (:status IS NULL OR o.status = :status) " +
+           "AND (o.createTime < :cursorTime OR (o.createTime = :cursorTime AND o.id < :cursorId)) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<ArchivedOrder> findBuyerOrderPageAfter(@Param("buyerId") Long buyerId, @Param("status") Order.OrderStatus status,
+                                                @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                                Pageable pageable);
+
+    /**
+     * 按（创建时间, ID）倒序查询卖家归档订单的第一页（不加载订单项）
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @param pageable 分页参数（只使用条数）
+     * @return 归档订单列表
+     */
+    @Query("SELECT o FROM ArchivedOrder o WHERE (:status IS NULL OR o.status = :status) " +
+           "AND EXISTS (SELECT 1 FROM ArchivedOrderItem oi WHERE oi.orderId = o.id AND oi.sellerId = :sellerId) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<ArchivedOrder> findSellerOrderPage(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status,
+                                            Pageable pageable);
+
+    /**
+     * 按（创建时间, ID）倒序查询卖家归档订单中位于游标之后的一页（不加载订单项）
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursorTime 游标创建时间
+     * @param cursorId 游标订单ID
+     * @param pageable 分页参数（只使用条数）
+     * @return 归档订单列表
+     */
+    @Query("SELECT o FROM ArchivedOrder o WHERE (:status IS NULL OR o.status = :status) " +
+           "AND EXISTS (SELECT 1 FROM ArchivedOrderItem oi WHERE oi.orderId = o.id AND oi.sellerId = :sellerId) " +
+           "AND (o.createTime < :cursorTime OR (o.createTime = :cursorTime AND o.id < :cursorId)) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<ArchivedOrder> findSellerOrderPageAfter(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status,
+                                                 @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                                 Pageable pageable);
+
+    /**
+     * 加载一页归档订单的订单项
+     * @param ids 订单ID列表
+     * @return 归档订单列表（顺序不保证）
+     */
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<ArchivedOrder> findWithItemsByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * 加载一页归档订单中指定卖家的订单项
+     * @param ids 订单ID列表
+     * @param sellerId 卖家ID
+     * @return 归档订单列表（顺序不保证）
+     */
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.items oi WHERE o.id IN :ids AND oi.sellerId = :sellerId")
+    List<ArchivedOrder> findWithSellerItemsByIdIn(@Param("ids") List<Long> ids, @Param("sellerId") Long sellerId);
+
+    /**
+     * 判断卖家是否参与了归档订单
+     * @param orderId 订单ID
+     * @param sellerId 卖家ID
+     * @return 是否包含该卖家的订单项
+     */
+    @Query("SELECT COUNT(oi) > 0 FROM ArchivedOrderItem oi WHERE oi.orderId = :orderId AND oi.sellerId = :sellerId")
+    boolean existsSellerItem(@Param("orderId") Long orderId, @Param("sellerId") Long sellerId);
+
+    /**
+     * 按状态统计买家归档订单数量
+     * @param buyerId 买家ID
+     * @return [状态, 数量]列表
+     */
+    @Query("SELECT o.status, COUNT(o) FROM ArchivedOrder o WHERE o.buyerId = :buyerId GROUP BY o.status")
+    List<Object[]> countByBuyerIdGroupByStatus(@Param("buyerId") Long buyerId);
+
+    /**
+     * 按状态统计卖家归档订单数量
+     * @param sellerId 卖家ID
+     * @return [状态, 数量]列表
+     */
+    @Query("SELECT o.status, COUNT(DISTINCT o.id) FROM ArchivedOrder o JOIN o.items oi " +
+           "WHERE oi.sellerId = :sellerId GROUP BY o.status")
+    List<Object[]> countBySellerIdGroupByStatus(@Param("sellerId") Long sellerId);
+}
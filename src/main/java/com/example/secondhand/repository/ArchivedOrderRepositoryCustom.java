@@ -0,0 +1,29 @@
+package com.example.secondhand.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单归档批量操作（JdbcTemplate实现）
+ */
+public interface ArchivedOrderRepositoryCustom {
+
+    /**
+     * 按订单ID升序查找可归档的订单：已完成或已取消且创建时间早于截止时间
+     *
+     * @param afterId 只查找ID大于该值的订单（上一批的最大订单ID）
+     * @param createdBefore 创建时间截止
+     * @param limit 最大条数
+     * @return 订单ID列表（升序）
+     */
+    List<Long> findArchivableOrderIds(long afterId, LocalDateTime createdBefore, int limit);
+
+    /**
+     * 将订单及其订单项复制到归档表后从订单表、订单项表和卖家订单索引表删除
+     * 需要在事务中调用；复制前锁定订单行并再次检查状态，只移动仍处于终态的订单
+     *
+     * @param orderIds 订单ID列表
+     * @return 实际移动的订单数
+     */
+    int moveToArchive(List<Long> orderIds);
+}
@@ -0,0 +1,61 @@
+package com.example.secondhand.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 订单归档批量操作实现
+ * 与JPA共享同一事务连接，复制和删除在外层事务中一起提交
+ */
+public class ArchivedOrderRepositoryCustomImpl implements ArchivedOrderRepositoryCustom {
+
+    private static final String TERMINAL_STATUSES = "('COMPLETED', 'CANCELLED')";
+
+    private static final String ORDER_COLUMNS =
+            "id, order_no, buyer_id, buyer_name, total_amount, status, address, phone, remark, create_time, update_time";
+
+    private static final String ORDER_ITEM_COLUMNS =
+            "id, order_id, product_id, product_name, product_image, product_price, quantity, subtotal, seller_id, seller_name";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> findArchivableOrderIds(long afterId, LocalDateTime createdBefore, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE id > ? AND status IN " + TERMINAL_STATUSES +
+                " AND create_time < ? ORDER BY id LIMIT ?",
+                Long.class, afterId, Timestamp.valueOf(createdBefore), limit);
+    }
+
+    @Override
+    public int moveToArchive(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+        List<Long> lockedIds = jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE id IN (" + placeholders + ") AND status IN " + TERMINAL_STATUSES +
+                " ORDER BY id FOR UPDATE",
+                Long.class, orderIds.toArray());
+        if (lockedIds.isEmpty()) {
+            return 0;
+        }
+
+        Object[] ids = lockedIds.toArray();
+        String in = "(" + String.join(",", Collections.nCopies(lockedIds.size(), "?")) + ")";
+        jdbcTemplate.update("INSERT INTO orders_archive (" + ORDER_COLUMNS + ", archive_time) " +
+                "SELECT " + ORDER_COLUMNS + ", NOW(6) FROM orders WHERE id IN " + in, ids);
+        jdbcTemplate.update("INSERT INTO order_items_archive (" + ORDER_ITEM_COLUMNS + ") " +
+                "SELECT " + ORDER_ITEM_COLUMNS + " FROM order_items WHERE order_id IN " + in, ids);
+        jdbcTemplate.update("DELETE FROM seller_order_index WHERE order_id IN " + in, ids);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN " + in, ids);
+        return jdbcTemplate.update("DELETE FROM orders WHERE id IN " + in, ids);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.secondhand.repository;
+
+import com.example.secondhand.entity.InventoryJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存增量日志检查点数据访问接口
+ */
+@Repository
+public interface InventoryJournalCheckpointRepository extends JpaRepository<InventoryJournalCheckpoint, String> {
+
+    /**
+     * 检查点不存在时插入初始检查点（首次刷新时调用）
+     * @param journalName 日志名称
+     * @param lastEntryId 初始日志ID
+     * @param now 当前时间
+     * @return 插入的行数
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO inventory_journal_checkpoints (journal_name, last_entry_id, update_time) " +
+                   "VALUES (:journalName, :lastEntryId, :now)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("journalName") String journalName, @Param("lastEntryId") String lastEntryId,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * 检查点仍为读取时的位置时才推进（CAS）
+     * 刷新锁过期或降级为本地锁时可能有两个节点读取到同一段日志，只有一个能推进成功
+     * @param journalName 日志名称
+     * @param expected 读取日志时的检查点
+     * @param lastEntryId 新的检查点
+     * @param now 当前时间
+     * @return 更新的行数，0表示检查点已被其他刷新推进
+     */
+    @Modifying
+    @Query("UPDATE InventoryJournalCheckpoint c SET c.lastEntryId = :lastEntryId, c.updateTime = :now " +
+           "WHERE c.journalName = :journalName AND c.lastEntryId = :expected")
+    int advance(@Param("journalName") String journalName, @Param("expected") String expected,
+                @Param("lastEntryId") String lastEntryId, @Param("now") LocalDateTime now);
+}
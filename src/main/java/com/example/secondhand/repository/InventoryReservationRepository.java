@@ -0,0 +1,111 @@
+package com.example.secondhand.repository;
+
+import com.example.secondhand.entity.InventoryReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 库存预扣台账数据访问接口
+ */
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+
+    /**
+     * 根据订单号查询台账
+     * @param orderNo 订单号
+     * @return 台账列表
+     */
+    List<InventoryReservation> findByOrderNo(String orderNo);
+
+    /**
+     * 统计订单的台账行数（0表示台账上线前创建的订单）
+     * @param orderNo 订单号
+     * @return 行数
+     */
+    long countByOrderNo(String orderNo);
+
+    /**
+     * 批量确认预扣（支付成功后调用）
+     * @param orderNos 订单号列表
+     * @param now 当前时间
+     * @return 确认的行数
+     */
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.status = 'CONFIRMED', r.updateTime = :now " +
+           "WHERE r.orderNo IN :orderNos AND r.status = 'RESERVED'")
+    int confirmByOrderNos(@Param("orderNos") Collection<String> orderNos, @Param("now") LocalDateTime now);
+
+    /**
+     * 释放订单的预扣（订单取消或超时时调用）
+     * 只有已预扣或已确认的行会被释放，已释放或已过期回收的行不会再次释放，
+     * 返回值决定调用方是否需要恢复库存，避免重复恢复
+     * @param orderNo 订单号
+     * @param now 当前时间
+     * @return 释放的行数
+     */
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.status = 'RELEASED', r.updateTime = :now " +
+           "WHERE r.orderNo = :orderNo AND r.status IN ('RESERVED', 'CONFIRMED')")
+    int releaseByOrderNo(@Param("orderNo") String orderNo, @Param("now") LocalDateTime now);
+
+    /**
+     * 释放订单中仍为已预扣状态的行（订单超时时调用），并打上回收批次ID
+     * 已支付确认的行不受影响，调用方按批次ID汇总实际释放的数量来恢复库存，
+     * 与支付确认并发时不会把已确认订单的库存加回
+     * @param orderNo 订单号
+     * @param sweepId 回收批次ID
+     * @param now 当前时间
+     * @return 释放的行数
+     */
+    @Modifying
+    @Query(value = "UPDATE inventory_reservations SET status = 'RELEASED', sweep_id = :sweepId, update_time = :now " +
+                   "WHERE order_no = :orderNo AND status = 'RESERVED'",
+           nativeQuery = true)
+    int releaseReservedByOrderNo(@Param("orderNo") String orderNo, @Param("sweepId") String sweepId,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * 标记一批过期预扣（按过期时间顺序，最多limit行），并打上回收批次ID
+     * @param sweepId 回收批次ID
+     * @param now 当前时间
+     * @param limit 本批最大行数
+     * @return 标记的行数
+     */
+    @Modifying
+    @Query(value = "UPDATE inventory_reservations SET status = 'EXPIRED', sweep_id = :sweepId, update_time = :now " +
+                   "WHERE status = 'RESERVED' AND expire_time < :now ORDER BY expire_time LIMIT :limit",
+           nativeQuery = true)
+    int markExpiredBatch(@Param("sweepId") String sweepId, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 按回收批次一次性把过期预扣的数量加回商品库存
+     * @param sweepId 回收批次ID
+     * @return 更新的商品行数
+     */
+    @Modifying
+    @Query(value = "UPDATE product p JOIN (" +
+                   "    SELECT product_id, SUM(quantity) AS qty FROM inventory_reservations " +
+                   "    WHERE sweep_id = :sweepId GROUP BY product_id" +
+                   ") r ON p.id = r.product_id " +
+                   "SET p.quantity = p.quantity + r.qty",
+           nativeQuery = true)
+    int restoreProductQuantitiesBySweepId(@Param("sweepId") String sweepId);
+
+    /**
+     * 按回收批次汇总每个商品的过期数量（Redis库存模式下用于加回Redis计数器）
+     * 返回结果：[商品ID, 数量合计]
+     * @param sweepId 回收批次ID
+     * @return 汇总结果
+     */
+    @Query(value = "SELECT product_id, SUM(quantity) FROM inventory_reservations " +
+                   "WHERE sweep_id = :sweepId GROUP BY product_id",
+           nativeQuery = true)
+    List<Object[]> sumQuantitiesBySweepId(@Param("sweepId") String sweepId);
+}
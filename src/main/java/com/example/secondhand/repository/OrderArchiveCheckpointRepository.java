@@ -0,0 +1,12 @@
+package com.example.secondhand.repository;
+
+import com.example.secondhand.entity.OrderArchiveCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 订单归档检查点数据访问接口
+ */
+@Repository
+public interface OrderArchiveCheckpointRepository extends JpaRepository<OrderArchiveCheckpoint, String> {
+}
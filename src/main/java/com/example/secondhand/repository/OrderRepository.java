@@ -1,6 +1,7 @@
 package com.example.secondhand.repository;
 
 import com.example.secondhand.entity.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -31,28 +32,56 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByBuyerIdAndStatusOrderByCreateTimeDesc(@Param("buyerId") Long buyerId, @Param("status") Order.OrderStatus status);
 
     /**
-     * 根据订单号查询订单
-     * @param orderNo 订单号
-     * @return 订单
+     * 按（创建时间, ID）倒序查询买家订单的第一页（不加载订单项）
+     * @param buyerId 买家ID
+     * @param status 订单状态，为空表示全部
+     * @param pageable 分页参数（只使用条数）
+     * @return 订单列表
      */
-    Optional<Order> findByOrderNo(String orderNo);
+    @Query("SELECT o FROM Order o WHERE o.buyerId = :buyerId AND (:status IS NULL OR o.status = :status) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<Order> findBuyerOrderPage(@Param("buyerId") Long buyerId, @Param("status") Order.OrderStatus status,
+                                   Pageable pageable);
 
     /**
-     * 查询卖家的销售订单（通过订单项中的卖家ID，包含订单项）
-     * @param sellerId 卖家ID
+     * 按（创建时间, ID）倒序查询买家订单中位于游标之后的一页（不加载订单项）
+     * @param buyerId 买家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursorTime 游标创建时间
+     * @param cursorId 游标订单ID
+     * @param pageable 分页参数（只使用条数）
      * @return 订单列表
      */
-    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items oi WHERE oi.sellerId = :sellerId ORDER BY o.createTime DESC")
-    List<Order> findSellerOrders(@Param("sellerId") Long sellerId);
+    @Query("SELECT o FROM Order o WHERE o.buyerId = :buyerId AND (:status IS NULL OR o.status = :status) " +
+           "AND (o.createTime < :cursorTime OR (o.createTime = :cursorTime AND o.id < :cursorId)) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<Order> findBuyerOrderPageAfter(@Param("buyerId") Long buyerId, @Param("status") Order.OrderStatus status,
+                                        @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                        Pageable pageable);
+
+    /**
+     * 加载一页订单的订单项
+     * @param ids 订单ID列表
+     * @return 订单列表（顺序不保证）
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") List<Long> ids);
 
     /**
-     * 根据卖家ID和订单状态查询销售订单（包含订单项）
+     * 加载一页销售订单中指定卖家的订单项
+     * @param ids 订单ID列表
      * @param sellerId 卖家ID
-     * @param status 订单状态
-     * @return 订单列表
+     * @return 订单列表（顺序不保证）
      */
-    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items oi WHERE oi.sellerId = :sellerId AND o.status = :status ORDER BY o.createTime DESC")
-    List<Order> findSellerOrdersByStatus(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status);
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items oi WHERE o.id IN :ids AND oi.sellerId = :sellerId")
+    List<Order> findWithSellerItemsByIdIn(@Param("ids") List<Long> ids, @Param("sellerId") Long sellerId);
+
+    /**
+     * 根据订单号查询订单
+     * @param orderNo 订单号
+     * @return 订单
+     */
+    Optional<Order> findByOrderNo(String orderNo);
 
     /**
      * 查询指定时间范围内的订单
@@ -78,21 +107,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     long countByBuyerIdAndStatus(Long buyerId, Order.OrderStatus status);
 
     /**
-     * 统计卖家的销售订单数量
-     * @param sellerId 卖家ID
-     * @return 订单数量
-     */
-    @Query("SELECT COUNT(DISTINCT o) FROM Order o JOIN o.items oi WHERE oi.sellerId = :sellerId")
-    long countSellerOrders(@Param("sellerId") Long sellerId);
-
-    /**
-     * 统计卖家指定状态的销售订单数量
-     * @param sellerId 卖家ID
-     * @param status 订单状态
-     * @return 订单数量
+     * 按状态统计买家的订单数量
+     * @param buyerId 买家ID
+     * @return [状态, 数量] 列表
      */
-    @Query("SELECT COUNT(DISTINCT o) FROM Order o JOIN o.items oi WHERE oi.sellerId = :sellerId AND o.status = :status")
-    long countSellerOrdersByStatus(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status);
+    @Query("SELECT o.status, COUNT(o) FROM Order o WHERE o.buyerId = :buyerId GROUP BY o.status")
+    List<Object[]> countByBuyerIdGroupByStatus(@Param("buyerId") Long buyerId);
 
     /**
      * 查询买家在指定时间范围内的订单
@@ -125,15 +145,6 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     boolean existsByIdAndBuyerId(Long orderId, Long buyerId);
 
-    /**
-     * 检查订单是否包含指定卖家的商品
-     * @param orderId 订单ID
-     * @param sellerId 卖家ID
-     * @return 是否存在
-     */
-    @Query("SELECT COUNT(o) > 0 FROM Order o JOIN o.items oi WHERE o.id = :orderId AND oi.sellerId = :sellerId")
-    boolean existsByIdAndSellerId(@Param("orderId") Long orderId, @Param("sellerId") Long sellerId);
-
     /**
      * 查找超时的待支付订单
      * @param timeoutThreshold 超时时间阈值
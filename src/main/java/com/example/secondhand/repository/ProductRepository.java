@@ -9,15 +9,18 @@
 package com.example.secondhand.repository;
 
 import com.example.secondhand.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     
     /**
      * 根据卖家ID查询商品列表
@@ -82,4 +85,53 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Lock(LockModeType.PESSIMISTIC_READ)
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdWithPessimisticReadLock(@Param("id") Long id);
+
+    // ====== 库存增量更新方法 ======
+
+    /**
+     * 按增量调整商品库存（正数为恢复，负数为扣减）
+     * 用于Redis库存模式下的异步持久化
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :delta WHERE p.id = :id")
+    int adjustQuantity(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 条件扣减商品库存（仅当库存充足时扣减）
+     * 用于条件扣减模式，返回影响行数：1表示扣减成功，0表示库存不足或商品不存在
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity WHERE p.id = :id AND p.quantity >= :quantity")
+    int decrementIfSufficient(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * 比较并设置商品库存（仅当当前库存等于期望值时更新）
+     * 用于Redis库存对账修复，避免覆盖并发修改
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.quantity = :target WHERE p.id = :id AND p.quantity = :expected")
+    int compareAndSetQuantity(@Param("id") Long id, @Param("expected") Integer expected, @Param("target") Integer target);
+
+    /**
+     * 批量查询商品库存（只返回ID和库存数量）
+     * 返回结果：[商品ID, 库存数量]
+     */
+    @Query("SELECT p.id, p.quantity FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findQuantitiesByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 按商品ID分块查询库存（键集分页，只返回ID和库存数量）
+     * 返回结果：[商品ID, 库存数量]，按商品ID升序，分页参数只用于限制条数
+     */
+    @Query("SELECT p.id, p.quantity FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findQuantitiesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 查询最大的商品ID（用于估算全量扫描进度）
+     */
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Long findMaxId();
 }
@@ -0,0 +1,27 @@
+package com.example.secondhand.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 商品库存批量操作（JdbcTemplate实现）
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * 按商品ID升序一次性锁定多行并返回当前库存（SELECT ... ORDER BY id FOR UPDATE）
+     * 直接读取数据库行，不受持久化上下文中已加载实体的影响；固定加锁顺序避免交叉订单死锁
+     *
+     * @param productIds 商品ID集合
+     * @return 商品ID -> 当前库存（按商品ID升序），不存在的商品不包含在结果中
+     */
+    Map<Long, Integer> lockQuantitiesForUpdate(Collection<Long> productIds);
+
+    /**
+     * 一次批量UPDATE按增量调整多个商品库存（正数为恢复，负数为扣减）
+     *
+     * @param deltas 商品ID -> 库存增量
+     * @return 每条UPDATE影响的行数
+     */
+    int[] batchAdjustQuantities(Map<Long, Integer> deltas);
+}
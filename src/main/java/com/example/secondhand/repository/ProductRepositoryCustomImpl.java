@@ -0,0 +1,52 @@
+package com.example.secondhand.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 商品库存批量操作实现
+ * 与JPA共享同一事务连接，行锁在外层事务提交时释放
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, Integer> lockQuantitiesForUpdate(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> ids = new ArrayList<>(new TreeSet<>(productIds));
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT id, quantity FROM product WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE";
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            quantities.put(rs.getLong("id"), rs.getInt("quantity"));
+        }, ids.toArray());
+        return quantities;
+    }
+
+    @Override
+    public int[] batchAdjustQuantities(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return new int[0];
+        }
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        return jdbcTemplate.batchUpdate("UPDATE product SET quantity = quantity + ? WHERE id = ?", args);
+    }
+}
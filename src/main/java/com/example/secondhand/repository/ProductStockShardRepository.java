@@ -0,0 +1,103 @@
+package com.example.secondhand.repository;
+
+import com.example.secondhand.entity.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 热门商品库存分片数据访问接口
+ */
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    /**
+     * 统计商品的分片数量
+     * @param productId 商品ID
+     * @return 分片数量
+     */
+    long countByProductId(Long productId);
+
+    /**
+     * 条件扣减单个分片（仅当分片库存充足时扣减）
+     * @return 影响行数：1表示扣减成功，0表示分片库存不足
+     */
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity - :quantity " +
+           "WHERE s.productId = :productId AND s.shardNo = :shardNo AND s.quantity >= :quantity")
+    int decrementIfSufficient(@Param("productId") Long productId, @Param("shardNo") int shardNo,
+                              @Param("quantity") int quantity);
+
+    /**
+     * 增加单个分片的库存
+     * @return 影响行数
+     */
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity + :quantity " +
+           "WHERE s.productId = :productId AND s.shardNo = :shardNo")
+    int increment(@Param("productId") Long productId, @Param("shardNo") int shardNo,
+                  @Param("quantity") int quantity);
+
+    /**
+     * 按分片序号升序锁定商品的所有分片（重新分配库存使用）
+     * @param productId 商品ID
+     * @return 分片列表
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardNo")
+    List<ProductStockShard> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    /**
+     * 不加锁读取商品各分片的库存（按分片序号升序），用于挑选条件扣减的起始分片
+     * @param productId 商品ID
+     * @return [分片序号, 库存] 列表
+     */
+    @Query("SELECT s.shardNo, s.quantity FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardNo")
+    List<Object[]> findShardQuantities(@Param("productId") Long productId);
+
+    /**
+     * 按分片序号升序锁定商品从指定序号开始的分片（条件扣减都失败后跨分片扣减使用）
+     * @param productId 商品ID
+     * @param fromShardNo 起始分片序号（含）
+     * @return 分片列表
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId AND s.shardNo >= :fromShardNo " +
+           "ORDER BY s.shardNo")
+    List<ProductStockShard> findByProductIdFromShardForUpdate(@Param("productId") Long productId,
+                                                              @Param("fromShardNo") int fromShardNo);
+
+    /**
+     * 查询已拆分库存的商品
+     * @return 商品ID列表
+     */
+    @Query("SELECT DISTINCT s.productId FROM ProductStockShard s")
+    List<Long> findShardedProductIds();
+
+    /**
+     * 汇总商品所有分片的库存
+     * @param productId 商品ID
+     * @return 库存合计
+     */
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = :productId")
+    long sumQuantity(@Param("productId") Long productId);
+
+    /**
+     * 把分片库存合计同步到商品表（商品列表等只读场景展示用）
+     * @param productIds 商品ID列表
+     * @return 更新的商品行数
+     */
+    @Modifying
+    @Query(value = "UPDATE product p SET p.quantity = (" +
+                   "    SELECT COALESCE(SUM(s.quantity), 0) FROM product_stock_shards s WHERE s.product_id = p.id" +
+                   ") WHERE p.id IN (:productIds)",
+           nativeQuery = true)
+    int syncProductQuantities(@Param("productIds") Collection<Long> productIds);
+}
@@ -0,0 +1,108 @@
+package com.example.secondhand.repository;
+
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.entity.SellerOrderIndex;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 卖家订单索引数据访问接口
+ */
+@Repository
+public interface SellerOrderIndexRepository extends JpaRepository<SellerOrderIndex, Long> {
+
+    /**
+     * 按创建时间倒序查询卖家的订单ID
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @return 订单ID列表
+     */
+    @Query("SELECT s.orderId FROM SellerOrderIndex s WHERE s.sellerId = :sellerId " +
+           "AND (:status IS NULL OR s.status = :status) ORDER BY s.createTime DESC, s.orderId DESC")
+    List<Long> findOrderIds(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status);
+
+    /**
+     * 按（创建时间, 订单ID）倒序查询卖家订单的第一页
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @param pageable 分页参数（只使用条数）
+     * @return 索引列表
+     */
+    @Query("SELECT s FROM SellerOrderIndex s WHERE s.sellerId = :sellerId " +
+           "AND (:status IS NULL OR s.status = :status) ORDER BY s.createTime DESC, s.orderId DESC")
+    List<SellerOrderIndex> findPage(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status,
+                                    Pageable pageable);
+
+    /**
+     * 按（创建时间, 订单ID）倒序查询卖家订单中位于游标之后的一页
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursorTime 游标创建时间
+     * @param cursorId 游标订单ID
+     * @param pageable 分页参数（只使用条数）
+     * @return 索引列表
+     */
+    @Query("SELECT s FROM SellerOrderIndex s WHERE s.sellerId = :sellerId " +
+           "AND (:status IS NULL OR s.status = :status) " +
+           "AND (s.createTime < :cursorTime OR (s.createTime = :cursorTime AND s.orderId < :cursorId)) " +
+           "ORDER BY s.createTime DESC, s.orderId DESC")
+    List<SellerOrderIndex> findPageAfter(@Param("sellerId") Long sellerId, @Param("status") Order.OrderStatus status,
+                                         @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                         Pageable pageable);
+
+    /**
+     * 统计卖家的销售订单数量
+     * @param sellerId 卖家ID
+     * @return 订单数量
+     */
+    long countBySellerId(Long sellerId);
+
+    /**
+     * 统计卖家指定状态的销售订单数量
+     * @param sellerId 卖家ID
+     * @param status 订单状态
+     * @return 订单数量
+     */
+    long countBySellerIdAndStatus(Long sellerId, Order.OrderStatus status);
+
+    /**
+     * 检查订单是否包含指定卖家的商品
+     * @param sellerId 卖家ID
+     * @param orderId 订单ID
+     * @return 是否存在
+     */
+    boolean existsBySellerIdAndOrderId(Long sellerId, Long orderId);
+
+    /**
+     * 按状态统计卖家的销售订单数量
+     * @param sellerId 卖家ID
+     * @return [状态, 数量] 列表
+     */
+    @Query("SELECT s.status, COUNT(s) FROM SellerOrderIndex s WHERE s.sellerId = :sellerId GROUP BY s.status")
+    List<Object[]> countBySellerIdGroupByStatus(@Param("sellerId") Long sellerId);
+
+    /**
+     * 查询订单涉及的卖家ID
+     * @param orderId 订单ID
+     * @return 卖家ID列表
+     */
+    @Query("SELECT s.sellerId FROM SellerOrderIndex s WHERE s.orderId = :orderId")
+    List<Long> findSellerIdsByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * 同步订单状态
+     * @param orderId 订单ID
+     * @param status 订单状态
+     * @return 更新行数
+     */
+    @Modifying
+    @Query("UPDATE SellerOrderIndex s SET s.status = :status WHERE s.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId, @Param("status") Order.OrderStatus status);
+}
@@ -1,5 +1,6 @@
 package com.example.secondhand.service;
 
+import com.example.secondhand.config.LockConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,13 +9,24 @@ import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * 并发锁管理器
- * 使用Redis实现分布式锁，防止超卖等并发问题
+ * 使用Redis实现分布式锁，防止超卖等并发问题。
+ * 同一锁键支持两种互斥的形态：排他锁（字符串，锁值为随机UUID，不可重入）和
+ * 可重入写锁（哈希，记录每个持有者的持有次数），任一形态被持有时另一形态无法加锁
  */
 @Service
 public class ConcurrencyLockManager {
@@ -23,18 +35,120 @@ public class ConcurrencyLockManager {
     
     private static final String LOCK_PREFIX = "inventory_lock:";
     private static final long DEFAULT_TIMEOUT_SECONDS = 30; // 默认锁超时时间30秒
+    private static final String FALLBACK_PREFIX = "FALLBACK_";
+    private static final int LOCAL_LOCK_STRIPES = 1024; // 本地降级锁分段数
+    private static final long DEFAULT_REDIS_COOLDOWN_MS = 5000; // 默认Redis熔断冷却时间5秒
     
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private LockConfig lockConfig;
+
+    @Autowired(required = false)
+    private LockReleaseNotifier lockReleaseNotifier;
+
+    @Autowired(required = false)
+    private LockWatchdog lockWatchdog;
+
+    // Redis不可用时的本地降级锁及熔断器
+    private final StripedLockTable localLocks = new StripedLockTable(LOCAL_LOCK_STRIPES);
+    private final RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker("分布式锁");
+    private final LongAdder localLockAcquisitions = new LongAdder();
+
+    // 锁等待统计
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitTimeMs = new LongAdder();
+    private final AtomicLong maxWaitTimeMs = new AtomicLong();
+    private final LongAdder waitTimeouts = new LongAdder();
+    private final LongAdder notifyWakeUps = new LongAdder();
+    private final LongAdder pollWakeUps = new LongAdder();
+    private final LongAdder handoffCount = new LongAdder();
+    private final LongAdder handoffTimeMs = new LongAdder();
+
+    // 按锁键前缀统计的加锁耗时、持有时长、失败次数及争用最多的锁键
+    private final LockMetrics metrics = new LockMetrics();
+
+    // 写锁哈希中持有次数字段的后缀（字段名为<持有者ID>:w）
+    private static final String WRITE_HOLD_SUFFIX = ":w";
+
+    // 本节点ID，与线程ID组成写锁的持有者ID
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Redis不可用时的进程内写锁（按锁键分段，同一线程可重入）
+    private final ReentrantLock[] localWriteLocks = new ReentrantLock[LOCAL_LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCAL_LOCK_STRIPES; i++) {
+            localWriteLocks[i] = new ReentrantLock();
+        }
+    }
     
-    // Lua脚本用于原子性释放锁
+    // Lua脚本用于原子性释放锁（锁键已被写锁占用时类型为哈希，不匹配）
     private static final String UNLOCK_SCRIPT = 
-        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+        "if redis.call('type', KEYS[1]).ok == 'string' and redis.call('get', KEYS[1]) == ARGV[1] then " +
         "    return redis.call('del', KEYS[1]) " +
         "else " +
         "    return 0 " +
         "end";
 
+    // Lua脚本用于原子性批量获取锁：任一键已被占用则全部不加锁，返回被占用键的序号
+    private static final String MULTI_LOCK_SCRIPT =
+        "for i = 1, #KEYS do " +
+        "    if redis.call('exists', KEYS[i]) == 1 then " +
+        "        return i " +
+        "    end " +
+        "end " +
+        "for i = 1, #KEYS do " +
+        "    redis.call('set', KEYS[i], ARGV[1], 'PX', ARGV[2]) " +
+        "end " +
+        "return 0";
+
+    // Lua脚本用于原子性批量释放锁：只删除锁值匹配的键，返回释放的数量
+    private static final String MULTI_UNLOCK_SCRIPT =
+        "local released = 0 " +
+        "for i = 1, #KEYS do " +
+        "    if redis.call('type', KEYS[i]).ok == 'string' and redis.call('get', KEYS[i]) == ARGV[1] then " +
+        "        redis.call('del', KEYS[i]) " +
+        "        released = released + 1 " +
+        "    end " +
+        "end " +
+        "return released";
+
+    // Lua脚本用于原子性获取一组可重入写锁（全部成功或全部失败）：每个锁键都不存在或由本持有者以写锁持有时，
+    // 各键持有次数加一，必要时延长过期时间；ARGV[1]为持有次数字段（<持有者ID>:w），ARGV[2]为超时时间（毫秒）
+    // 返回加锁后各键中最大的持有次数（1表示全部为首次获取），任一键被占用时返回0
+    private static final DefaultRedisScript<Long> MULTI_WRITE_LOCK_SCRIPT = new DefaultRedisScript<>(
+        "for i = 1, #KEYS do " +
+        "    local type = redis.call('type', KEYS[i]).ok " +
+        "    if type ~= 'none' and (type ~= 'hash' or redis.call('hexists', KEYS[i], ARGV[1]) == 0) then " +
+        "        return 0 " +
+        "    end " +
+        "end " +
+        "local maxHeld = 0 " +
+        "for i = 1, #KEYS do " +
+        "    local held = redis.call('hincrby', KEYS[i], ARGV[1], 1) " +
+        "    if held > maxHeld then maxHeld = held end " +
+        "    if redis.call('pttl', KEYS[i]) < tonumber(ARGV[2]) then redis.call('pexpire', KEYS[i], ARGV[2]) end " +
+        "end " +
+        "return maxHeld", Long.class);
+
+    // Lua脚本用于原子性释放一组可重入写锁：各键持有次数减一，归零时删除锁键
+    // 返回真正释放（持有次数归零）的键数量；任一键已不由本持有者持有（已过期）时返回-1，其余键照常释放
+    private static final DefaultRedisScript<Long> MULTI_WRITE_UNLOCK_SCRIPT = new DefaultRedisScript<>(
+        "local freed = 0 " +
+        "local lost = false " +
+        "for i = 1, #KEYS do " +
+        "    if redis.call('type', KEYS[i]).ok ~= 'hash' or redis.call('hexists', KEYS[i], ARGV[1]) == 0 then " +
+        "        lost = true " +
+        "    elseif redis.call('hincrby', KEYS[i], ARGV[1], -1) <= 0 then " +
+        "        redis.call('del', KEYS[i]) " +
+        "        freed = freed + 1 " +
+        "    end " +
+        "end " +
+        "if lost then return -1 end " +
+        "return freed", Long.class);
+
     /**
      * 获取锁
      * 
@@ -53,29 +167,48 @@ public class ConcurrencyLockManager {
      * @return 锁的值（用于释放锁时验证），如果获取失败返回null
      */
     public String acquireLock(String lockKey, Duration timeout) {
+        long startNanos = System.nanoTime();
+        String lockValue = attemptLock(lockKey, timeout);
+        List<String> fullKeys = Collections.singletonList(LOCK_PREFIX + lockKey);
+        if (lockValue != null) {
+            metrics.recordAcquired(fullKeys, lockValue, lockValue.startsWith(FALLBACK_PREFIX), startNanos);
+        } else {
+            metrics.recordFailure(fullKeys);
+        }
+        return lockValue;
+    }
+
+    /**
+     * 尝试加锁一次（不记录指标，由调用方按获取方式记录）
+     */
+    private String attemptLock(String lockKey, Duration timeout) {
         String fullKey = LOCK_PREFIX + lockKey;
         String lockValue = UUID.randomUUID().toString();
         
+        if (!circuitBreaker.allowRequest()) {
+            return acquireLocalLock(Collections.singletonList(fullKey), lockValue) ? FALLBACK_PREFIX + lockValue : null;
+        }
+        
         try {
             Boolean success = redisTemplate.opsForValue()
                 .setIfAbsent(fullKey, lockValue, timeout.getSeconds(), TimeUnit.SECONDS);
+            circuitBreaker.recordSuccess();
             
             if (Boolean.TRUE.equals(success)) {
-                logger.info("获取锁成功，锁键: {}, 锁值: {}, 超时时间: {}秒", 
+                logger.debug("获取锁成功，锁键: {}, 锁值: {}, 超时时间: {}秒", 
                           fullKey, lockValue, timeout.getSeconds());
                 return lockValue;
             } else {
-                logger.warn("获取锁失败，锁键: {}", fullKey);
+                logger.debug("获取锁失败，锁键: {}", fullKey);
                 return null;
             }
         } catch (Exception e) {
-            logger.error("获取锁异常，锁键: {}", fullKey, e);
-            // Redis连接失败时，返回一个特殊的锁值，表示降级处理
-            // 在没有Redis的情况下，我们仍然允许操作继续，但会记录警告
-            logger.warn("Redis不可用，降级处理：允许操作继续但无分布式锁保护");
-            return "FALLBACK_" + lockValue;
+            // Redis连接失败时，熔断并降级为进程内分段锁，返回一个特殊的锁值表示降级处理
+            circuitBreaker.recordFailure(redisCooldownMs(), e);
+            return acquireLocalLock(Collections.singletonList(fullKey), lockValue) ? FALLBACK_PREFIX + lockValue : null;
         }
     }
+
     /**
      * 尝试获取锁（带重试）
      * 
@@ -85,27 +218,17 @@ public class ConcurrencyLockManager {
      * @return 锁的值（用于释放锁时验证），如果获取失败返回null
      */
     public String tryLockWithTimeout(String lockKey, Duration timeout, Duration retryTimeout) {
-        long startTime = System.currentTimeMillis();
-        long retryTimeoutMs = retryTimeout.toMillis();
+        long startNanos = System.nanoTime();
+        List<String> fullKeys = Collections.singletonList(LOCK_PREFIX + lockKey);
+        String lockValue = waitForLock(fullKeys, () -> attemptLock(lockKey, timeout), retryTimeout);
         
-        while (System.currentTimeMillis() - startTime < retryTimeoutMs) {
-            String lockValue = acquireLock(lockKey, timeout);
-            if (lockValue != null) {
-                return lockValue;
-            }
-            
-            // 等待一小段时间后重试
-            try {
-                Thread.sleep(50); // 50ms
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.warn("等待锁时被中断，锁键: {}", lockKey);
-                return null;
-            }
+        if (lockValue == null) {
+            metrics.recordTimeout(fullKeys);
+            logger.warn("获取锁超时，锁键: {}, 重试时间: {}ms", lockKey, retryTimeout.toMillis());
+        } else {
+            metrics.recordAcquired(fullKeys, lockValue, lockValue.startsWith(FALLBACK_PREFIX), startNanos);
         }
-        
-        logger.warn("获取锁超时，锁键: {}, 重试时间: {}ms", lockKey, retryTimeoutMs);
-        return null;
+        return lockValue;
     }
 
     /**
@@ -118,9 +241,18 @@ public class ConcurrencyLockManager {
     public boolean releaseLock(String lockKey, String lockValue) {
         String fullKey = LOCK_PREFIX + lockKey;
         
-        // 如果是降级处理的锁值，直接返回成功
-        if (lockValue != null && lockValue.startsWith("FALLBACK_")) {
-            logger.info("释放降级锁成功，锁键: {}, 锁值: {}", fullKey, lockValue);
+        List<String> fullKeys = Collections.singletonList(fullKey);
+        
+        // 如果是降级处理的锁值，释放本地分段锁
+        if (lockValue != null && lockValue.startsWith(FALLBACK_PREFIX)) {
+            releaseLocalLock(fullKeys, lockValue);
+            metrics.recordReleased(fullKeys, lockValue, true);
+            return true;
+        }
+        
+        // 熔断期间不访问Redis，锁在超时后自动过期
+        if (!circuitBreaker.allowRequest()) {
+            metrics.recordReleased(fullKeys, lockValue, true);
             return true;
         }
         
@@ -129,26 +261,503 @@ public class ConcurrencyLockManager {
             script.setScriptText(UNLOCK_SCRIPT);
             script.setResultType(Long.class);
             
-            Long result = redisTemplate.execute(script, 
-                Collections.singletonList(fullKey), lockValue);
+            Long result = redisTemplate.execute(script, fullKeys, lockValue);
             
+            circuitBreaker.recordSuccess();
             boolean success = result != null && result == 1L;
+            metrics.recordReleased(fullKeys, lockValue, success);
             
             if (success) {
-                logger.info("释放锁成功，锁键: {}, 锁值: {}", fullKey, lockValue);
+                logger.debug("释放锁成功，锁键: {}, 锁值: {}", fullKey, lockValue);
+                notifyReleased(fullKeys);
             } else {
                 logger.warn("释放锁失败，锁键: {}, 锁值: {}", fullKey, lockValue);
             }
             
             return success;
         } catch (Exception e) {
-            logger.error("释放锁异常，锁键: {}, 锁值: {}", fullKey, lockValue, e);
             // Redis连接失败时，也认为释放成功（降级处理）
-            logger.warn("Redis不可用，降级处理：假设锁释放成功");
+            circuitBreaker.recordFailure(redisCooldownMs(), e);
+            metrics.recordReleased(fullKeys, lockValue, true);
+            return true;
+        }
+    }
+
+    /**
+     * 批量获取锁（全部成功或全部失败）
+     * 所有键按字典序排序后在一次Lua脚本中原子加锁，共享同一个锁值
+     * 
+     * @param lockKeys 锁的键集合
+     * @param timeout 锁的超时时间
+     * @return 锁句柄（用于批量释放），如果任一键已被占用返回null
+     */
+    public LockHandle acquireLocks(Collection<String> lockKeys, Duration timeout) {
+        long startNanos = System.nanoTime();
+        List<String> fullKeys = toSortedFullKeys(lockKeys);
+        LockHandle handle = attemptLocks(fullKeys, timeout);
+        if (handle != null) {
+            metrics.recordAcquired(fullKeys, handle.getLockValue(), handle.isFallback(), startNanos);
+        } else {
+            metrics.recordFailure(fullKeys);
+        }
+        return handle;
+    }
+
+    /**
+     * 尝试批量加锁一次（不记录指标，由调用方按获取方式记录）
+     */
+    private LockHandle attemptLocks(List<String> fullKeys, Duration timeout) {
+        String lockValue = UUID.randomUUID().toString();
+        
+        if (!circuitBreaker.allowRequest()) {
+            return acquireLocalLock(fullKeys, lockValue) ? new LockHandle(fullKeys, FALLBACK_PREFIX + lockValue) : null;
+        }
+        
+        try {
+            DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+            script.setScriptText(MULTI_LOCK_SCRIPT);
+            script.setResultType(Long.class);
+            
+            Long result = redisTemplate.execute(script, fullKeys, 
+                lockValue, String.valueOf(timeout.toMillis()));
+            circuitBreaker.recordSuccess();
+            
+            if (result != null && result == 0L) {
+                logger.debug("批量获取锁成功，锁键: {}, 锁值: {}, 超时时间: {}秒", 
+                          fullKeys, lockValue, timeout.getSeconds());
+                return new LockHandle(fullKeys, lockValue);
+            } else {
+                logger.debug("批量获取锁失败，被占用的锁键: {}", 
+                          result != null && result > 0 ? fullKeys.get(result.intValue() - 1) : fullKeys);
+                return null;
+            }
+        } catch (Exception e) {
+            circuitBreaker.recordFailure(redisCooldownMs(), e);
+            return acquireLocalLock(fullKeys, lockValue) ? new LockHandle(fullKeys, FALLBACK_PREFIX + lockValue) : null;
+        }
+    }
+
+    /**
+     * 尝试批量获取锁（带重试）
+     * 
+     * @param lockKeys 锁的键集合
+     * @param timeout 锁的超时时间
+     * @param retryTimeout 重试超时时间
+     * @return 锁句柄，如果获取失败返回null
+     */
+    public LockHandle tryLocksWithTimeout(Collection<String> lockKeys, Duration timeout, Duration retryTimeout) {
+        long startNanos = System.nanoTime();
+        List<String> fullKeys = toSortedFullKeys(lockKeys);
+        LockHandle handle = waitForLock(fullKeys, () -> attemptLocks(fullKeys, timeout), retryTimeout);
+        
+        if (handle == null) {
+            metrics.recordTimeout(fullKeys);
+            logger.warn("批量获取锁超时，锁键: {}, 重试时间: {}ms", lockKeys, retryTimeout.toMillis());
+        } else {
+            metrics.recordAcquired(fullKeys, handle.getLockValue(), handle.isFallback(), startNanos);
+        }
+        return handle;
+    }
+
+    /**
+     * 尝试批量获取短租约锁（带重试）
+     * 锁以短租约加锁并登记到看门狗，持有期间由看门狗自动续期，持有者崩溃后锁在一个租约内过期；
+     * 看门狗不可用时退化为默认超时时间的普通锁
+     * 
+     * @param lockKeys 锁的键集合
+     * @param retryTimeout 重试超时时间
+     * @return 锁句柄，如果获取失败返回null；持有期间可通过 {@link LockHandle#isLeaseLost()} 检查租约是否丢失
+     */
+    public LockHandle tryLeasedLocks(Collection<String> lockKeys, Duration retryTimeout) {
+        if (lockWatchdog == null) {
+            return tryLocksWithTimeout(lockKeys, Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS), retryTimeout);
+        }
+        
+        LockHandle handle = tryLocksWithTimeout(lockKeys, Duration.ofMillis(lockWatchdog.getLeaseMs()), retryTimeout);
+        if (handle != null && !handle.isFallback()) {
+            lockWatchdog.register(handle);
+        }
+        return handle;
+    }
+
+    /**
+     * 尝试获取可重入写锁（排他，带重试）
+     * 同一线程可重复获取，嵌套调用不会自我死锁
+     * 
+     * @param lockKey 锁的键
+     * @param timeout 锁的超时时间（每次获取时延长）
+     * @param retryTimeout 重试超时时间
+     * @return 锁句柄，如果获取失败返回null；须在加锁线程中通过 {@link #releaseLocks(LockHandle)} 释放
+     */
+    public LockHandle tryWriteLock(String lockKey, Duration timeout, Duration retryTimeout) {
+        return tryWriteLocks(Collections.singletonList(lockKey), timeout, retryTimeout);
+    }
+
+    /**
+     * 一次获取一组短租约可重入写锁（带重试，全部成功或全部失败）
+     * 所有键在一次Lua脚本调用中按字典序加锁，释放时同样一次调用；本线程已持有的写锁直接重入。
+     * 锁以短租约加锁并登记到看门狗续期，看门狗不可用时退化为默认超时时间
+     * 
+     * @param lockKeys 锁的键集合
+     * @param retryTimeout 重试超时时间
+     * @return 锁句柄，如果获取失败返回null；须在加锁线程中通过 {@link #releaseLocks(LockHandle)} 释放
+     */
+    public LockHandle tryLeasedWriteLocks(Collection<String> lockKeys, Duration retryTimeout) {
+        Duration lease = lockWatchdog != null
+            ? Duration.ofMillis(lockWatchdog.getLeaseMs())
+            : Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS);
+        LockHandle handle = tryWriteLocks(lockKeys, lease, retryTimeout);
+        if (handle != null && lockWatchdog != null && !handle.isFallback()) {
+            lockWatchdog.register(handle);
+        }
+        return handle;
+    }
+
+    private LockHandle tryWriteLocks(Collection<String> lockKeys, Duration timeout, Duration retryTimeout) {
+        long startNanos = System.nanoTime();
+        List<String> fullKeys = toSortedFullKeys(lockKeys);
+        String owner = nodeId + ":" + Thread.currentThread().getId();
+        LockHandle handle = waitForLock(fullKeys, () -> attemptWriteLocks(fullKeys, owner, timeout), retryTimeout);
+        
+        if (handle == null) {
+            metrics.recordTimeout(fullKeys);
+            logger.warn("获取写锁超时，锁键: {}, 重试时间: {}ms", fullKeys, retryTimeout.toMillis());
+        } else if (handle.getHoldCount() == 1) {
+            // 只统计最外层的获取，重入不计入加锁次数和持有时长
+            metrics.recordAcquired(fullKeys, holdId(handle), handle.isFallback(), startNanos);
+        }
+        return handle;
+    }
+
+    /**
+     * 尝试获取一组写锁一次（不记录指标）
+     */
+    private LockHandle attemptWriteLocks(List<String> fullKeys, String owner, Duration timeout) {
+        if (!circuitBreaker.allowRequest()) {
+            return acquireLocalWriteLocks(fullKeys, owner);
+        }
+        
+        try {
+            Long held = redisTemplate.execute(MULTI_WRITE_LOCK_SCRIPT, fullKeys, owner + WRITE_HOLD_SUFFIX,
+                String.valueOf(timeout.toMillis()));
+            circuitBreaker.recordSuccess();
+            
+            if (held != null && held > 0) {
+                logger.debug("获取写锁成功，锁键: {}, 持有次数: {}", fullKeys, held);
+                return new LockHandle(fullKeys, owner, LockMode.WRITE, held.intValue());
+            }
+            return null;
+        } catch (Exception e) {
+            circuitBreaker.recordFailure(redisCooldownMs(), e);
+            return acquireLocalWriteLocks(fullKeys, owner);
+        }
+    }
+
+    /**
+     * 释放一组写锁（持有次数减一，归零时才真正释放并唤醒等待者）
+     */
+    private boolean releaseWriteLocks(LockHandle handle) {
+        // 先停止续期，避免续期与释放交错
+        if (lockWatchdog != null) {
+            lockWatchdog.unregister(handle);
+        }
+        
+        if (handle.isFallback()) {
+            releaseLocalWriteLocks(handle);
+            return true;
+        }
+        
+        // 熔断期间不访问Redis，锁在超时后自动过期
+        if (!circuitBreaker.allowRequest()) {
+            metrics.recordReleased(handle.getFullKeys(), holdId(handle), true);
+            return true;
+        }
+        
+        try {
+            Long freed = redisTemplate.execute(MULTI_WRITE_UNLOCK_SCRIPT, handle.getFullKeys(), handle.getHoldToken());
+            circuitBreaker.recordSuccess();
+            boolean success = freed != null && freed >= 0;
+            
+            if (!success) {
+                metrics.recordReleased(handle.getFullKeys(), holdId(handle), false);
+                logger.warn("释放写锁失败（锁可能已过期），锁键: {}", handle.getFullKeys());
+                notifyReleased(handle.getFullKeys());
+            } else if (freed > 0) {
+                metrics.recordReleased(handle.getFullKeys(), holdId(handle), true);
+                notifyReleased(handle.getFullKeys());
+            }
+            return success;
+        } catch (Exception e) {
+            circuitBreaker.recordFailure(redisCooldownMs(), e);
+            metrics.recordReleased(handle.getFullKeys(), holdId(handle), true);
             return true;
         }
     }
 
+    /**
+     * 获取进程内降级写锁（不等待，任一键获取失败时释放已获取的键）
+     */
+    private LockHandle acquireLocalWriteLocks(List<String> fullKeys, String owner) {
+        List<ReentrantLock> acquired = new ArrayList<>(fullKeys.size());
+        for (String fullKey : fullKeys) {
+            ReentrantLock lock = localWriteLock(fullKey);
+            if (!lock.tryLock()) {
+                for (int i = acquired.size() - 1; i >= 0; i--) {
+                    acquired.get(i).unlock();
+                }
+                return null;
+            }
+            acquired.add(lock);
+        }
+        localLockAcquisitions.increment();
+        int held = 0;
+        for (String fullKey : fullKeys) {
+            held = Math.max(held, localWriteLock(fullKey).getHoldCount());
+        }
+        return new LockHandle(fullKeys, FALLBACK_PREFIX + owner, LockMode.WRITE, held);
+    }
+
+    private void releaseLocalWriteLocks(LockHandle handle) {
+        boolean freed = false;
+        for (int i = handle.getFullKeys().size() - 1; i >= 0; i--) {
+            ReentrantLock lock = localWriteLock(handle.getFullKeys().get(i));
+            if (!lock.isHeldByCurrentThread()) {
+                logger.warn("当前线程未持有本地降级写锁，锁键: {}", handle.getFullKeys().get(i));
+                continue;
+            }
+            lock.unlock();
+            freed |= lock.getHoldCount() == 0;
+        }
+        if (freed) {
+            metrics.recordReleased(handle.getFullKeys(), holdId(handle), true);
+            if (lockReleaseNotifier != null) {
+                lockReleaseNotifier.signalLocal(handle.getFullKeys());
+            }
+        }
+    }
+
+    private ReentrantLock localWriteLock(String fullKey) {
+        return localWriteLocks[(fullKey.hashCode() & Integer.MAX_VALUE) % LOCAL_LOCK_STRIPES];
+    }
+
+    /**
+     * 写锁持有时长的统计标识（同一持有者可能同时持有多组锁键）
+     */
+    private static String holdId(LockHandle handle) {
+        return handle.getLockValue() + "|" + handle.getMode() + "|" + handle.getFullKeys().get(0);
+    }
+
+    /**
+     * 等待并重试加锁
+     * NOTIFY模式下先登记等待者再尝试加锁，加锁失败后等待释放通知，兜底轮询防止通知丢失；
+     * POLL模式下按固定间隔重试
+     * 
+     * @param fullKeys 等待的完整锁键
+     * @param attempt 一次加锁尝试，失败返回null
+     * @param retryTimeout 重试超时时间
+     * @return 加锁结果，超时或被中断返回null
+     */
+    private <T> T waitForLock(List<String> fullKeys, Supplier<T> attempt, Duration retryTimeout) {
+        T result = attempt.get();
+        if (result != null) {
+            return result;
+        }
+        metrics.recordContended(fullKeys);
+        
+        boolean notify = lockReleaseNotifier != null && (lockConfig == null || lockConfig.isNotifyMode());
+        long pollIntervalMs = notify
+            ? (lockConfig != null ? lockConfig.getNotifyFallbackPollMs() : 200L)
+            : (lockConfig != null ? lockConfig.getPollIntervalMs() : 50L);
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + retryTimeout.toMillis();
+        
+        LockReleaseNotifier.Waiter waiter = notify ? lockReleaseNotifier.register(fullKeys) : null;
+        try {
+            // 登记后再试一次，覆盖首次尝试到登记之间发生的释放
+            result = notify ? attempt.get() : null;
+            long releasedAt = -1L;
+            
+            while (result == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    waitTimeouts.increment();
+                    break;
+                }
+                
+                long waitMs = Math.min(remaining, pollIntervalMs);
+                if (waiter != null) {
+                    releasedAt = waiter.await(waitMs);
+                } else {
+                    Thread.sleep(waitMs);
+                    releasedAt = -1L;
+                }
+                
+                if (releasedAt > 0) {
+                    notifyWakeUps.increment();
+                } else {
+                    pollWakeUps.increment();
+                }
+                
+                result = attempt.get();
+            }
+            
+            if (result != null && releasedAt > 0) {
+                // 交接延迟：锁释放到等待者拿到锁的时间（跨节点时包含时钟偏差）
+                handoffCount.increment();
+                handoffTimeMs.add(Math.max(0L, System.currentTimeMillis() - releasedAt));
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("等待锁时被中断，锁键: {}", fullKeys);
+            return null;
+        } finally {
+            if (waiter != null) {
+                waiter.close();
+            }
+            long waited = System.currentTimeMillis() - startTime;
+            waitCount.increment();
+            waitTimeMs.add(waited);
+            maxWaitTimeMs.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    /**
+     * 批量释放锁
+     * 
+     * @param handle 锁句柄
+     * @return 是否全部释放成功
+     */
+    public boolean releaseLocks(LockHandle handle) {
+        if (handle == null) {
+            return true;
+        }
+        
+        if (handle.getMode() != LockMode.EXCLUSIVE) {
+            return releaseWriteLocks(handle);
+        }
+        
+        // 先停止续期，避免续期与释放交错
+        if (lockWatchdog != null) {
+            lockWatchdog.unregister(handle);
+        }
+        
+        // 如果是降级处理的锁值，释放本地分段锁
+        if (handle.isFallback()) {
+            releaseLocalLock(handle.getFullKeys(), handle.getLockValue());
+            metrics.recordReleased(handle.getFullKeys(), handle.getLockValue(), true);
+            return true;
+        }
+        
+        // 熔断期间不访问Redis，锁在租约到期后自动过期
+        if (!circuitBreaker.allowRequest()) {
+            metrics.recordReleased(handle.getFullKeys(), handle.getLockValue(), true);
+            return true;
+        }
+        
+        try {
+            DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+            script.setScriptText(MULTI_UNLOCK_SCRIPT);
+            script.setResultType(Long.class);
+            
+            Long released = redisTemplate.execute(script, handle.getFullKeys(), handle.getLockValue());
+            circuitBreaker.recordSuccess();
+            boolean success = released != null && released == handle.getFullKeys().size();
+            metrics.recordReleased(handle.getFullKeys(), handle.getLockValue(), success);
+            if (released != null && released > 0) {
+                notifyReleased(handle.getFullKeys());
+            }
+            
+            if (success) {
+                logger.debug("批量释放锁成功，锁键: {}", handle.getFullKeys());
+            } else {
+                logger.warn("批量释放锁部分失败（锁可能已过期），锁键: {}, 释放数量: {}", 
+                          handle.getFullKeys(), released);
+            }
+            
+            return success;
+        } catch (Exception e) {
+            circuitBreaker.recordFailure(redisCooldownMs(), e);
+            metrics.recordReleased(handle.getFullKeys(), handle.getLockValue(), true);
+            return true;
+        }
+    }
+
+    private void notifyReleased(List<String> fullKeys) {
+        if (lockReleaseNotifier != null && (lockConfig == null || lockConfig.isNotifyMode())) {
+            lockReleaseNotifier.publishRelease(fullKeys);
+        }
+    }
+
+    /**
+     * 获取进程内降级锁（不等待，失败时由调用方按等待策略重试）
+     */
+    private boolean acquireLocalLock(List<String> fullKeys, String lockValue) {
+        if (localLocks.tryLock(FALLBACK_PREFIX + lockValue, fullKeys)) {
+            localLockAcquisitions.increment();
+            logger.debug("获取本地降级锁成功，锁键: {}", fullKeys);
+            return true;
+        }
+        logger.debug("获取本地降级锁失败，锁键: {}", fullKeys);
+        return false;
+    }
+
+    /**
+     * 释放进程内降级锁，并直接唤醒本节点的等待者（不经过Redis）
+     */
+    private void releaseLocalLock(List<String> fullKeys, String lockValue) {
+        if (localLocks.unlock(lockValue)) {
+            logger.debug("释放本地降级锁成功，锁键: {}", fullKeys);
+            if (lockReleaseNotifier != null) {
+                lockReleaseNotifier.signalLocal(fullKeys);
+            }
+        }
+    }
+
+    private long redisCooldownMs() {
+        return lockConfig != null ? lockConfig.getRedisCooldownMs() : DEFAULT_REDIS_COOLDOWN_MS;
+    }
+
+    /**
+     * 获取Redis降级统计信息
+     * 
+     * @return 统计信息
+     */
+    public FallbackStatistics getFallbackStatistics() {
+        return new FallbackStatistics(circuitBreaker.isOpen(), circuitBreaker.getModeSwitches(),
+            circuitBreaker.getRejectedCalls(), localLockAcquisitions.sum(), localLocks.getHeldCount());
+    }
+
+    /**
+     * 获取锁等待统计信息
+     * 
+     * @return 统计信息
+     */
+    public LockWaitStatistics getWaitStatistics() {
+        String mode = lockReleaseNotifier != null && (lockConfig == null || lockConfig.isNotifyMode())
+            ? LockConfig.WaitMode.NOTIFY.name() : LockConfig.WaitMode.POLL.name();
+        return new LockWaitStatistics(mode, waitCount.sum(), waitTimeMs.sum(), maxWaitTimeMs.get(),
+            waitTimeouts.sum(), notifyWakeUps.sum(), pollWakeUps.sum(), handoffCount.sum(), handoffTimeMs.sum());
+    }
+
+    /**
+     * 获取锁指标（按锁键前缀统计的加锁耗时、持有时长、失败/超时/降级次数及争用最多的锁键）
+     * 
+     * @param topK 返回争用最多的锁键数量
+     * @return 指标快照
+     */
+    public LockMetrics.Snapshot getLockMetrics(int topK) {
+        return metrics.snapshot(topK);
+    }
+
+    private List<String> toSortedFullKeys(Collection<String> lockKeys) {
+        List<String> fullKeys = new ArrayList<>();
+        for (String lockKey : new TreeSet<>(lockKeys)) {
+            fullKeys.add(LOCK_PREFIX + lockKey);
+        }
+        return fullKeys;
+    }
+
     /**
      * 强制释放锁（危险操作，仅在特殊情况下使用）
      * 
@@ -212,4 +821,142 @@ public class ConcurrencyLockManager {
     public static String getOrderLockKey(String orderNo) {
         return "order:" + orderNo;
     }
-}
\ No newline at end of file
+
+    /**
+     * 锁模式
+     */
+    public enum LockMode {
+        EXCLUSIVE,  // 排他锁（不可重入）
+        WRITE       // 可重入写锁（排他）
+    }
+
+    /**
+     * 批量锁句柄
+     * 持有一组已排序的锁键及其共享的锁值，用于一次性释放；
+     * 写锁句柄的锁值为持有者ID，并记录本次获取后的持有次数
+     */
+    public static class LockHandle {
+        private final List<String> fullKeys;
+        private final String lockValue;
+        private final LockMode mode;
+        private final int holdCount;
+        private volatile boolean leaseLost;
+
+        public LockHandle(List<String> fullKeys, String lockValue) {
+            this(fullKeys, lockValue, LockMode.EXCLUSIVE, 1);
+        }
+
+        public LockHandle(List<String> fullKeys, String lockValue, LockMode mode, int holdCount) {
+            this.fullKeys = Collections.unmodifiableList(fullKeys);
+            this.lockValue = lockValue;
+            this.mode = mode;
+            this.holdCount = holdCount;
+        }
+
+        public List<String> getFullKeys() { return fullKeys; }
+        public String getLockValue() { return lockValue; }
+        public LockMode getMode() { return mode; }
+        public int getHoldCount() { return holdCount; }
+
+        /**
+         * 锁键中标识本持有者的值：排他锁为锁值，写锁为哈希中本持有者的持有次数字段
+         */
+        public String getHoldToken() {
+            if (mode == LockMode.EXCLUSIVE) {
+                return lockValue;
+            }
+            return lockValue + WRITE_HOLD_SUFFIX;
+        }
+
+        public boolean isFallback() {
+            return lockValue != null && lockValue.startsWith(FALLBACK_PREFIX);
+        }
+
+        /**
+         * 租约是否已丢失（续期时发现锁已过期或被他人持有）
+         */
+        public boolean isLeaseLost() {
+            return leaseLost;
+        }
+
+        void markLeaseLost() {
+            this.leaseLost = true;
+        }
+    }
+
+    /**
+     * 锁等待统计信息类
+     * 只统计首次加锁失败后进入等待的请求
+     */
+    public static class LockWaitStatistics {
+        private final String waitMode;
+        private final long waitCount;
+        private final long totalWaitTimeMs;
+        private final long maxWaitTimeMs;
+        private final long waitTimeouts;
+        private final long notifyWakeUps;
+        private final long pollWakeUps;
+        private final long handoffCount;
+        private final long totalHandoffTimeMs;
+
+        public LockWaitStatistics(String waitMode, long waitCount, long totalWaitTimeMs, long maxWaitTimeMs,
+                                  long waitTimeouts, long notifyWakeUps, long pollWakeUps,
+                                  long handoffCount, long totalHandoffTimeMs) {
+            this.waitMode = waitMode;
+            this.waitCount = waitCount;
+            this.totalWaitTimeMs = totalWaitTimeMs;
+            this.maxWaitTimeMs = maxWaitTimeMs;
+            this.waitTimeouts = waitTimeouts;
+            this.notifyWakeUps = notifyWakeUps;
+            this.pollWakeUps = pollWakeUps;
+            this.handoffCount = handoffCount;
+            this.totalHandoffTimeMs = totalHandoffTimeMs;
+        }
+
+        // Getter 方法
+        public String getWaitMode() { return waitMode; }
+        public long getWaitCount() { return waitCount; }
+        public long getTotalWaitTimeMs() { return totalWaitTimeMs; }
+        public long getMaxWaitTimeMs() { return maxWaitTimeMs; }
+        public long getWaitTimeouts() { return waitTimeouts; }
+        public long getNotifyWakeUps() { return notifyWakeUps; }
+        public long getPollWakeUps() { return pollWakeUps; }
+        public long getHandoffCount() { return handoffCount; }
+        public long getTotalHandoffTimeMs() { return totalHandoffTimeMs; }
+
+        public double getAverageWaitTimeMs() {
+            return waitCount > 0 ? (double) totalWaitTimeMs / waitCount : 0.0;
+        }
+
+        public double getAverageHandoffTimeMs() {
+            return handoffCount > 0 ? (double) totalHandoffTimeMs / handoffCount : 0.0;
+        }
+    }
+
+    /**
+     * Redis降级统计信息类
+     */
+    public static class FallbackStatistics {
+        private final boolean degraded;
+        private final long modeSwitches;
+        private final long skippedRedisCalls;
+        private final long localLockAcquisitions;
+        private final int localLocksHeld;
+
+        public FallbackStatistics(boolean degraded, long modeSwitches, long skippedRedisCalls,
+                                  long localLockAcquisitions, int localLocksHeld) {
+            this.degraded = degraded;
+            this.modeSwitches = modeSwitches;
+            this.skippedRedisCalls = skippedRedisCalls;
+            this.localLockAcquisitions = localLockAcquisitions;
+            this.localLocksHeld = localLocksHeld;
+        }
+
+        // Getter 方法
+        public boolean isDegraded() { return degraded; }
+        public long getModeSwitches() { return modeSwitches; }
+        public long getSkippedRedisCalls() { return skippedRedisCalls; }
+        public long getLocalLockAcquisitions() { return localLockAcquisitions; }
+        public int getLocalLocksHeld() { return localLocksHeld; }
+    }
+}
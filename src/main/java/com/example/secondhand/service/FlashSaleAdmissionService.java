@@ -0,0 +1,307 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.FlashSaleConfig;
+import com.example.secondhand.entity.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 秒杀下单准入服务
+ * 在创建订单之前按商品做准入控制：
+ * 1. 令牌预算等于剩余库存，库存售罄后的请求立即拒绝，不再争抢锁和数据库
+ * 2. 每个商品的排队人数有上限，超出时立即拒绝
+ * 3. 准入的请求按到达顺序（公平信号量）逐个进入下单流程
+ * 闸口在首次使用时按实际库存校准令牌，闲置超时后由定时任务回收；
+ * 校准失败时按校准间隔限频重试，期间该商品不做令牌控制（仍受排队人数和并发限制），由下单流程校验库存
+ */
+@Service
+public class FlashSaleAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleAdmissionService.class);
+
+    @Autowired
+    private FlashSaleConfig flashSaleConfig;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    // 商品ID -> 准入闸口
+    private final ConcurrentHashMap<Long, ProductGate> gates = new ConcurrentHashMap<>();
+
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong soldOutRejections = new AtomicLong();
+    private final AtomicLong queueFullRejections = new AtomicLong();
+    private final AtomicLong timeoutRejections = new AtomicLong();
+    private final AtomicLong unsyncedAdmissions = new AtomicLong();
+
+    /**
+     * 经过准入控制后创建订单
+     * 不参与准入控制的商品直接放行
+     *
+     * @param userId 用户ID
+     * @param cartItems 购物车商品信息（包含商品ID和数量）
+     * @param address 收货地址
+     * @param phone 联系电话
+     * @param remark 备注信息
+     * @return 创建的订单
+     */
+    public Order createOrder(Long userId, List<Map<String, Object>> cartItems, String address, String phone, String remark) {
+        Map<Long, Integer> quantities = toGatedQuantities(cartItems);
+        if (quantities.isEmpty()) {
+            return orderService.createOrderFromFrontendCart(userId, cartItems, address, phone, remark);
+        }
+
+        // 1. 扣减令牌：库存已售罄时立即拒绝；令牌尚未校准的商品不扣减令牌直接放行
+        List<ProductGate> acquired = new ArrayList<>();
+        List<ProductGate> tokenHeld = new ArrayList<>();
+        List<ProductGate> queued = new ArrayList<>();
+        List<ProductGate> entered = new ArrayList<>();
+        boolean success = false;
+        try {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                ProductGate gate = acquireGate(entry.getKey());
+                acquired.add(gate);
+                if (!gate.ensureSynced()) {
+                    unsyncedAdmissions.incrementAndGet();
+                    continue;
+                }
+                if (!gate.tryTakeTokens(entry.getValue())) {
+                    soldOutRejections.incrementAndGet();
+                    throw new RuntimeException("商品已售罄");
+                }
+                tokenHeld.add(gate);
+            }
+
+            // 2. 进入排队：排队人数超出上限时立即拒绝
+            for (ProductGate gate : acquired) {
+                if (gate.waiting.incrementAndGet() > flashSaleConfig.getMaxQueuePerProduct()) {
+                    gate.waiting.decrementAndGet();
+                    queueFullRejections.incrementAndGet();
+                    throw new RuntimeException("排队人数过多，请稍后再试");
+                }
+                queued.add(gate);
+            }
+
+            // 3. 按商品ID顺序获取各商品的公平信号量，按到达顺序进入下单流程
+            long deadline = System.currentTimeMillis() + flashSaleConfig.getMaxWaitMs();
+            for (ProductGate gate : queued) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !gate.permits.tryAcquire(remaining, TimeUnit.MILLISECONDS)) {
+                    timeoutRejections.incrementAndGet();
+                    throw new RuntimeException("排队超时，请稍后再试");
+                }
+                entered.add(gate);
+            }
+
+            admittedCount.incrementAndGet();
+            Order order = orderService.createOrderFromFrontendCart(userId, cartItems, address, phone, remark);
+            success = true;
+            return order;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("排队被中断，请稍后再试");
+        } finally {
+            for (ProductGate gate : entered) {
+                gate.permits.release();
+            }
+            for (ProductGate gate : queued) {
+                gate.waiting.decrementAndGet();
+            }
+            for (ProductGate gate : tokenHeld) {
+                gate.finish(quantities.get(gate.productId), success);
+            }
+            for (ProductGate gate : acquired) {
+                gate.release();
+            }
+        }
+    }
+
+    /**
+     * 提取参与准入控制的商品及数量（按商品ID升序）
+     */
+    private Map<Long, Integer> toGatedQuantities(List<Map<String, Object>> cartItems) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        if (!flashSaleConfig.isEnabled() || cartItems == null) {
+            return quantities;
+        }
+        for (Map<String, Object> item : cartItems) {
+            Long productId = Long.valueOf(item.get("productId").toString());
+            if (flashSaleConfig.appliesTo(productId)) {
+                quantities.merge(productId, Integer.valueOf(item.get("quantity").toString()), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * 获取商品闸口并登记使用（使用完毕后需要release）
+     * 创建闸口时不访问数据库，令牌在首次扣减时校准
+     */
+    private ProductGate acquireGate(Long productId) {
+        while (true) {
+            ProductGate gate = gates.computeIfAbsent(productId,
+                    id -> new ProductGate(id, flashSaleConfig.getConcurrencyPerProduct()));
+            if (gate.tryAcquire()) {
+                return gate;
+            }
+            // 闸口刚被回收，重新获取
+        }
+    }
+
+    /**
+     * 定时回收闲置的商品闸口，未配置商品ID（所有商品参与准入）时闸口数量不会无限增长
+     */
+    @Scheduled(fixedDelayString = "#{@flashSaleConfig.gateIdleTimeoutMs}")
+    public void evictIdleGates() {
+        long idleBefore = System.currentTimeMillis() - flashSaleConfig.getGateIdleTimeoutMs();
+        int evicted = 0;
+        for (Long productId : gates.keySet()) {
+            if (gates.computeIfPresent(productId, (id, gate) -> gate.tryRetire(idleBefore) ? null : gate) == null) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("回收闲置的商品准入闸口: {}, 剩余: {}", evicted, gates.size());
+        }
+    }
+
+    /**
+     * 获取准入统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", flashSaleConfig.isEnabled());
+        stats.put("admitted", admittedCount.get());
+        stats.put("soldOutRejections", soldOutRejections.get());
+        stats.put("queueFullRejections", queueFullRejections.get());
+        stats.put("timeoutRejections", timeoutRejections.get());
+        stats.put("unsyncedAdmissions", unsyncedAdmissions.get());
+        Map<Long, Integer> waiting = new TreeMap<>();
+        gates.forEach((productId, gate) -> waiting.put(productId, gate.waiting.get()));
+        stats.put("waiting", waiting);
+        return stats;
+    }
+
+    /**
+     * 商品准入闸口
+     */
+    private class ProductGate {
+        private final Long productId;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        // 令牌 = 剩余库存 - 已准入但尚未完成的数量
+        private final AtomicInteger tokens = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long lastSyncTime;
+        private volatile boolean synced;
+
+        // 正在使用闸口的请求数，-1表示闸口已回收
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile long lastUsedTime = System.currentTimeMillis();
+
+        private ProductGate(Long productId, int concurrency) {
+            this.productId = productId;
+            this.permits = new Semaphore(Math.max(1, concurrency), true);
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int current = users.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (users.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            lastUsedTime = System.currentTimeMillis();
+            users.decrementAndGet();
+        }
+
+        private boolean tryRetire(long idleBefore) {
+            return lastUsedTime < idleBefore && users.compareAndSet(0, -1);
+        }
+
+        private boolean tryTakeTokens(int quantity) {
+            while (true) {
+                int current = tokens.get();
+                if (current < quantity) {
+                    // 令牌不足时按实际库存校准（取消订单退回的库存），限制校准频率
+                    if (System.currentTimeMillis() - lastSyncTime < flashSaleConfig.getTokenResyncIntervalMs()) {
+                        return false;
+                    }
+                    resync();
+                    if (tokens.get() < quantity) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (tokens.compareAndSet(current, current - quantity)) {
+                    pending.addAndGet(quantity);
+                    return true;
+                }
+            }
+        }
+
+        private void finish(int quantity, boolean success) {
+            pending.addAndGet(-quantity);
+            if (!success) {
+                // 下单失败，退回令牌
+                tokens.addAndGet(quantity);
+            }
+        }
+
+        /**
+         * 确保令牌已按实际库存校准
+         * 并发的首批请求只校准一次；校准失败后按校准间隔限频重试，避免每个请求都查询库存
+         *
+         * @return 令牌是否已校准
+         */
+        private boolean ensureSynced() {
+            if (synced) {
+                return true;
+            }
+            synchronized (this) {
+                if (!synced && System.currentTimeMillis() - lastSyncTime >= flashSaleConfig.getTokenResyncIntervalMs()) {
+                    resync();
+                }
+                return synced;
+            }
+        }
+
+        private synchronized void resync() {
+            lastSyncTime = System.currentTimeMillis();
+            try {
+                int stock = inventoryService.getCurrentInventory(productId);
+                tokens.set(Math.max(0, stock - pending.get()));
+                synced = true;
+            } catch (Exception e) {
+                logger.error("校准商品准入令牌失败，商品ID: {}", productId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.entity.ProductStockShard;
+import com.example.secondhand.repository.ProductRepository;
+import com.example.secondhand.repository.ProductStockShardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 热门商品分片库存服务
+ * 热门商品的库存拆分到N个分片行，预扣时从随机分片开始按分片序号升序做条件扣减，
+ * 都不足单独扣减时再按升序锁定起始分片及之后的分片跨分片扣减；同一商品的并发预扣分散到不同行锁上。
+ * 条件扣减失败的分片在事务结束前仍持有行锁，所以同一事务内只按分片序号升序加锁（不回绕），避免互相等待。
+ * 商品表中的库存只作为展示用的汇总值，由定时任务同步
+ */
+@Service
+public class HotStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockService.class);
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    // 已完成分片的热门商品
+    private final Set<Long> activeProducts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 把商品库存拆分到分片（已拆分的商品不重复拆分）
+     *
+     * @param productId 商品ID
+     * @return 商品是否已完成分片
+     */
+    @Transactional
+    public boolean shardProduct(Long productId) {
+        if (shardRepository.countByProductId(productId) > 0) {
+            return true;
+        }
+
+        Integer total = productRepository.lockQuantitiesForUpdate(List.of(productId)).get(productId);
+        if (total == null) {
+            logger.error("热门商品不存在，无法拆分库存，商品ID: {}", productId);
+            return false;
+        }
+
+        int shardCount = inventoryConfig.getHotShardCount();
+        List<ProductStockShard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ProductStockShard(productId, i, shareOf(total, shardCount, i)));
+        }
+        shardRepository.saveAll(shards);
+
+        logger.info("热门商品库存已拆分，商品ID: {}, 库存: {}, 分片数: {}", productId, total, shardCount);
+        return true;
+    }
+
+    /**
+     * 启用商品的分片预扣（分片事务提交后调用）
+     *
+     * @param productId 商品ID
+     */
+    public void activate(Long productId) {
+        activeProducts.add(productId);
+    }
+
+    /**
+     * 商品是否走分片预扣
+     * Redis库存计数器模式下不使用分片
+     */
+    public boolean isHot(Long productId) {
+        return !activeProducts.isEmpty() && !inventoryConfig.isRedisMode() && activeProducts.contains(productId);
+    }
+
+    /**
+     * 从预扣明细中取出热门商品
+     *
+     * @param quantities 商品ID -> 数量，热门商品会被移除
+     * @return 热门商品ID -> 数量
+     */
+    public Map<Long, Integer> extractHot(Map<Long, Integer> quantities) {
+        Map<Long, Integer> hot = new TreeMap<>();
+        if (activeProducts.isEmpty() || inventoryConfig.isRedisMode()) {
+            return hot;
+        }
+
+        Iterator<Map.Entry<Long, Integer>> iterator = quantities.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Integer> entry = iterator.next();
+            if (activeProducts.contains(entry.getKey())) {
+                hot.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        return hot;
+    }
+
+    /**
+     * 预扣热门商品库存（需在事务中调用）
+     * 任一商品不足时补偿已扣减的商品（加回本事务已锁定的分片），整体不扣减
+     *
+     * @param quantities 热门商品ID -> 数量
+     * @return 是否预扣成功
+     */
+    @Transactional
+    public boolean reserve(Map<Long, Integer> quantities) {
+        // 商品ID -> 已扣减的分片序号
+        Map<Long, Integer> reservedShards = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            int shardNo = reserveOne(entry.getKey(), entry.getValue());
+            if (shardNo < 0) {
+                logger.error("热门商品库存不足，商品ID: {}, 需要数量: {}", entry.getKey(), entry.getValue());
+                for (Map.Entry<Long, Integer> reserved : reservedShards.entrySet()) {
+                    shardRepository.increment(reserved.getKey(), reserved.getValue(), quantities.get(reserved.getKey()));
+                }
+                return false;
+            }
+            reservedShards.put(entry.getKey(), shardNo);
+        }
+        return true;
+    }
+
+    /**
+     * 预扣单个热门商品
+     *
+     * @return 扣减涉及的分片序号（补偿时加回该分片，本事务已持有其行锁），库存不足返回-1
+     */
+    private int reserveOne(Long productId, int quantity) {
+        // 不加锁读取各分片库存：只从之后分片合计足够的位置中随机挑选起点，合计不足直接返回
+        List<Object[]> snapshot = shardRepository.findShardQuantities(productId);
+        int remaining = 0;
+        for (Object[] row : snapshot) {
+            remaining += ((Number) row[1]).intValue();
+        }
+        int candidates = 0;
+        for (Object[] row : snapshot) {
+            if (remaining < quantity) {
+                break;
+            }
+            candidates++;
+            remaining -= ((Number) row[1]).intValue();
+        }
+        if (candidates == 0) {
+            return -1;
+        }
+        int startShardNo = ((Number) snapshot.get(ThreadLocalRandom.current().nextInt(candidates))[0]).intValue();
+
+        // 从起点按序号升序依次尝试，单个分片足够时只锁一行
+        for (Object[] row : snapshot) {
+            int shardNo = ((Number) row[0]).intValue();
+            if (shardNo >= startShardNo && shardRepository.decrementIfSufficient(productId, shardNo, quantity) > 0) {
+                return shardNo;
+            }
+        }
+
+        // 没有单个分片足够：按序号升序锁定起点及之后的分片，合计足够时跨分片扣减
+        List<ProductStockShard> shards = shardRepository.findByProductIdFromShardForUpdate(productId, startShardNo);
+        int total = shards.stream().mapToInt(ProductStockShard::getQuantity).sum();
+        if (total < quantity) {
+            return -1;
+        }
+
+        int left = quantity;
+        for (ProductStockShard shard : shards) {
+            int take = Math.min(left, shard.getQuantity());
+            shard.setQuantity(shard.getQuantity() - take);
+            left -= take;
+            if (left == 0) {
+                break;
+            }
+        }
+        shardRepository.saveAll(shards);
+        return startShardNo;
+    }
+
+    /**
+     * 是否有商品走分片库存（预扣回收等需要按商品汇总加回的场景判断用）
+     */
+    public boolean hasActiveShards() {
+        return !activeProducts.isEmpty() && !inventoryConfig.isRedisMode();
+    }
+
+    /**
+     * 查询分片表中已拆分库存的商品（包括已从配置中移除、但分片仍持有库存的商品）
+     *
+     * @return 商品ID列表
+     */
+    public List<Long> findShardedProductIds() {
+        return shardRepository.findShardedProductIds();
+    }
+
+    /**
+     * 恢复热门商品库存（加回随机分片）
+     *
+     * @param quantities 热门商品ID -> 数量
+     */
+    @Transactional
+    public void restore(Map<Long, Integer> quantities) {
+        int shardCount = inventoryConfig.getHotShardCount();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            int shardNo = ThreadLocalRandom.current().nextInt(shardCount);
+            if (shardRepository.increment(entry.getKey(), shardNo, entry.getValue()) == 0) {
+                logger.error("热门商品分片不存在，无法恢复库存，商品ID: {}, 分片: {}", entry.getKey(), shardNo);
+            }
+        }
+    }
+
+    /**
+     * 重新设置热门商品的总库存（后台编辑商品库存时调用），平均分配到各分片
+     *
+     * @param productId 商品ID
+     * @param total 新的总库存
+     */
+    @Transactional
+    public void resetStock(Long productId, int total) {
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        for (ProductStockShard shard : shards) {
+            shard.setQuantity(shareOf(total, shards.size(), shard.getShardNo()));
+        }
+        shardRepository.saveAll(shards);
+        logger.info("热门商品库存已重新分配，商品ID: {}, 库存: {}", productId, total);
+    }
+
+    /**
+     * 获取热门商品的总库存（各分片合计）
+     *
+     * @param productId 商品ID
+     * @return 库存合计
+     */
+    public Integer getStock(Long productId) {
+        return (int) shardRepository.sumQuantity(productId);
+    }
+
+    /**
+     * 定时把分片合计同步到商品表，供商品列表等只读场景展示
+     */
+    @Scheduled(fixedDelayString = "#{@inventoryConfig.hotSyncIntervalMs}")
+    @Transactional
+    public void syncProductQuantities() {
+        if (activeProducts.isEmpty() || inventoryConfig.isRedisMode()) {
+            return;
+        }
+        try {
+            shardRepository.syncProductQuantities(new ArrayList<>(activeProducts));
+        } catch (Exception e) {
+            logger.error("同步热门商品库存失败", e);
+        }
+    }
+
+    private int shareOf(int total, int shardCount, int shardNo) {
+        // 余数分给前面的分片
+        return total / shardCount + (shardNo < total % shardCount ? 1 : 0);
+    }
+}
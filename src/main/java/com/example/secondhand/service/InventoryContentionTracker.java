@@ -0,0 +1,87 @@
+package com.example.secondhand.service;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品库存争用跟踪器
+ * 按商品记录最近预扣是否发生争用（指数滑动平均），自适应模式据此为热门商品选择悲观锁、
+ * 为冷门商品选择条件扣减
+ */
+public class InventoryContentionTracker {
+
+    // 滑动平均权重：越大对最近一次观测越敏感
+    private static final double ALPHA = 0.2;
+
+    // 跟踪商品数量上限，超出时清理冷门商品
+    private static final int MAX_TRACKED = 10000;
+
+    // 商品ID -> 争用分数（0~1）
+    private final ConcurrentHashMap<Long, Double> scores = new ConcurrentHashMap<>();
+
+    private final AtomicLong optimisticReservations = new AtomicLong();
+    private final AtomicLong pessimisticReservations = new AtomicLong();
+    private final AtomicLong guardFailures = new AtomicLong();
+
+    /**
+     * 记录一次预扣的争用情况
+     *
+     * @param productIds 商品ID
+     * @param contended 是否发生争用（等待锁或行锁时间超过阈值）
+     */
+    public void record(Collection<Long> productIds, boolean contended) {
+        double sample = contended ? 1.0 : 0.0;
+        for (Long productId : productIds) {
+            scores.merge(productId, sample * ALPHA, (old, ignored) -> old * (1 - ALPHA) + sample * ALPHA);
+        }
+
+        if (scores.size() > MAX_TRACKED) {
+            scores.values().removeIf(score -> score < 0.01);
+        }
+    }
+
+    /**
+     * 订单中是否存在热门商品
+     *
+     * @param productIds 商品ID
+     * @param threshold 争用分数阈值
+     * @return 任一商品争用分数达到阈值时返回true
+     */
+    public boolean isContended(Collection<Long> productIds, double threshold) {
+        for (Long productId : productIds) {
+            Double score = scores.get(productId);
+            if (score != null && score >= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void recordOptimistic(boolean guardFailed) {
+        optimisticReservations.incrementAndGet();
+        if (guardFailed) {
+            guardFailures.incrementAndGet();
+        }
+    }
+
+    public void recordPessimistic() {
+        pessimisticReservations.incrementAndGet();
+    }
+
+    public long getOptimisticReservations() {
+        return optimisticReservations.get();
+    }
+
+    public long getPessimisticReservations() {
+        return pessimisticReservations.get();
+    }
+
+    public long getGuardFailures() {
+        return guardFailures.get();
+    }
+
+    public int getTrackedProducts() {
+        return scores.size();
+    }
+}
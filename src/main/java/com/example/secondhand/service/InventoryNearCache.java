@@ -0,0 +1,198 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品库存近端缓存
+ * 在进程内缓存商品库存（按最近访问顺序淘汰的容量上限和短TTL），供只读的库存展示和检查使用；
+ * 本节点的预扣/恢复在事务提交后直接更新缓存，并通过Redis发布/订阅让其他节点的缓存失效。
+ * 预扣、悲观锁检查等严格校验不读取该缓存
+ */
+@Component
+public class InventoryNearCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryNearCache.class);
+
+    /**
+     * 缓存失效通知频道，消息内容为 "节点ID|商品ID,商品ID"
+     */
+    public static final String CHANNEL = "inventory_near_cache_invalidate";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    // 本节点ID，忽略自己发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 按访问顺序排列，超出容量时淘汰最久未访问的条目
+    private final Map<Long, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > inventoryConfig.getNearCacheMaxSize();
+        }
+    });
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+
+    /**
+     * 读取缓存的库存
+     *
+     * @param productId 商品ID
+     * @return 库存数量，未缓存或已过期返回null
+     */
+    public Integer get(Long productId) {
+        if (!inventoryConfig.isNearCacheEnabled()) {
+            return null;
+        }
+        Entry entry = entries.get(productId);
+        if (entry == null || entry.expireAt < System.nanoTime()) {
+            if (entry != null) {
+                entries.remove(productId, entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.quantity;
+    }
+
+    /**
+     * 缓存从权威存储读取的库存
+     *
+     * @param productId 商品ID
+     * @param quantity 库存数量
+     */
+    public void put(Long productId, Integer quantity) {
+        if (!inventoryConfig.isNearCacheEnabled() || quantity == null) {
+            return;
+        }
+        entries.put(productId, new Entry(quantity, expireAt()));
+    }
+
+    /**
+     * 预扣/恢复成功后更新缓存
+     * 在事务中调用时推迟到提交后执行，回滚的扣减不会进入缓存；本节点按增量更新，其他节点失效
+     *
+     * @param quantities 商品ID -> 数量
+     * @param sign 扣减为-1，恢复为1
+     */
+    public void applyDeltas(Map<Long, Integer> quantities, int sign) {
+        if (!inventoryConfig.isNearCacheEnabled() || quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> deltas = new HashMap<>(quantities);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doApplyDeltas(deltas, sign);
+                }
+            });
+        } else {
+            doApplyDeltas(deltas, sign);
+        }
+    }
+
+    /**
+     * 商品库存被直接修改时让所有节点的缓存失效
+     *
+     * @param productId 商品ID
+     */
+    public void invalidate(Long productId) {
+        entries.remove(productId);
+        publishInvalidation(Collections.singleton(productId));
+    }
+
+    private void doApplyDeltas(Map<Long, Integer> deltas, int sign) {
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            // 只更新已缓存的商品，缓存中的数量可能已过期，更新时不延长TTL
+            entries.computeIfPresent(delta.getKey(),
+                (productId, entry) -> new Entry(entry.quantity + sign * delta.getValue(), entry.expireAt));
+        }
+        publishInvalidation(deltas.keySet());
+    }
+
+    private void publishInvalidation(Collection<Long> productIds) {
+        StringJoiner joiner = new StringJoiner(",", nodeId + "|", "");
+        for (Long productId : productIds) {
+            joiner.add(String.valueOf(productId));
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, joiner.toString());
+        } catch (Exception e) {
+            // 通知失败时其他节点的缓存最多在TTL后过期
+            logger.warn("发布库存缓存失效通知失败，商品ID: {}", productIds, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        for (String productId : body.substring(separator + 1).split(",")) {
+            if (!productId.isEmpty()) {
+                entries.remove(Long.valueOf(productId));
+                remoteInvalidations.increment();
+            }
+        }
+    }
+
+    private long expireAt() {
+        return System.nanoTime() + inventoryConfig.getNearCacheTtlMs() * 1_000_000L;
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", inventoryConfig.isNearCacheEnabled());
+        stats.put("size", entries.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("remoteInvalidations", remoteInvalidations.sum());
+        return stats;
+    }
+
+    private static class Entry {
+        private final int quantity;
+        private final long expireAt;
+
+        private Entry(int quantity, long expireAt) {
+            this.quantity = quantity;
+            this.expireAt = expireAt;
+        }
+    }
+}
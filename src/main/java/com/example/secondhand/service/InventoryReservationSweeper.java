@@ -0,0 +1,51 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 过期预扣回收任务
+ * 定时分批回收超过有效期仍未确认或释放的预扣，每批在独立事务中执行
+ */
+@Service
+public class InventoryReservationSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationSweeper.class);
+
+    // 单次任务最多回收的批数，避免积压过多时长时间占用调度线程
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    @Scheduled(fixedDelayString = "#{@inventoryConfig.reservationSweepIntervalMs}")
+    public void sweep() {
+        int batchSize = inventoryConfig.getReservationSweepBatchSize();
+        int total = 0;
+
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                int expired = inventoryService.sweepExpiredReservations(batchSize);
+                total += expired;
+                if (expired < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // 失败的批次整体回滚，下一轮重新回收
+            logger.error("回收过期预扣失败，本轮已回收台账行数: {}", total, e);
+            return;
+        }
+
+        if (total > 0) {
+            logger.warn("过期预扣回收完成，台账行数: {}", total);
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package com.example.secondhand.service;
 
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.entity.InventoryReservation;
 import com.example.secondhand.entity.OrderItem;
 import com.example.secondhand.entity.Product;
+import com.example.secondhand.repository.InventoryReservationRepository;
 import com.example.secondhand.repository.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * 库存管理服务
@@ -30,6 +41,24 @@ public class InventoryService {
     @Autowired
     private ConcurrencyLockManager lockManager;
 
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    @Autowired
+    private RedisStockService redisStockService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private HotStockService hotStockService;
+
+    @Autowired
+    private InventoryNearCache nearCache;
+
+    // 自适应模式下的商品争用跟踪
+    private final InventoryContentionTracker contentionTracker = new InventoryContentionTracker();
+
     /**
      * 预扣库存（使用悲观锁 + Redis分布式锁双重保护）
      * 在订单创建时调用，预先扣减库存但不确认
@@ -40,94 +69,305 @@ public class InventoryService {
     @Transactional
     public boolean reserveInventory(List<OrderItem> orderItems) {
         logger.info("开始预扣库存，订单项数量: {}", orderItems.size());
+
+        if (inventoryConfig.isRedisMode()) {
+            return reserveInventoryInRedis(orderItems);
+        }
         
-        // 存储获取的Redis锁，用于异常时释放
-        Map<Long, String> acquiredLocks = new HashMap<>();
+        // 热门商品走分片库存，其余商品按配置的预扣模式处理
+        Map<Long, Integer> quantities = toQuantityMap(orderItems);
+        Map<Long, Integer> hotQuantities = hotStockService.extractHot(quantities);
+        if (!hotQuantities.isEmpty() && !hotStockService.reserve(hotQuantities)) {
+            return false;
+        }
         
-        try {
-            // 1. 先获取所有商品的Redis分布式锁
-            for (OrderItem item : orderItems) {
-                Long productId = item.getProductId();
-                String lockKey = ConcurrencyLockManager.getProductLockKey(productId);
-                
-                // 尝试获取锁，最多等待5秒
-                String lockValue = lockManager.tryLockWithTimeout(lockKey, 
-                    Duration.ofSeconds(30), Duration.ofSeconds(5));
-                
-                if (lockValue == null) {
-                    logger.error("获取商品Redis锁失败，商品ID: {}", productId);
-                    // 释放已获取的锁
-                    releaseLocks(acquiredLocks);
-                    return false;
-                }
-                
-                acquiredLocks.put(productId, lockValue);
+        if (!quantities.isEmpty() && !reserveRegularInventory(quantities)) {
+            if (!hotQuantities.isEmpty()) {
+                compensateHotReservation(hotQuantities);
             }
+            return false;
+        }
+        
+        // 写入预扣台账（与扣减在同一事务中）
+        recordReservations(orderItems);
+        nearCache.applyDeltas(toQuantityMap(orderItems), -1);
+        
+        logger.info("所有商品预扣库存成功，预扣模式: {}, 热门商品: {}", inventoryConfig.getMode(), hotQuantities.keySet());
+        return true;
+    }
+
+    /**
+     * 撤销已扣减的热门商品分片
+     * 事务中直接标记回滚：本事务已持有部分分片的行锁，再加回随机分片会打乱分片加锁顺序
+     */
+    private void compensateHotReservation(Map<Long, Integer> hotQuantities) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } else {
+            hotStockService.restore(hotQuantities);
+        }
+    }
+
+    /**
+     * 预扣非热门商品库存（按配置选择条件扣减或Redis锁 + 悲观锁）
+     * 
+     * @param quantities 商品ID -> 扣减数量（按商品ID升序）
+     * @return 是否预扣成功
+     */
+    private boolean reserveRegularInventory(Map<Long, Integer> quantities) {
+        InventoryConfig.Mode mode = inventoryConfig.getMode();
+        if (mode == InventoryConfig.Mode.OPTIMISTIC
+                || (mode == InventoryConfig.Mode.ADAPTIVE
+                    && !contentionTracker.isContended(quantities.keySet(), inventoryConfig.getContentionThreshold()))) {
+            return reserveInventoryOptimistic(quantities);
+        }
+        return reserveInventoryPessimistic(quantities);
+    }
+
+    /**
+     * 预扣库存（Redis分布式写锁 + 数据库悲观锁）
+     * 
+     * @param quantities 商品ID -> 扣减数量（按商品ID升序）
+     * @return 是否预扣成功
+     */
+    private boolean reserveInventoryPessimistic(Map<Long, Integer> quantities) {
+        InventoryConfig.Mode mode = inventoryConfig.getMode();
+        contentionTracker.recordPessimistic();
+        
+        // 1. 按锁键顺序获取所有商品的可重入Redis写锁（全部成功或全部失败），最多等待5秒
+        // 锁以短租约持有，由看门狗续期，持有者崩溃后热门商品不会被长时间锁住；同一线程嵌套预扣时直接重入
+        List<String> lockKeys = new ArrayList<>();
+        for (Long productId : quantities.keySet()) {
+            lockKeys.add(ConcurrencyLockManager.getProductLockKey(productId));
+        }
+        long lockStart = System.currentTimeMillis();
+        ConcurrencyLockManager.LockHandle lockHandle = lockManager.tryLeasedWriteLocks(lockKeys, Duration.ofSeconds(5));
+        if (mode == InventoryConfig.Mode.ADAPTIVE) {
+            contentionTracker.record(quantities.keySet(), lockHandle == null
+                || System.currentTimeMillis() - lockStart >= inventoryConfig.getContentionLatencyMs());
+        }
+        
+        if (lockHandle == null) {
+            logger.error("获取商品Redis锁失败，锁键: {}", lockKeys);
+            return false;
+        }
+        
+        try {
+            // 2. 🔒 按商品ID升序一次性锁定所有商品行（FOR UPDATE），在内存中校验库存
+            Map<Long, Integer> currentQuantities = productRepository.lockQuantitiesForUpdate(quantities.keySet());
             
-            // 2. 🔒 使用悲观锁查询并扣减库存
-            for (OrderItem item : orderItems) {
-                Long productId = item.getProductId();
-                Integer quantity = item.getQuantity();
+            Map<Long, Integer> deltas = new TreeMap<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Long productId = entry.getKey();
+                Integer quantity = entry.getValue();
+                Integer currentQuantity = currentQuantities.get(productId);
                 
-                // 🔒 使用悲观锁查询商品（FOR UPDATE）
-                Optional<Product> productOpt = productRepository.findByIdWithPessimisticLock(productId);
-                if (productOpt.isEmpty()) {
+                if (currentQuantity == null) {
                     logger.error("商品不存在，商品ID: {}", productId);
-                    releaseLocks(acquiredLocks);
                     return false;
                 }
                 
-                Product product = productOpt.get();
-                
                 // 检查库存是否充足
-                if (product.getQuantity() < quantity) {
+                if (currentQuantity < quantity) {
                     logger.error("库存不足，商品ID: {}, 需要数量: {}, 当前库存: {}", 
-                               productId, quantity, product.getQuantity());
-                    releaseLocks(acquiredLocks);
+                               productId, quantity, currentQuantity);
                     return false;
                 }
                 
-                // 预扣库存
-                product.setQuantity(product.getQuantity() - quantity);
-                productRepository.save(product);
-                
-                logger.info("预扣库存成功（悲观锁），商品ID: {}, 扣减数量: {}, 剩余库存: {}", 
-                          productId, quantity, product.getQuantity());
+                deltas.put(productId, -quantity);
             }
             
-            // 3. 释放所有Redis锁
-            releaseLocks(acquiredLocks);
+            // 预扣库存：一次批量UPDATE写入所有商品的扣减
+            productRepository.batchAdjustQuantities(deltas);
+            logger.info("预扣库存成功（悲观锁），扣减明细: {}", quantities);
             
-            logger.info("所有商品预扣库存成功（Redis锁 + 悲观锁）");
+            // 3. 租约已丢失说明期间可能有其他请求进入临界区，回滚本次预扣
+            if (lockHandle.isLeaseLost()) {
+                throw new IllegalStateException("商品锁租约已丢失");
+            }
+            
+            logger.info("商品预扣库存成功（Redis锁 + 悲观锁）");
             return true;
             
         } catch (Exception e) {
             logger.error("预扣库存失败", e);
-            // 释放所有锁
-            releaseLocks(acquiredLocks);
             throw new RuntimeException("预扣库存失败: " + e.getMessage());
+        } finally {
+            // 4. 写锁持有到事务结束后再释放，其他节点拿到锁时扣减已经提交
+            releaseLocksAfterCompletion(lockHandle);
         }
     }
 
     /**
-     * 释放锁集合
-     * 
-     * @param locks 锁集合（商品ID -> 锁值）
+     * 预扣库存（条件扣减模式）
+     * 按商品ID升序逐行执行 UPDATE ... WHERE quantity >= ?，以影响行数判断是否成功，不使用Redis锁；
+     * 任一商品不足时补偿已扣减的商品，整单不扣减
+     *
+     * @param quantities 商品ID -> 扣减数量（按商品ID升序）
+     * @return 是否预扣成功
      */
-    private void releaseLocks(Map<Long, String> locks) {
-        for (Map.Entry<Long, String> entry : locks.entrySet()) {
-            Long productId = entry.getKey();
-            String lockValue = entry.getValue();
-            String lockKey = ConcurrencyLockManager.getProductLockKey(productId);
+    private boolean reserveInventoryOptimistic(Map<Long, Integer> quantities) {
+        boolean adaptive = inventoryConfig.getMode() == InventoryConfig.Mode.ADAPTIVE;
+        Map<Long, Integer> reserved = new TreeMap<>();
+        long start = System.currentTimeMillis();
+        
+        try {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Long productId = entry.getKey();
+                Integer quantity = entry.getValue();
+                
+                if (productRepository.decrementIfSufficient(productId, quantity) == 0) {
+                    logger.error("库存不足或商品不存在（条件扣减），商品ID: {}, 需要数量: {}", productId, quantity);
+                    
+                    // 补偿已扣减的商品（行锁仍由本事务持有，其他事务看不到中间状态）
+                    if (!reserved.isEmpty()) {
+                        productRepository.batchAdjustQuantities(reserved);
+                    }
+                    contentionTracker.recordOptimistic(true);
+                    return false;
+                }
+                reserved.put(productId, quantity);
+            }
             
-            try {
-                lockManager.releaseLock(lockKey, lockValue);
-            } catch (Exception e) {
-                logger.error("释放锁失败，商品ID: {}, 锁键: {}", productId, lockKey, e);
+            contentionTracker.recordOptimistic(false);
+            logger.info("商品预扣库存成功（条件扣减），扣减明细: {}", quantities);
+            return true;
+            
+        } catch (Exception e) {
+            logger.error("预扣库存失败（条件扣减）", e);
+            throw new RuntimeException("预扣库存失败: " + e.getMessage());
+        } finally {
+            // 条件扣减在行锁上等待过久说明商品正在被争抢，自适应模式下转为悲观锁排队
+            if (adaptive) {
+                contentionTracker.record(quantities.keySet(),
+                    System.currentTimeMillis() - start >= inventoryConfig.getContentionLatencyMs());
             }
         }
     }
 
+    /**
+     * 获取库存预扣策略统计（用于对比条件扣减与悲观锁）
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getReservationStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", inventoryConfig.getMode().name());
+        stats.put("optimisticReservations", contentionTracker.getOptimisticReservations());
+        stats.put("pessimisticReservations", contentionTracker.getPessimisticReservations());
+        stats.put("guardFailures", contentionTracker.getGuardFailures());
+        stats.put("trackedProducts", contentionTracker.getTrackedProducts());
+        return stats;
+    }
+
+    /**
+     * 预扣库存（Redis库存计数器模式）
+     * 一次Lua脚本调用原子地检查并扣减整单库存，MySQL异步持久化
+     *
+     * @param orderItems 订单项列表
+     * @return 是否预扣成功
+     */
+    private boolean reserveInventoryInRedis(List<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = toQuantityMap(orderItems);
+        try {
+            boolean success = redisStockService.reserve(quantities);
+            if (success) {
+                try {
+                    recordReservations(orderItems);
+                } catch (Exception e) {
+                    // Redis扣减不随事务回滚，台账写入失败时立即加回
+                    redisStockService.restore(quantities);
+                    throw e;
+                }
+                nearCache.applyDeltas(quantities, -1);
+                logger.info("所有商品预扣库存成功（Redis库存计数器）");
+            }
+            return success;
+        } catch (Exception e) {
+            logger.error("预扣库存失败（Redis库存计数器）", e);
+            throw new RuntimeException("预扣库存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将订单项按商品ID合并数量（按商品ID排序）
+     *
+     * @param orderItems 订单项列表
+     * @return 商品ID -> 合计数量
+     */
+    private Map<Long, Integer> toQuantityMap(List<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : orderItems) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * 写入预扣台账，每个订单项一行
+     * 
+     * @param orderItems 订单项列表
+     */
+    private void recordReservations(List<OrderItem> orderItems) {
+        String orderNo = resolveOrderNo(orderItems);
+        if (orderNo == null) {
+            return;
+        }
+        
+        LocalDateTime expireTime = LocalDateTime.now().plusMinutes(inventoryConfig.getReservationTtlMinutes());
+        List<InventoryReservation> reservations = new ArrayList<>(orderItems.size());
+        for (OrderItem item : orderItems) {
+            reservations.add(new InventoryReservation(orderNo, item.getProductId(), item.getQuantity(), expireTime));
+        }
+        reservationRepository.saveAll(reservations);
+    }
+
+    private String resolveOrderNo(List<OrderItem> orderItems) {
+        if (orderItems.isEmpty() || orderItems.get(0).getOrder() == null) {
+            return null;
+        }
+        return orderItems.get(0).getOrder().getOrderNo();
+    }
+
+    /**
+     * 释放订单的预扣台账
+     * 
+     * @param orderNo 订单号
+     * @return 是否需要恢复库存：台账上线前的订单没有台账行，按原逻辑恢复；
+     *         台账行已被释放或过期回收时返回false，避免重复恢复
+     */
+    private boolean releaseReservations(String orderNo) {
+        int released = reservationRepository.releaseByOrderNo(orderNo, LocalDateTime.now());
+        return released > 0 || reservationRepository.countByOrderNo(orderNo) == 0;
+    }
+
+    /**
+     * 在当前事务结束后释放锁；没有事务时立即释放
+     * 事务同步回调与加锁在同一线程中执行，可重入写锁和本地降级锁都能正确释放
+     * 
+     * @param lockHandle 锁句柄
+     */
+    private void releaseLocksAfterCompletion(ConcurrencyLockManager.LockHandle lockHandle) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseLocks(lockHandle);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                releaseLocks(lockHandle);
+            }
+        });
+    }
+
+    private void releaseLocks(ConcurrencyLockManager.LockHandle lockHandle) {
+        try {
+            lockManager.releaseLocks(lockHandle);
+        } catch (Exception e) {
+            logger.error("释放锁失败，锁键: {}", lockHandle.getFullKeys(), e);
+        }
+    }
+
     /**
      * 确认库存扣减
      * 在支付成功后调用，确认之前的预扣操作
@@ -139,13 +379,40 @@ public class InventoryService {
     public boolean confirmInventory(String orderNo) {
         logger.info("确认库存扣减，订单号: {}", orderNo);
         
-        // 在实际实现中，这里可能需要记录库存操作日志
-        // 或者更新库存状态，目前预扣时已经扣减了库存，所以这里只需要记录日志
+        // 预扣时已经扣减了库存，这里只把台账标记为已确认，过期回收不再处理这些行
+        int confirmed = reservationRepository.confirmByOrderNos(List.of(orderNo), LocalDateTime.now());
+        if (confirmed == 0) {
+            List<InventoryReservation> reservations = reservationRepository.findByOrderNo(orderNo);
+            boolean restored = !reservations.isEmpty() && reservations.stream().noneMatch(r -> 
+                r.getStatus() == InventoryReservation.ReservationStatus.CONFIRMED);
+            if (restored) {
+                // 预扣已被释放或过期回收，库存已加回，支付成功的订单需要人工补扣
+                logger.error("确认库存扣减失败，预扣已释放或过期，订单号: {}", orderNo);
+                return false;
+            }
+        }
         
-        logger.info("库存扣减确认成功，订单号: {}", orderNo);
+        logger.info("库存扣减确认成功，订单号: {}, 确认台账行数: {}", orderNo, confirmed);
         return true;
     }
 
+    /**
+     * 批量确认库存扣减
+     * 一条UPDATE确认多个订单的全部台账行
+     * 
+     * @param orderNos 订单号集合
+     * @return 确认的台账行数
+     */
+    @Transactional
+    public int confirmInventories(Collection<String> orderNos) {
+        if (orderNos.isEmpty()) {
+            return 0;
+        }
+        int confirmed = reservationRepository.confirmByOrderNos(orderNos, LocalDateTime.now());
+        logger.info("批量确认库存扣减，订单数: {}, 确认台账行数: {}", orderNos.size(), confirmed);
+        return confirmed;
+    }
+
     /**
      * 恢复库存（使用悲观锁保护）
      * 在订单取消或支付失败时调用，恢复之前预扣的库存
@@ -156,29 +423,57 @@ public class InventoryService {
     @Transactional
     public boolean restoreInventory(List<OrderItem> orderItems) {
         logger.info("开始恢复库存，订单项数量: {}", orderItems.size());
+
+        // 先释放台账，台账已被过期回收或重复取消时不再恢复
+        String orderNo = resolveOrderNo(orderItems);
+        if (orderNo != null && !releaseReservations(orderNo)) {
+            logger.info("预扣已释放或已过期回收，跳过恢复库存，订单号: {}", orderNo);
+            return true;
+        }
+        
+        return restoreQuantities(toQuantityMap(orderItems));
+    }
+
+    /**
+     * 按商品加回库存（Redis计数器或悲观锁批量更新）
+     * 
+     * @param quantities 商品ID -> 恢复数量（按商品ID升序）
+     * @return 是否恢复成功
+     */
+    private boolean restoreQuantities(Map<Long, Integer> quantities) {
+        // extractHot会移除热门商品，先记录缓存增量（事务提交后才生效）
+        nearCache.applyDeltas(quantities, 1);
+        Map<Long, Integer> hotQuantities = hotStockService.extractHot(quantities);
+        if (!hotQuantities.isEmpty()) {
+            hotStockService.restore(hotQuantities);
+            logger.info("热门商品库存恢复成功（分片库存），恢复明细: {}", hotQuantities);
+        }
+        if (quantities.isEmpty()) {
+            return true;
+        }
+        
+        if (inventoryConfig.isRedisMode()) {
+            restoreInRedisAfterCommit(new TreeMap<>(quantities));
+            return true;
+        }
         
         try {
-            for (OrderItem item : orderItems) {
-                Long productId = item.getProductId();
-                Integer quantity = item.getQuantity();
-                
-                // 🔒 使用悲观锁查询商品（FOR UPDATE）
-                Optional<Product> productOpt = productRepository.findByIdWithPessimisticLock(productId);
-                if (productOpt.isEmpty()) {
-                    logger.error("商品不存在，无法恢复库存，商品ID: {}", productId);
+            // 🔒 按商品ID升序一次性锁定所有商品行（FOR UPDATE），不存在的商品跳过
+            Map<Long, Integer> currentQuantities = productRepository.lockQuantitiesForUpdate(quantities.keySet());
+            
+            Map<Long, Integer> deltas = new TreeMap<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                if (!currentQuantities.containsKey(entry.getKey())) {
+                    logger.error("商品不存在，无法恢复库存，商品ID: {}", entry.getKey());
                     continue; // 继续处理其他商品
                 }
-                
-                Product product = productOpt.get();
-                
-                // 恢复库存
-                product.setQuantity(product.getQuantity() + quantity);
-                productRepository.save(product);
-                
-                logger.info("恢复库存成功（悲观锁），商品ID: {}, 恢复数量: {}, 当前库存: {}", 
-                          productId, quantity, product.getQuantity());
+                deltas.put(entry.getKey(), entry.getValue());
             }
             
+            // 恢复库存：一次批量UPDATE写入所有商品的恢复数量
+            productRepository.batchAdjustQuantities(deltas);
+            logger.info("恢复库存成功（悲观锁），恢复明细: {}", deltas);
+            
             logger.info("所有商品库存恢复成功（悲观锁保护）");
             return true;
             
@@ -189,31 +484,65 @@ public class InventoryService {
     }
 
     /**
-     * 检查库存是否充足（普通查询）
+     * 加回Redis库存计数器
+     * 在事务中调用时推迟到提交后执行：Redis不随数据库回滚，提前加回后事务回滚会让下次回收重复加回
+     * 
+     * @param quantities 商品ID -> 恢复数量
+     */
+    private void restoreInRedisAfterCommit(Map<Long, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            restoreInRedis(quantities);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    restoreInRedis(quantities);
+                } catch (Exception e) {
+                    // 台账已提交，只能记录下来由对账或人工修复
+                    logger.error("事务已提交但恢复Redis库存失败，需要修复，恢复明细: {}", quantities, e);
+                }
+            }
+        });
+    }
+
+    private void restoreInRedis(Map<Long, Integer> quantities) {
+        try {
+            redisStockService.restore(quantities);
+            logger.info("所有商品库存恢复成功（Redis库存计数器），恢复明细: {}", quantities);
+        } catch (Exception e) {
+            logger.error("恢复库存失败（Redis库存计数器）", e);
+            throw new RuntimeException("恢复库存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 检查库存是否充足（普通查询，优先读取近端缓存）
+     * 结果仅用于展示和预检查，下单时以预扣结果为准
      * 
      * @param productId 商品ID
      * @param quantity 需要的数量
      * @return 是否库存充足
      */
     public boolean checkInventory(Long productId, Integer quantity) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty()) {
+        Integer stock = readInventory(productId);
+        if (stock == null) {
             logger.error("商品不存在，商品ID: {}", productId);
             return false;
         }
         
-        Product product = productOpt.get();
-        boolean sufficient = product.getQuantity() >= quantity;
-        
-        logger.info("库存检查，商品ID: {}, 需要数量: {}, 当前库存: {}, 是否充足: {}", 
-                  productId, quantity, product.getQuantity(), sufficient);
+        boolean sufficient = stock >= quantity;
+        logger.debug("库存检查，商品ID: {}, 需要数量: {}, 当前库存: {}, 是否充足: {}", 
+                  productId, quantity, stock, sufficient);
         
         return sufficient;
     }
 
     /**
-     * 🔒 使用悲观锁检查库存是否充足（高并发场景）
-     * 适用于需要确保数据一致性的场景
+     * 🔒 使用共享行锁检查库存是否充足（高并发场景）
+     * 适用于需要确保数据一致性的场景：并发的检查共享行锁互不阻塞，
+     * 与修改商品行的预扣/恢复互斥，只读取已提交的库存
      * 
      * @param productId 商品ID
      * @param quantity 需要的数量
@@ -221,8 +550,8 @@ public class InventoryService {
      */
     @Transactional
     public boolean checkInventoryWithLock(Long productId, Integer quantity) {
-        // 🔒 使用悲观锁查询商品
-        Optional<Product> productOpt = productRepository.findByIdWithPessimisticLock(productId);
+        // 🔒 使用共享锁查询商品（LOCK IN SHARE MODE）
+        Optional<Product> productOpt = productRepository.findByIdWithPessimisticReadLock(productId);
         if (productOpt.isEmpty()) {
             logger.error("商品不存在，商品ID: {}", productId);
             return false;
@@ -231,51 +560,134 @@ public class InventoryService {
         Product product = productOpt.get();
         boolean sufficient = product.getQuantity() >= quantity;
         
-        logger.info("库存检查（悲观锁），商品ID: {}, 需要数量: {}, 当前库存: {}, 是否充足: {}", 
+        logger.debug("库存检查（共享锁），商品ID: {}, 需要数量: {}, 当前库存: {}, 是否充足: {}", 
                   productId, quantity, product.getQuantity(), sufficient);
         
         return sufficient;
     }
 
     /**
-     * 获取商品当前库存
+     * 获取商品当前库存（优先读取近端缓存，用于展示）
      * 
      * @param productId 商品ID
      * @return 当前库存数量，如果商品不存在返回0
      */
     public Integer getCurrentInventory(Long productId) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty()) {
+        Integer stock = readInventory(productId);
+        if (stock == null) {
             logger.error("商品不存在，商品ID: {}", productId);
             return 0;
         }
+        return stock;
+    }
+
+    /**
+     * 读取商品库存：近端缓存 -> 分片合计（热门商品）/ Redis计数器（Redis模式）-> 商品表
+     * 从权威存储读到的值写入近端缓存；Redis模式下商品表只是持久化副本，回退读到的值不缓存
+     * 
+     * @param productId 商品ID
+     * @return 库存数量，商品不存在返回null
+     */
+    private Integer readInventory(Long productId) {
+        Integer cached = nearCache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        if (hotStockService.isHot(productId)) {
+            Integer stock = hotStockService.getStock(productId);
+            nearCache.put(productId, stock);
+            return stock;
+        }
         
-        return productOpt.get().getQuantity();
+        if (inventoryConfig.isRedisMode()) {
+            try {
+                Integer stock = redisStockService.getStock(productId);
+                if (stock != null) {
+                    nearCache.put(productId, stock);
+                    return stock;
+                }
+            } catch (Exception e) {
+                logger.warn("读取Redis库存失败，改为查询数据库，商品ID: {}", productId, e);
+            }
+        }
+
+        Optional<Product> productOpt = productRepository.findById(productId);
+        if (productOpt.isEmpty()) {
+            return null;
+        }
+        
+        Integer quantity = productOpt.get().getQuantity();
+        if (!inventoryConfig.isRedisMode()) {
+            nearCache.put(productId, quantity);
+        }
+        return quantity;
     }
 
     /**
      * 处理库存超时
-     * 由超时任务调度器调用，恢复长时间未确认的预扣库存
+     * 由超时任务调度器调用，释放订单仍未确认的预扣台账并恢复库存
      * 
      * @param orderNo 订单号
-     * @return 处理结果
+     * @return 处理结果；处理失败时抛出异常，台账更新随事务回滚
      */
     @Transactional
     public boolean handleInventoryTimeout(String orderNo) {
         logger.info("处理库存超时，订单号: {}", orderNo);
         
         try {
-            // 在实际实现中，这里应该查询订单项并恢复库存
-            // 由于当前架构中库存预扣和订单创建是同时进行的，
-            // 库存超时处理通常由订单超时处理来完成
+            // 只释放仍为已预扣状态的行，已支付确认的订单不受影响
+            String sweepId = UUID.randomUUID().toString();
+            if (reservationRepository.releaseReservedByOrderNo(orderNo, sweepId, LocalDateTime.now()) == 0) {
+                logger.info("没有未确认的预扣，库存超时处理完成，订单号: {}", orderNo);
+                return true;
+            }
             
-            // 这里主要是记录日志和提供接口给超时任务调度器
-            logger.info("库存超时处理完成，订单号: {}", orderNo);
+            // 按本次实际释放的行恢复库存
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (Object[] row : reservationRepository.sumQuantitiesBySweepId(sweepId)) {
+                quantities.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+            restoreQuantities(quantities);
+            
+            logger.info("库存超时处理完成，订单号: {}, 恢复明细: {}", orderNo, quantities);
             return true;
             
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
+            // 抛出异常让台账更新随事务回滚，超时任务重试时仍能找到未释放的预扣
             logger.error("处理库存超时失败，订单号: {}", orderNo, e);
-            return false;
+            throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 回收一批过期的预扣（集合操作）
+     * 1. 一条UPDATE把最多batchSize行过期预扣标记为已过期并打上批次ID
+     * 2. 一条关联UPDATE按批次把数量加回商品库存（Redis模式或启用热门商品分片时汇总后按商品加回）
+     * 
+     * @param batchSize 本批最大行数
+     * @return 本批回收的台账行数
+     */
+    @Transactional
+    public int sweepExpiredReservations(int batchSize) {
+        String sweepId = UUID.randomUUID().toString();
+        int expired = reservationRepository.markExpiredBatch(sweepId, LocalDateTime.now(), batchSize);
+        if (expired == 0) {
+            return 0;
+        }
+        
+        if (inventoryConfig.isRedisMode() || hotStockService.hasActiveShards()) {
+            // Redis计数器或热门商品分片不在商品表上，汇总后按商品加回
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (Object[] row : reservationRepository.sumQuantitiesBySweepId(sweepId)) {
+                quantities.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+            restoreQuantities(quantities);
+        } else {
+            reservationRepository.restoreProductQuantitiesBySweepId(sweepId);
+        }
+        
+        logger.warn("回收过期预扣，批次: {}, 台账行数: {}", sweepId, expired);
+        return expired;
+    }
+}
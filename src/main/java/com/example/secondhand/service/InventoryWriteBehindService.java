@@ -0,0 +1,292 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.entity.InventoryJournalCheckpoint;
+import com.example.secondhand.repository.InventoryJournalCheckpointRepository;
+import com.example.secondhand.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 库存增量写回合并服务（Redis库存计数器模式）
+ * 预扣/恢复时库存增量与Redis计数器在同一个Lua脚本中追加到Redis Stream日志，
+ * 由单个刷新任务按批读取日志、按商品合并增量后批量更新商品表，
+ * 检查点与库存更新在同一事务中按读取时的位置条件推进，进程崩溃后从检查点继续，
+ * 两个刷新读到同一段日志时只有一个能提交，增量既不丢失也不重复写入
+ */
+@Service
+public class InventoryWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryWriteBehindService.class);
+
+    public static final String JOURNAL_KEY = "stock:journal";
+
+    // 日志条目中的增量字段，格式：商品ID:增量,商品ID:增量
+    public static final String DELTA_FIELD = "d";
+
+    private static final String JOURNAL_NAME = "product_quantity";
+
+    private static final String INITIAL_ENTRY_ID = "0-0";
+
+    // 多节点部署时保证同一时刻只有一个节点刷新
+    private static final String FLUSH_LOCK_KEY = "inventory_write_behind_flush";
+
+    // 单次刷新最多处理的批数，避免长时间占用刷新锁
+    private static final int MAX_BATCHES_PER_FLUSH = 20;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ConcurrencyLockManager lockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    @Autowired
+    @Qualifier("stockPersistExecutor")
+    private Executor stockPersistExecutor;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 上次刷新后本节点追加的日志条数，达到批大小时提前触发刷新
+    private final AtomicInteger appendedSinceFlush = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final AtomicLong flushedEntries = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong productUpdates = new AtomicLong();
+
+    /**
+     * 是否启用写回合并
+     */
+    public boolean isEnabled() {
+        return inventoryConfig.isRedisMode() && inventoryConfig.isWriteBehindEnabled();
+    }
+
+    /**
+     * 生成日志条目的增量内容
+     *
+     * @param quantities 商品ID -> 数量
+     * @param sign 扣减为-1，恢复为1
+     * @return 增量内容
+     */
+    public static String encodeDeltas(Map<Long, Integer> quantities, int sign) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            joiner.add(entry.getKey() + ":" + (sign * entry.getValue()));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * 日志追加成功后调用，未刷新条数达到批大小时提前触发一次刷新
+     */
+    public void onAppended() {
+        if (appendedSinceFlush.incrementAndGet() >= inventoryConfig.getWriteBehindBatchSize()
+                && flushScheduled.compareAndSet(false, true)) {
+            stockPersistExecutor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 日志中是否存在尚未落库的增量
+     * 对账时存在未落库增量的情况下MySQL落后于Redis属于正常现象，不能按偏差修复
+     */
+    public boolean hasPendingEntries() {
+        Long size = redisTemplate.opsForStream().size(JOURNAL_KEY);
+        return size != null && size > 0;
+    }
+
+    /**
+     * 定时刷新：读取检查点之后的日志，按商品合并增量并批量写入商品表
+     */
+    @Scheduled(fixedDelayString = "#{@inventoryConfig.writeBehindFlushIntervalMs}")
+    public void flush() {
+        if (!isEnabled() || !flushLock.tryLock()) {
+            return;
+        }
+
+        String lockValue = null;
+        try {
+            lockValue = lockManager.acquireLock(FLUSH_LOCK_KEY, Duration.ofSeconds(30));
+            if (lockValue == null) {
+                return;
+            }
+
+            appendedSinceFlush.set(0);
+            for (int batch = 0; batch < MAX_BATCHES_PER_FLUSH; batch++) {
+                if (flushBatch() < inventoryConfig.getWriteBehindBatchSize()) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // 未提交的批次下次从检查点重新读取
+            logger.error("库存增量写回失败", e);
+        } finally {
+            if (lockValue != null) {
+                lockManager.releaseLock(FLUSH_LOCK_KEY, lockValue);
+            }
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 刷新一批日志
+     *
+     * @return 本批处理的日志条数
+     */
+    int flushBatch() {
+        InventoryJournalCheckpoint stored = checkpointRepository.findById(JOURNAL_NAME).orElse(null);
+        String checkpoint = stored != null ? stored.getLastEntryId() : INITIAL_ENTRY_ID;
+
+        // 从检查点（含）开始读取，跳过检查点本身，兼容不支持开区间的Redis版本
+        int batchSize = inventoryConfig.getWriteBehindBatchSize();
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(JOURNAL_KEY,
+                Range.rightUnbounded(Range.Bound.inclusive(checkpoint)), Limit.limit().count(batchSize + 1));
+        if (records == null) {
+            return 0;
+        }
+
+        List<RecordId> applied = new ArrayList<>(records.size());
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            if (record.getId().getValue().equals(checkpoint)) {
+                continue;
+            }
+            if (applied.size() == batchSize) {
+                break;
+            }
+            decodeDeltas(record, deltas);
+            applied.add(record.getId());
+        }
+        if (applied.isEmpty()) {
+            return 0;
+        }
+
+        // 增量为0的商品（扣减后又恢复）无需写入
+        deltas.values().removeIf(delta -> delta == 0);
+        String lastEntryId = applied.get(applied.size() - 1).getValue();
+        Boolean advanced = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (stored == null) {
+                checkpointRepository.insertIfAbsent(JOURNAL_NAME, INITIAL_ENTRY_ID, now);
+            }
+            // 先按读取时的检查点推进，推进失败说明这段日志已被其他刷新写入，整批回滚
+            if (checkpointRepository.advance(JOURNAL_NAME, checkpoint, lastEntryId, now) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            productRepository.batchAdjustQuantities(deltas);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(advanced)) {
+            logger.warn("库存日志检查点已被其他刷新推进，放弃本批，读取时检查点: {}", checkpoint);
+            return 0;
+        }
+
+        // 检查点已提交，删除已落库的日志；删除失败的条目下次读取时会被检查点过滤
+        try {
+            redisTemplate.opsForStream().delete(JOURNAL_KEY, applied.toArray(new RecordId[0]));
+        } catch (Exception e) {
+            logger.warn("删除已落库的库存日志失败，条数: {}", applied.size(), e);
+        }
+
+        flushedEntries.addAndGet(applied.size());
+        flushedBatches.incrementAndGet();
+        productUpdates.addAndGet(deltas.size());
+        logger.debug("库存增量写回完成，日志条数: {}, 更新商品数: {}, 检查点: {}",
+                   applied.size(), deltas.size(), lastEntryId);
+        return applied.size();
+    }
+
+    private void decodeDeltas(MapRecord<String, Object, Object> record, Map<Long, Integer> deltas) {
+        Object payload = record.getValue().get(DELTA_FIELD);
+        if (payload == null || payload.toString().isEmpty()) {
+            return;
+        }
+        for (String part : payload.toString().split(",")) {
+            int separator = part.indexOf(':');
+            Long productId = Long.valueOf(part.substring(0, separator));
+            Integer delta = Integer.valueOf(part.substring(separator + 1));
+            deltas.merge(productId, delta, Integer::sum);
+        }
+    }
+
+    /**
+     * 获取写回合并统计信息
+     *
+     * @return 统计信息
+     */
+    public WriteBehindStatistics getStatistics() {
+        return new WriteBehindStatistics(isEnabled(), flushedEntries.get(), flushedBatches.get(), productUpdates.get());
+    }
+
+    /**
+     * 写回合并统计信息
+     */
+    public static class WriteBehindStatistics {
+        private final boolean enabled;
+        private final long flushedEntries;
+        private final long flushedBatches;
+        private final long productUpdates;
+
+        public WriteBehindStatistics(boolean enabled, long flushedEntries, long flushedBatches, long productUpdates) {
+            this.enabled = enabled;
+            this.flushedEntries = flushedEntries;
+            this.flushedBatches = flushedBatches;
+            this.productUpdates = productUpdates;
+        }
+
+        // Getter 方法
+        public boolean isEnabled() { return enabled; }
+        public long getFlushedEntries() { return flushedEntries; }
+        public long getFlushedBatches() { return flushedBatches; }
+        public long getProductUpdates() { return productUpdates; }
+
+        /**
+         * 合并比：每次商品行更新平均合并的日志条数
+         */
+        public double getCoalesceRatio() {
+            return productUpdates > 0 ? (double) flushedEntries / productUpdates : 0.0;
+        }
+    }
+}
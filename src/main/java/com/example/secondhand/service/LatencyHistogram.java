@@ -0,0 +1,134 @@
+package com.example.secondhand.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的耗时直方图
+ * 记录路径只做一次桶查找和几次LongAdder累加，可在加锁等热点路径上使用；分位数按桶上界近似
+ */
+public class LatencyHistogram {
+
+    // 桶上界（微秒），最后一个桶为无穷大
+    private static final long[] BOUNDS_MICROS = {
+        100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, Long.MAX_VALUE
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0L, nanos / 1_000);
+        int index = 0;
+        while (micros > BOUNDS_MICROS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 生成快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, totalMicros.sum(), maxMicros.get());
+    }
+
+    private static String label(int index) {
+        long bound = BOUNDS_MICROS[index];
+        if (bound == Long.MAX_VALUE) {
+            return "+Inf";
+        }
+        return bound < 1_000 ? bound + "us" : (bound / 1_000.0) + "ms";
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        // Getter 方法
+        public long getCount() { return count; }
+        public long getMaxMicros() { return maxMicros; }
+
+        public double getMeanMicros() {
+            return count > 0 ? (double) totalMicros / count : 0.0;
+        }
+
+        public long getP50Micros() { return percentile(0.50); }
+        public long getP95Micros() { return percentile(0.95); }
+        public long getP99Micros() { return percentile(0.99); }
+
+        /**
+         * 各桶计数（键为桶上界）
+         */
+        public Map<String, Long> getBuckets() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    result.put("le_" + label(i), counts[i]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 近似分位数：返回累计计数达到该分位的桶上界，落在最后一个桶时返回最大值
+         */
+        private long percentile(double quantile) {
+            if (count == 0) {
+                return 0L;
+            }
+            long target = (long) Math.ceil(count * quantile);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return Math.min(BOUNDS_MICROS[i], maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+    }
+}
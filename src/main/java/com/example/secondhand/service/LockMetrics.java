@@ -0,0 +1,208 @@
+package com.example.secondhand.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分布式锁指标
+ * 按锁键前缀（如 product、order）统计加锁耗时、持有时长、失败/超时/降级次数，
+ * 并用 Space-Saving 草图记录争用最多的锁键
+ */
+public class LockMetrics {
+
+    private static final String LOCK_PREFIX = "inventory_lock:";
+    private static final int MAX_PREFIXES = 64;              // 前缀数量上限，超出归入 other
+    private static final int MAX_TRACKED_HOLDS = 10000;      // 同时跟踪持有时长的锁数量上限
+    private static final long STALE_HOLD_NANOS = 60_000_000_000L; // 超过60秒未释放（已过期）的锁不再跟踪
+    private static final int TOP_K_CAPACITY = 128;           // 草图计数器数量
+    private static final String OTHER_PREFIX = "other";
+
+    private final ConcurrentHashMap<String, PrefixMetrics> prefixes = new ConcurrentHashMap<>();
+
+    // 锁值 -> 加锁时间（纳秒），释放时计算持有时长
+    private final ConcurrentHashMap<String, Long> holdStarts = new ConcurrentHashMap<>();
+
+    private final SpaceSavingSketch contendedKeys = new SpaceSavingSketch(TOP_K_CAPACITY);
+
+    /**
+     * 记录一次加锁成功
+     *
+     * @param fullKeys 完整锁键
+     * @param lockValue 锁值
+     * @param fallback 是否为本地降级锁
+     * @param startNanos 开始加锁的时间
+     */
+    public void recordAcquired(List<String> fullKeys, String lockValue, boolean fallback, long startNanos) {
+        long now = System.nanoTime();
+        PrefixMetrics metrics = metricsFor(fullKeys);
+        metrics.acquireLatency.record(now - startNanos);
+        metrics.acquired.increment();
+        if (fallback) {
+            metrics.fallbacks.increment();
+        }
+        if (holdStarts.size() >= MAX_TRACKED_HOLDS) {
+            // 持有者崩溃或未释放的锁不会被移除，达到上限时清理过期的记录
+            holdStarts.values().removeIf(start -> now - start > STALE_HOLD_NANOS);
+        }
+        if (holdStarts.size() < MAX_TRACKED_HOLDS) {
+            holdStarts.put(lockValue, now);
+        }
+    }
+
+    /**
+     * 记录一次立即加锁失败（锁已被占用）
+     */
+    public void recordFailure(List<String> fullKeys) {
+        metricsFor(fullKeys).failures.increment();
+        recordContended(fullKeys);
+    }
+
+    /**
+     * 记录一次等待加锁超时
+     */
+    public void recordTimeout(List<String> fullKeys) {
+        metricsFor(fullKeys).timeouts.increment();
+    }
+
+    /**
+     * 记录锁键发生争用（首次加锁失败进入等待）
+     */
+    public void recordContended(List<String> fullKeys) {
+        metricsFor(fullKeys).contended.increment();
+        for (String fullKey : fullKeys) {
+            contendedKeys.offer(stripPrefix(fullKey));
+        }
+    }
+
+    /**
+     * 记录一次释放
+     *
+     * @param fullKeys 完整锁键
+     * @param lockValue 锁值
+     * @param success 是否释放成功（失败通常表示锁已过期）
+     */
+    public void recordReleased(List<String> fullKeys, String lockValue, boolean success) {
+        PrefixMetrics metrics = metricsFor(fullKeys);
+        Long start = lockValue != null ? holdStarts.remove(lockValue) : null;
+        if (start != null) {
+            metrics.holdTime.record(System.nanoTime() - start);
+        }
+        if (!success) {
+            metrics.releaseFailures.increment();
+        }
+    }
+
+    /**
+     * 获取指标快照
+     *
+     * @param topK 返回争用最多的锁键数量
+     * @return 指标快照
+     */
+    public Snapshot snapshot(int topK) {
+        Map<String, PrefixSnapshot> byPrefix = new TreeMap<>();
+        prefixes.forEach((prefix, metrics) -> byPrefix.put(prefix, metrics.snapshot()));
+        return new Snapshot(byPrefix, contendedKeys.top(topK), holdStarts.size());
+    }
+
+    private PrefixMetrics metricsFor(List<String> fullKeys) {
+        String prefix = fullKeys.isEmpty() ? OTHER_PREFIX : prefixOf(fullKeys.get(0));
+        PrefixMetrics metrics = prefixes.get(prefix);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (prefixes.size() >= MAX_PREFIXES) {
+            prefix = OTHER_PREFIX;
+        }
+        return prefixes.computeIfAbsent(prefix, p -> new PrefixMetrics());
+    }
+
+    private static String stripPrefix(String fullKey) {
+        return fullKey.startsWith(LOCK_PREFIX) ? fullKey.substring(LOCK_PREFIX.length()) : fullKey;
+    }
+
+    private static String prefixOf(String fullKey) {
+        String key = stripPrefix(fullKey);
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : key;
+    }
+
+    /**
+     * 单个前缀的指标
+     */
+    private static class PrefixMetrics {
+        private final LatencyHistogram acquireLatency = new LatencyHistogram();
+        private final LatencyHistogram holdTime = new LatencyHistogram();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private final LongAdder releaseFailures = new LongAdder();
+
+        private PrefixSnapshot snapshot() {
+            return new PrefixSnapshot(acquireLatency.snapshot(), holdTime.snapshot(), acquired.sum(),
+                failures.sum(), contended.sum(), timeouts.sum(), fallbacks.sum(), releaseFailures.sum());
+        }
+    }
+
+    /**
+     * 单个前缀的指标快照
+     */
+    public static class PrefixSnapshot {
+        private final LatencyHistogram.Snapshot acquireLatency;
+        private final LatencyHistogram.Snapshot holdTime;
+        private final long acquired;
+        private final long failures;
+        private final long contended;
+        private final long timeouts;
+        private final long fallbacks;
+        private final long releaseFailures;
+
+        public PrefixSnapshot(LatencyHistogram.Snapshot acquireLatency, LatencyHistogram.Snapshot holdTime,
+                              long acquired, long failures, long contended, long timeouts, long fallbacks,
+                              long releaseFailures) {
+            this.acquireLatency = acquireLatency;
+            this.holdTime = holdTime;
+            this.acquired = acquired;
+            this.failures = failures;
+            this.contended = contended;
+            this.timeouts = timeouts;
+            this.fallbacks = fallbacks;
+            this.releaseFailures = releaseFailures;
+        }
+
+        // Getter 方法
+        public LatencyHistogram.Snapshot getAcquireLatency() { return acquireLatency; }
+        public LatencyHistogram.Snapshot getHoldTime() { return holdTime; }
+        public long getAcquired() { return acquired; }
+        public long getFailures() { return failures; }
+        public long getContended() { return contended; }
+        public long getTimeouts() { return timeouts; }
+        public long getFallbacks() { return fallbacks; }
+        public long getReleaseFailures() { return releaseFailures; }
+    }
+
+    /**
+     * 锁指标快照
+     */
+    public static class Snapshot {
+        private final Map<String, PrefixSnapshot> prefixes;
+        private final List<SpaceSavingSketch.Entry> topContendedKeys;
+        private final int trackedHolds;
+
+        public Snapshot(Map<String, PrefixSnapshot> prefixes, List<SpaceSavingSketch.Entry> topContendedKeys,
+                        int trackedHolds) {
+            this.prefixes = prefixes;
+            this.topContendedKeys = topContendedKeys;
+            this.trackedHolds = trackedHolds;
+        }
+
+        // Getter 方法
+        public Map<String, PrefixSnapshot> getPrefixes() { return prefixes; }
+        public List<SpaceSavingSketch.Entry> getTopContendedKeys() { return topContendedKeys; }
+        public int getTrackedHolds() { return trackedHolds; }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.secondhand.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁释放通知器
+ * 释放锁后通过Redis发布/订阅广播被释放的锁键，本节点上等待该键的线程被立即唤醒重试，
+ * 替代固定间隔的SETNX轮询
+ */
+@Component
+public class LockReleaseNotifier implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockReleaseNotifier.class);
+
+    /**
+     * 锁释放通知频道，消息内容为 "锁键1\n锁键2...|释放时间戳(毫秒)"，一次释放的所有锁键合并为一条消息
+     */
+    public static final String CHANNEL = "inventory_lock_release";
+
+    private static final String KEY_SEPARATOR = "\n";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    // 锁键 -> 等待该键的线程
+    private final ConcurrentHashMap<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 广播锁已释放
+     *
+     * @param fullKeys 已释放的完整锁键
+     */
+    public void publishRelease(Collection<String> fullKeys) {
+        if (fullKeys.isEmpty()) {
+            return;
+        }
+        long releasedAt = System.currentTimeMillis();
+        try {
+            // 多个锁键合并为一次PUBLISH
+            redisTemplate.convertAndSend(CHANNEL, String.join(KEY_SEPARATOR, fullKeys) + "|" + releasedAt);
+        } catch (Exception e) {
+            // 通知失败时等待方会在兜底轮询时重试
+            logger.warn("发布锁释放通知失败，锁键: {}", fullKeys, e);
+        }
+    }
+
+    /**
+     * 直接唤醒本节点的等待者（本地降级锁释放时使用，不经过Redis）
+     *
+     * @param fullKeys 已释放的完整锁键
+     */
+    public void signalLocal(Collection<String> fullKeys) {
+        long releasedAt = System.currentTimeMillis();
+        for (String fullKey : fullKeys) {
+            signalWaiters(fullKey, releasedAt);
+        }
+    }
+
+    /**
+     * 登记等待者
+     * 必须在尝试加锁之前登记，避免加锁失败到开始等待之间的释放通知丢失
+     *
+     * @param fullKeys 等待的完整锁键
+     * @return 等待者，使用完毕后需要关闭
+     */
+    public Waiter register(Collection<String> fullKeys) {
+        Waiter waiter = new Waiter(new ArrayList<>(fullKeys));
+        for (String fullKey : waiter.fullKeys) {
+            waiters.computeIfAbsent(fullKey, key -> ConcurrentHashMap.newKeySet()).add(waiter);
+        }
+        return waiter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf('|');
+        if (separator < 0) {
+            return;
+        }
+
+        long releasedAt;
+        try {
+            releasedAt = Long.parseLong(body.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            releasedAt = System.currentTimeMillis();
+        }
+
+        for (String fullKey : body.substring(0, separator).split(KEY_SEPARATOR)) {
+            signalWaiters(fullKey, releasedAt);
+        }
+    }
+
+    private void signalWaiters(String fullKey, long releasedAt) {
+        Set<Waiter> keyWaiters = waiters.get(fullKey);
+        if (keyWaiters == null || keyWaiters.isEmpty()) {
+            return;
+        }
+
+        // 唤醒本节点所有等待该键的线程，由加锁脚本决定谁获得锁
+        for (Waiter waiter : keyWaiters) {
+            waiter.signal(releasedAt);
+        }
+    }
+
+    private void unregister(Waiter waiter) {
+        for (String fullKey : waiter.fullKeys) {
+            waiters.computeIfPresent(fullKey, (key, set) -> {
+                set.remove(waiter);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * 当前等待中的锁键数量
+     */
+    public int getWaitingKeyCount() {
+        return waiters.size();
+    }
+
+    /**
+     * 锁等待者
+     */
+    public class Waiter implements AutoCloseable {
+        private final List<String> fullKeys;
+        private final Semaphore signal = new Semaphore(0);
+        private volatile long lastReleasedAt;
+
+        private Waiter(List<String> fullKeys) {
+            this.fullKeys = fullKeys;
+        }
+
+        private void signal(long releasedAt) {
+            lastReleasedAt = releasedAt;
+            signal.release();
+        }
+
+        /**
+         * 等待释放通知
+         *
+         * @param maxWaitMs 最长等待时间（毫秒）
+         * @return 被通知唤醒时返回锁的释放时间戳，超时返回-1
+         */
+        public long await(long maxWaitMs) throws InterruptedException {
+            if (signal.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                // 多次释放只需重试一次
+                signal.drainPermits();
+                return lastReleasedAt;
+            }
+            return -1L;
+        }
+
+        @Override
+        public void close() {
+            unregister(this);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.LockConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 锁租约看门狗
+ * 持有者存活期间，由单个调度线程批量续期所有已登记的短租约锁，
+ * 持有者崩溃后不再续期，锁在一个租约时长内自动过期
+ */
+@Component
+public class LockWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockWatchdog.class);
+
+    // 每次脚本调用最多续期的锁键数量
+    private static final int RENEW_BATCH_SIZE = 200;
+
+    // Lua脚本用于原子性批量续期：排他锁（字符串）只续期锁值匹配的键；可重入写锁（哈希）在本持有者的
+    // 持有次数字段仍存在时续期，且不缩短加锁时设置的更长过期时间
+    // ARGV[1]为租约时长（毫秒），ARGV[i + 1]为KEYS[i]的持有者标识；返回未能续期的键数量
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "local lost = 0 " +
+        "for i = 1, #KEYS do " +
+        "    local type = redis.call('type', KEYS[i]).ok " +
+        "    if type == 'string' and redis.call('get', KEYS[i]) == ARGV[i + 1] then " +
+        "        redis.call('pexpire', KEYS[i], ARGV[1]) " +
+        "    elseif type == 'hash' and redis.call('hexists', KEYS[i], ARGV[i + 1]) == 1 then " +
+        "        if redis.call('pttl', KEYS[i]) < tonumber(ARGV[1]) then redis.call('pexpire', KEYS[i], ARGV[1]) end " +
+        "    else " +
+        "        lost = lost + 1 " +
+        "    end " +
+        "end " +
+        "return lost", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private LockConfig lockConfig;
+
+    // 正在续期的锁句柄
+    private final Set<ConcurrencyLockManager.LockHandle> leases = ConcurrentHashMap.newKeySet();
+
+    // Redis不可用时跳过续期，冷却期内不再每轮报错
+    private final RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker("锁看门狗");
+
+    private final AtomicLong totalRenewed = new AtomicLong();
+    private final AtomicLong totalLost = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 启动续期线程
+     */
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = lockConfig.getWatchdogIntervalMs();
+        scheduler.scheduleWithFixedDelay(this::renewAll, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("锁看门狗已启动，租约时长: {}ms, 续期间隔: {}ms", lockConfig.getLeaseMs(), interval);
+    }
+
+    /**
+     * 停止续期线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 租约时长（毫秒）
+     */
+    public long getLeaseMs() {
+        return lockConfig.getLeaseMs();
+    }
+
+    /**
+     * 登记需要续期的锁
+     *
+     * @param handle 锁句柄
+     */
+    public void register(ConcurrencyLockManager.LockHandle handle) {
+        leases.add(handle);
+    }
+
+    /**
+     * 取消续期（释放锁之前调用）
+     *
+     * @param handle 锁句柄
+     */
+    public void unregister(ConcurrencyLockManager.LockHandle handle) {
+        leases.remove(handle);
+    }
+
+    /**
+     * 批量续期所有已登记的锁
+     */
+    void renewAll() {
+        if (leases.isEmpty() || !circuitBreaker.allowRequest()) {
+            return;
+        }
+
+        List<ConcurrencyLockManager.LockHandle> batchHandles = new ArrayList<>();
+        List<String> batchKeys = new ArrayList<>();
+        List<String> batchValues = new ArrayList<>();
+        try {
+            for (ConcurrencyLockManager.LockHandle handle : leases) {
+                batchHandles.add(handle);
+                for (String fullKey : handle.getFullKeys()) {
+                    batchKeys.add(fullKey);
+                    batchValues.add(handle.getHoldToken());
+                }
+                if (batchKeys.size() >= RENEW_BATCH_SIZE) {
+                    renewBatch(batchHandles, batchKeys, batchValues);
+                    batchHandles.clear();
+                    batchKeys.clear();
+                    batchValues.clear();
+                }
+            }
+            if (!batchKeys.isEmpty()) {
+                renewBatch(batchHandles, batchKeys, batchValues);
+            }
+            circuitBreaker.recordSuccess();
+        } catch (Exception e) {
+            // 续期失败时保留登记，冷却后继续尝试；锁会在租约到期后自然失效
+            circuitBreaker.recordFailure(lockConfig.getRedisCooldownMs(), e);
+        }
+    }
+
+    private void renewBatch(List<ConcurrencyLockManager.LockHandle> handles, List<String> keys, List<String> values) {
+        Long lost = renew(keys, values);
+        if (lost == null) {
+            return;
+        }
+        if (lost == 0L) {
+            totalRenewed.addAndGet(handles.size());
+            return;
+        }
+
+        // 批次中有键续期失败（少见）：逐个句柄重试，找出丢失租约的句柄（续期是幂等的）
+        for (ConcurrencyLockManager.LockHandle handle : handles) {
+            List<String> handleValues = new ArrayList<>();
+            for (int i = 0; i < handle.getFullKeys().size(); i++) {
+                handleValues.add(handle.getHoldToken());
+            }
+            Long handleLost = renew(handle.getFullKeys(), handleValues);
+            if (handleLost == null) {
+                continue;
+            }
+
+            // 同一轮中持有者可能已释放锁，只有仍在登记中的句柄才视为丢失
+            if (handleLost > 0 && leases.remove(handle)) {
+                handle.markLeaseLost();
+                totalLost.incrementAndGet();
+                logger.error("锁租约已丢失，锁键: {}", handle.getFullKeys());
+            } else if (handleLost == 0) {
+                totalRenewed.incrementAndGet();
+            }
+        }
+    }
+
+    private Long renew(List<String> keys, List<String> values) {
+        Object[] args = new Object[values.size() + 1];
+        args[0] = String.valueOf(lockConfig.getLeaseMs());
+        for (int i = 0; i < values.size(); i++) {
+            args[i + 1] = values.get(i);
+        }
+        return redisTemplate.execute(RENEW_SCRIPT, keys, args);
+    }
+
+    /**
+     * 当前续期中的锁数量
+     */
+    public int getActiveLeaseCount() {
+        return leases.size();
+    }
+
+    public long getTotalRenewed() {
+        return totalRenewed.get();
+    }
+
+    public long getTotalLost() {
+        return totalLost.get();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderArchiveConfig;
+import com.example.secondhand.entity.OrderArchiveCheckpoint;
+import com.example.secondhand.repository.ArchivedOrderRepository;
+import com.example.secondhand.repository.OrderArchiveCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单归档服务
+ * 将已完成或已取消且超过保留期限的订单及其订单项移入归档表，订单表只保留近期和进行中的订单。
+ * 按订单ID升序分批扫描，每批的复制、删除和检查点更新在同一事务中提交，中断后从检查点继续；
+ * 一轮扫描到表尾后检查点归零，下一轮从头扫描（较早创建但后来才进入终态的订单在下一轮归档）。
+ * 批次之间暂停，每次运行的批数有上限，避免长时间占用数据库
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    private static final String ARCHIVE_NAME = "orders";
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderArchiveCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderArchiveConfig orderArchiveConfig;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong archivedOrders = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong completedPasses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile LocalDateTime lastRunTime;
+
+    /**
+     * 定时归档
+     */
+    @Scheduled(fixedDelayString = "#{@orderArchiveConfig.intervalMs}")
+    public void scheduledArchive() {
+        if (!orderArchiveConfig.isEnabled()) {
+            return;
+        }
+        try {
+            archive();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.error("订单归档失败", e);
+        }
+    }
+
+    /**
+     * 执行一次归档：从检查点开始最多移动配置的批数
+     *
+     * @return 本次移动的订单数
+     */
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            logger.debug("订单归档正在运行，跳过本次");
+            return 0;
+        }
+        try {
+            lastRunTime = LocalDateTime.now();
+            LocalDateTime createdBefore = lastRunTime.minusDays(orderArchiveConfig.getMinAgeDays());
+            int chunkSize = Math.max(1, orderArchiveConfig.getChunkSize());
+            long lastOrderId = checkpointRepository.findById(ARCHIVE_NAME)
+                    .map(OrderArchiveCheckpoint::getLastOrderId)
+                    .orElse(0L);
+
+            int moved = 0;
+            for (int chunk = 0; chunk < orderArchiveConfig.getMaxChunksPerRun(); chunk++) {
+                List<Long> orderIds = archivedOrderRepository.findArchivableOrderIds(lastOrderId, createdBefore, chunkSize);
+                if (orderIds.isEmpty()) {
+                    finishPass();
+                    break;
+                }
+
+                long chunkLastOrderId = orderIds.get(orderIds.size() - 1);
+                Integer count = transactionTemplate.execute(status -> {
+                    int archived = archivedOrderRepository.moveToArchive(orderIds);
+                    checkpointRepository.save(new OrderArchiveCheckpoint(ARCHIVE_NAME, chunkLastOrderId));
+                    return archived;
+                });
+                moved += count != null ? count : 0;
+                lastOrderId = chunkLastOrderId;
+                chunks.incrementAndGet();
+
+                if (orderIds.size() < chunkSize) {
+                    finishPass();
+                    break;
+                }
+                if (!pause()) {
+                    break;
+                }
+            }
+
+            archivedOrders.addAndGet(moved);
+            if (moved > 0) {
+                logger.info("订单归档完成，本次移动订单数: {}, 检查点: {}", moved, lastOrderId);
+            }
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", orderArchiveConfig.isEnabled());
+        stats.put("running", running.get());
+        stats.put("archivedOrders", archivedOrders.get());
+        stats.put("chunks", chunks.get());
+        stats.put("completedPasses", completedPasses.get());
+        stats.put("failures", failures.get());
+        stats.put("lastRunTime", lastRunTime);
+        return stats;
+    }
+
+    /**
+     * 本轮扫描到表尾，检查点归零
+     */
+    private void finishPass() {
+        checkpointRepository.save(new OrderArchiveCheckpoint(ARCHIVE_NAME, 0L));
+        completedPasses.incrementAndGet();
+    }
+
+    private boolean pause() {
+        long pauseMs = orderArchiveConfig.getChunkPauseMs();
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
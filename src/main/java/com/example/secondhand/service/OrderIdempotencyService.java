@@ -0,0 +1,210 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderIdempotencyConfig;
+import com.example.secondhand.entity.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 下单幂等服务
+ * 客户端在请求头Idempotency-Key中携带幂等键，同一用户使用同一幂等键的重试只会创建一个订单：
+ * 首次请求在Redis中登记处理中状态后下单，成功后记录订单号；
+ * 重试时直接按订单号返回原订单，不再预占库存；原请求仍在处理时拒绝重试；下单失败时删除记录，允许重试
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdempotencyService.class);
+
+    private static final String KEY_PREFIX = "order_idem:";
+
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+
+    /**
+     * 登记幂等键：记录不存在时写入处理中状态和请求指纹，返回1；已存在返回0
+     * ARGV[1]为请求指纹，ARGV[2]为处理中记录有效期
+     */
+    private static final DefaultRedisScript<Long> BEGIN_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('hset', KEYS[1], 'status', '" + STATUS_PROCESSING + "', 'fingerprint', ARGV[1]) " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    /**
+     * 记录下单结果：状态、请求指纹、订单号和结果有效期一次写入
+     * ARGV[1]为请求指纹，ARGV[2]为订单ID，ARGV[3]为订单号，ARGV[4]为结果有效期
+     */
+    private static final DefaultRedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hset', KEYS[1], 'status', '" + STATUS_SUCCESS + "', 'fingerprint', ARGV[1], " +
+            "'orderId', ARGV[2], 'orderNo', ARGV[3]) " +
+            "redis.call('pexpire', KEYS[1], ARGV[4]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIdempotencyConfig orderIdempotencyConfig;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong inProgress = new AtomicLong();
+    private final AtomicLong mismatched = new AtomicLong();
+    private final AtomicLong redisErrors = new AtomicLong();
+
+    /**
+     * 按幂等键创建订单
+     *
+     * @param userId 用户ID
+     * @param idempotencyKey 幂等键，为空时不做幂等处理
+     * @param request 下单请求参数，用于识别同一幂等键是否用于不同请求
+     * @param creator 实际的下单流程
+     * @return 新创建的订单，或重试时返回原订单
+     */
+    public Order createOnce(Long userId, String idempotencyKey, Map<String, Object> request, Supplier<Order> creator) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return creator.get();
+        }
+        if (idempotencyKey.length() > orderIdempotencyConfig.getMaxKeyLength()) {
+            throw new RuntimeException("无效的幂等键");
+        }
+
+        String key = KEY_PREFIX + userId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        Long acquired;
+        try {
+            acquired = redisTemplate.execute(BEGIN_SCRIPT, List.of(key), fingerprint,
+                    String.valueOf(orderIdempotencyConfig.getProcessingTtlMs()));
+        } catch (Exception e) {
+            // Redis不可用时不阻塞下单，此时重试可能重复下单
+            redisErrors.incrementAndGet();
+            logger.warn("登记下单幂等键失败，按普通请求处理: key={}, {}", key, e.getMessage());
+            return creator.get();
+        }
+        if (acquired == null || acquired == 0L) {
+            return replay(key, fingerprint);
+        }
+
+        Order order;
+        try {
+            order = creator.get();
+        } catch (RuntimeException e) {
+            discard(key);
+            throw e;
+        }
+        created.incrementAndGet();
+        complete(key, fingerprint, order);
+        return order;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("created", created.get());
+        stats.put("replayed", replayed.get());
+        stats.put("inProgress", inProgress.get());
+        stats.put("mismatched", mismatched.get());
+        stats.put("redisErrors", redisErrors.get());
+        return stats;
+    }
+
+    /**
+     * 处理重试请求：返回原订单
+     */
+    private Order replay(String key, String fingerprint) {
+        Map<Object, Object> record = redisTemplate.opsForHash().entries(key);
+        if (record.isEmpty() || STATUS_PROCESSING.equals(record.get("status"))) {
+            // 记录为空说明原请求刚好失败或过期，同样让客户端稍后重试
+            inProgress.incrementAndGet();
+            throw new RuntimeException("订单正在处理中，请勿重复提交");
+        }
+        if (!fingerprint.equals(record.get("fingerprint"))) {
+            mismatched.incrementAndGet();
+            throw new RuntimeException("幂等键已用于其他下单请求");
+        }
+        replayed.incrementAndGet();
+        String orderNo = record.get("orderNo").toString();
+        logger.info("重复的下单请求，返回原订单: key={}, orderNo={}", key, orderNo);
+        return orderService.getOrderByOrderNo(orderNo)
+                .orElseThrow(() -> new RuntimeException("订单不存在"));
+    }
+
+    /**
+     * 记录下单结果，失败时处理中记录到期后重试会再次下单
+     */
+    private void complete(String key, String fingerprint, Order order) {
+        try {
+            redisTemplate.execute(COMPLETE_SCRIPT, List.of(key), fingerprint, String.valueOf(order.getId()),
+                    order.getOrderNo(), String.valueOf(orderIdempotencyConfig.getResultTtlMs()));
+        } catch (Exception e) {
+            redisErrors.incrementAndGet();
+            logger.warn("记录下单幂等结果失败: key={}, orderNo={}, {}", key, order.getOrderNo(), e.getMessage());
+        }
+    }
+
+    private void discard(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            redisErrors.incrementAndGet();
+            logger.warn("删除下单幂等键失败: key={}, {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 请求指纹：只取决定下单内容的字段，按固定顺序拼接后计算摘要
+     * 商品明细按内容排序，字段顺序、商品顺序或其他附加字段不同的重试视为同一请求
+     *
+     * @param request 下单请求参数
+     * @return 请求指纹
+     */
+    static String fingerprint(Map<String, Object> request) {
+        StringBuilder canonical = new StringBuilder();
+        for (String field : List.of("userId", "address", "phone", "remark")) {
+            Object value = request.get(field);
+            canonical.append(field).append('=').append(value != null ? value : "").append('\n');
+        }
+
+        List<String> items = new ArrayList<>();
+        if (request.get("cartItems") instanceof List<?> cartItems) {
+            for (Object item : cartItems) {
+                if (item instanceof Map<?, ?> cartItem) {
+                    items.add(cartItem.get("productId") + ":" + cartItem.get("quantity"));
+                }
+            }
+        }
+        Collections.sort(items);
+        canonical.append("cartItems=").append(items).append('\n');
+
+        List<String> productIds = new ArrayList<>();
+        if (request.get("productIds") instanceof List<?> ids) {
+            for (Object id : ids) {
+                productIds.add(String.valueOf(id));
+            }
+        }
+        Collections.sort(productIds);
+        canonical.append("productIds=").append(productIds);
+
+        return DigestUtils.md5DigestAsHex(canonical.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
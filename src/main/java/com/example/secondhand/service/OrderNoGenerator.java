@@ -0,0 +1,280 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderNoConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 订单号生成器
+ * 格式：ORD + 年月日时分秒毫秒(17位，UTC) + 节点号(3位) + 毫秒内序号(3位)，共26位
+ * 节点号固定配置或从Redis租用，保证同一时刻各实例的节点号不同；
+ * 毫秒时间和序号合并保存在一个AtomicLong中用CAS递增，发号不加锁也不访问数据库。
+ * 同一毫秒内序号用完或时钟回拨时沿用上次的时间继续递增（借用后续毫秒），发出的号码单调递增，不会重复。
+ * 旧格式订单号为20位（ORD + 14位时间 + 3位随机数），与新格式不会冲突
+ */
+@Component
+public class OrderNoGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNoGenerator.class);
+
+    private static final String PREFIX = "ORD";
+
+    // 每毫秒最多发出的序号数，订单号中固定占3位
+    private static final long SEQUENCE_RANGE = 1000L;
+
+    private static final String NODE_LEASE_KEY_PREFIX = "order_no:node:";
+
+    // 节点号最后一次续期时发号用到的时间，不过期，供下一个租用者判断从哪个时间开始发号
+    private static final String NODE_LAST_MS_KEY_SUFFIX = ":last_ms";
+
+    // 使用UTC：本地时区在夏令时结束时同一时刻会出现两次，不同毫秒会格式化成相同的时间
+    private static final DateTimeFormatter TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    /**
+     * 续期脚本：仍由本实例持有时延长租约并记录发号时间
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "  redis.call('set', KEYS[2], ARGV[3]) " +
+            "  return 1 " +
+            "end " +
+            "return 0", Long.class);
+
+    /**
+     * 释放脚本：记录发号时间后删除租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('set', KEYS[2], ARGV[2]) " +
+            "  redis.call('del', KEYS[1]) " +
+            "  return 1 " +
+            "end " +
+            "return 0", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private OrderNoConfig orderNoConfig;
+
+    // 毫秒时间 * SEQUENCE_RANGE + 序号
+    private final AtomicLong state = new AtomicLong();
+
+    private final String owner = UUID.randomUUID().toString();
+
+    // 当前节点号，小于0表示尚未取得
+    private volatile int nodeId = -1;
+
+    // 租用模式下本地判断的租约到期时间（System.nanoTime）
+    private volatile long leaseExpiresAtNanos;
+
+    // 时间来源，测试时可替换
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong clockBackwards = new AtomicLong();
+    private final AtomicLong maxBackwardMs = new AtomicLong();
+    private final AtomicLong nodeLeases = new AtomicLong();
+
+    /**
+     * 确定节点号；租用失败时不阻止启动，第一次发号时再租用
+     */
+    @PostConstruct
+    public void start() {
+        if (orderNoConfig.isNodeIdConfigured()) {
+            if (orderNoConfig.getNodeId() >= OrderNoConfig.MAX_NODE_ID) {
+                throw new IllegalStateException("订单号节点号超出范围: " + orderNoConfig.getNodeId());
+            }
+            nodeId = orderNoConfig.getNodeId();
+            logger.info("订单号生成器使用配置的节点号: {}", nodeId);
+            return;
+        }
+        try {
+            leaseNode();
+        } catch (Exception e) {
+            logger.warn("启动时租用订单号节点号失败，将在发号时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 释放租用的节点号，并记录已用到的时间
+     */
+    @PreDestroy
+    public void shutdown() {
+        int current = nodeId;
+        if (orderNoConfig.isNodeIdConfigured() || current < 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(current), lastMsKey(current)),
+                    owner, String.valueOf(lastIssuedMs()));
+        } catch (Exception e) {
+            logger.warn("释放订单号节点号失败，等待租约过期: node={}, {}", current, e.getMessage());
+        }
+    }
+
+    /**
+     * 生成订单号
+     *
+     * @return 订单号
+     */
+    public String nextOrderNo() {
+        // 先读节点号再递增时间序号：切换节点号时先抬高时间再发布新节点号，新节点号不会配上旧的时间
+        int node = currentNodeId();
+        long now = clock.getAsLong();
+        long next;
+        while (true) {
+            long prev = state.get();
+            long prevMs = prev / SEQUENCE_RANGE;
+            // 时间前进时序号从0开始；同一毫秒或时钟回拨时递增，序号用完自然进位到下一毫秒
+            next = now > prevMs ? now * SEQUENCE_RANGE : prev + 1;
+            if (state.compareAndSet(prev, next)) {
+                if (now < prevMs) {
+                    recordClockBackward(prevMs - now);
+                }
+                break;
+            }
+        }
+        generated.incrementAndGet();
+        long ms = next / SEQUENCE_RANGE;
+        long sequence = next % SEQUENCE_RANGE;
+        return String.format("%s%s%03d%03d", PREFIX, TIME_FORMATTER.format(Instant.ofEpochMilli(ms)), node, sequence);
+    }
+
+    /**
+     * 续期节点号租约；租约已被其他实例占用时改租新的节点号
+     */
+    @Scheduled(fixedDelayString = "#{@orderNoConfig.leaseRenewIntervalMs}")
+    public synchronized void renewLease() {
+        if (orderNoConfig.isNodeIdConfigured()) {
+            return;
+        }
+        try {
+            int current = nodeId;
+            if (current < 0) {
+                leaseNode();
+                return;
+            }
+            long renewStart = System.nanoTime();
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(leaseKey(current), lastMsKey(current)),
+                    owner, String.valueOf(orderNoConfig.getLeaseTtlMs()), String.valueOf(lastIssuedMs()));
+            if (renewed != null && renewed == 1L) {
+                leaseExpiresAtNanos = renewStart + TimeUnit.MILLISECONDS.toNanos(orderNoConfig.getLeaseTtlMs());
+            } else {
+                logger.warn("订单号节点号租约已失效，重新租用: node={}", current);
+                leaseNode();
+            }
+        } catch (Exception e) {
+            // 续期失败时在本地租约到期前继续使用当前节点号
+            logger.warn("续期订单号节点号租约失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("nodeIdConfigured", orderNoConfig.isNodeIdConfigured());
+        stats.put("generated", generated.get());
+        stats.put("lastIssuedMs", lastIssuedMs());
+        stats.put("clockBackwards", clockBackwards.get());
+        stats.put("maxBackwardMs", maxBackwardMs.get());
+        stats.put("nodeLeases", nodeLeases.get());
+        return stats;
+    }
+
+    private int currentNodeId() {
+        int node = nodeId;
+        if (orderNoConfig.isNodeIdConfigured()) {
+            return node;
+        }
+        if (node < 0 || System.nanoTime() - leaseExpiresAtNanos >= 0) {
+            // 租约在本地已到期，其他实例可能已租走该节点号，必须先续租成功才能发号
+            synchronized (this) {
+                node = nodeId;
+                if (node < 0 || System.nanoTime() - leaseExpiresAtNanos >= 0) {
+                    try {
+                        leaseNode();
+                    } catch (Exception e) {
+                        throw new RuntimeException("订单号节点号租约已过期且无法续租: " + e.getMessage(), e);
+                    }
+                    node = nodeId;
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 从随机位置开始依次尝试租用空闲的节点号
+     */
+    private synchronized void leaseNode() {
+        long ttlMs = orderNoConfig.getLeaseTtlMs();
+        int start = ThreadLocalRandom.current().nextInt(OrderNoConfig.MAX_NODE_ID);
+        for (int i = 0; i < OrderNoConfig.MAX_NODE_ID; i++) {
+            int candidate = (start + i) % OrderNoConfig.MAX_NODE_ID;
+            long leaseStart = System.nanoTime();
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(leaseKey(candidate), owner, ttlMs, TimeUnit.MILLISECONDS);
+            if (!Boolean.TRUE.equals(acquired)) {
+                continue;
+            }
+            // 上一个持有者在本地租约到期前可能一直在发号，从它记录的时间再往后一个租约时长开始，
+            // 同时也避免重启后时钟回拨导致与自己之前发出的号码重复
+            String lastMs = redisTemplate.opsForValue().get(lastMsKey(candidate));
+            if (lastMs != null) {
+                long startMs = Long.parseLong(lastMs) + ttlMs;
+                state.accumulateAndGet(startMs * SEQUENCE_RANGE, Math::max);
+            }
+            leaseExpiresAtNanos = leaseStart + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+            nodeId = candidate;
+            nodeLeases.incrementAndGet();
+            logger.info("租用订单号节点号: {}", candidate);
+            return;
+        }
+        throw new RuntimeException("没有可用的订单号节点号");
+    }
+
+    private void recordClockBackward(long backwardMs) {
+        clockBackwards.incrementAndGet();
+        maxBackwardMs.accumulateAndGet(backwardMs, Math::max);
+        if (backwardMs > 1000L) {
+            logger.warn("检测到时钟回拨{}ms，订单号沿用上次时间继续发号", backwardMs);
+        }
+    }
+
+    private long lastIssuedMs() {
+        return state.get() / SEQUENCE_RANGE;
+    }
+
+    private static String leaseKey(int node) {
+        return NODE_LEASE_KEY_PREFIX + node;
+    }
+
+    private static String lastMsKey(int node) {
+        return NODE_LEASE_KEY_PREFIX + node + NODE_LAST_MS_KEY_SUFFIX;
+    }
+}
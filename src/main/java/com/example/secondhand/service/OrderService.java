@@ -1,31 +1,48 @@
 package com.example.secondhand.service;
 
+import com.example.secondhand.common.CursorPage;
+import com.example.secondhand.entity.ArchivedOrder;
 import com.example.secondhand.entity.Cart;
 import com.example.secondhand.entity.Order;
 import com.example.secondhand.entity.OrderItem;
 import com.example.secondhand.entity.Product;
+import com.example.secondhand.entity.SellerOrderIndex;
 import com.example.secondhand.entity.User;
 import com.example.secondhand.entity.TimeoutTask;
+import com.example.secondhand.repository.ArchivedOrderRepository;
 import com.example.secondhand.repository.CartRepository;
 import com.example.secondhand.repository.OrderRepository;
 import com.example.secondhand.repository.OrderItemRepository;
+import com.example.secondhand.event.OrderStatusChangedEvent;
 import com.example.secondhand.repository.ProductRepository;
+import com.example.secondhand.repository.SellerOrderIndexRepository;
 import com.example.secondhand.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class OrderService {
 
+    // 游标分页每页最多条数
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // 按订单ID加载订单时每批的ID数量
+    private static final int LOAD_BATCH_SIZE = 1000;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -50,6 +67,21 @@ public class OrderService {
     @Autowired
     private OrderTimeoutService orderTimeoutService;
 
+    @Autowired
+    private OrderNoGenerator orderNoGenerator;
+
+    @Autowired
+    private SellerOrderIndexRepository sellerOrderIndexRepository;
+
+    @Autowired
+    private SellerOrderIndexService sellerOrderIndexService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
     /**
      * 创建订单（支持前端购物车）
      * @param userId 用户ID
@@ -72,21 +104,33 @@ public class OrderService {
         // 2. 创建订单项列表用于库存管理
         List<OrderItem> orderItems = new ArrayList<>();
         BigDecimal totalAmount = BigDecimal.ZERO;
+        boolean inventoryReserved = false;
         
-        // 3. 创建订单
-        String orderNo = Order.generateOrderNo();
+        // 3. 创建订单（总金额确定后与订单项一起保存）
+        String orderNo = orderNoGenerator.nextOrderNo();
         Order order = new Order(orderNo, userId, user.getUsername(), totalAmount, address, phone, remark);
-        order = orderRepository.save(order);
 
         try {
-            // 4. 验证商品并创建订单项
+            // 4. 一次查询加载购物车中的所有商品
+            List<Long> productIds = new ArrayList<>(cartItems.size());
             for (Map<String, Object> item : cartItems) {
-                Long productId = Long.valueOf(item.get("productId").toString());
-                Integer quantity = Integer.valueOf(item.get("quantity").toString());
+                productIds.add(Long.valueOf(item.get("productId").toString()));
+            }
+            Map<Long, Product> products = new HashMap<>();
+            for (Product product : productRepository.findAllById(productIds)) {
+                products.put(product.getId(), product);
+            }
+
+            // 5. 验证商品并创建订单项
+            for (int i = 0; i < cartItems.size(); i++) {
+                Long productId = productIds.get(i);
+                Integer quantity = Integer.valueOf(cartItems.get(i).get("quantity").toString());
                 
                 // 验证商品存在且可购买
-                Product product = productRepository.findById(productId)
-                        .orElseThrow(() -> new RuntimeException("商品不存在: " + productId));
+                Product product = products.get(productId);
+                if (product == null) {
+                    throw new RuntimeException("商品不存在: " + productId);
+                }
                 
                 if (product.getStatus() != 1) {
                     throw new RuntimeException("商品已下架: " + product.getName());
@@ -110,19 +154,18 @@ public class OrderService {
                 totalAmount = totalAmount.add(itemTotal);
             }
 
-            // 5. 使用库存服务预扣库存（包含并发控制）
+            // 6. 使用库存服务预扣库存（包含并发控制）
             if (!inventoryService.reserveInventory(orderItems)) {
                 throw new RuntimeException("商品库存不足");
             }
+            inventoryReserved = true;
 
-            // 6. 保存订单项
-            for (OrderItem orderItem : orderItems) {
-                orderItemRepository.save(orderItem);
-            }
-
-            // 7. 更新订单总金额
+            // 7. 保存订单及订单项（订单项批量插入）
             order.setTotalAmount(totalAmount);
             order = orderRepository.save(order);
+            orderItemRepository.saveAll(orderItems);
+            sellerOrderIndexService.indexOrder(order, orderItems);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, null));
 
             // 8. 调度订单超时任务（15分钟后自动取消）
             try {
@@ -136,8 +179,8 @@ public class OrderService {
             return order;
             
         } catch (Exception e) {
-            // 如果订单创建失败，恢复库存
-            if (!orderItems.isEmpty()) {
+            // 如果订单创建失败，恢复库存（仅在预扣成功后恢复，Redis库存不随事务回滚）
+            if (inventoryReserved) {
                 try {
                     inventoryService.restoreInventory(orderItems);
                 } catch (Exception restoreException) {
@@ -177,11 +220,12 @@ public class OrderService {
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
 
             // 4. 创建订单
-            String orderNo = Order.generateOrderNo();
+            String orderNo = orderNoGenerator.nextOrderNo();
             Order order = new Order(orderNo, userId, user.getUsername(), totalAmount, address, phone, remark);
             order = orderRepository.save(order);
 
             // 5. 创建订单项
+            List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
             for (Cart cartItem : cartItems) {
                 OrderItem orderItem = new OrderItem(
                     order,
@@ -194,7 +238,10 @@ public class OrderService {
                     cartItem.getSellerName()
                 );
                 orderItemRepository.save(orderItem);
+                orderItems.add(orderItem);
             }
+            sellerOrderIndexService.indexOrder(order, orderItems);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, null));
 
             // 6. 清空购物车中已购买的商品
             cartRepository.deleteByUserIdAndProductIdIn(userId, productIds);
@@ -234,7 +281,46 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public List<Order> getSellerOrders(Long sellerId) {
-        return orderRepository.findSellerOrders(sellerId);
+        return loadInOrder(sellerOrderIndexRepository.findOrderIds(sellerId, null),
+                ids -> orderRepository.findWithSellerItemsByIdIn(ids, sellerId), Order::getId);
+    }
+
+    /**
+     * 游标分页获取买家的历史（已归档）订单列表
+     * @param buyerId 买家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 归档订单分页
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ArchivedOrder> getBuyerOrderHistoryPage(Long buyerId, Order.OrderStatus status, String cursor, int size) {
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Pageable limit = PageRequest.of(0, pageSize(size) + 1);
+        List<ArchivedOrder> orders = position == null
+                ? archivedOrderRepository.findBuyerOrderPage(buyerId, status, limit)
+                : archivedOrderRepository.findBuyerOrderPageAfter(buyerId, status, position.getCreateTime(), position.getId(), limit);
+        return toPage(orders, pageSize(size), ArchivedOrder::getId, ArchivedOrder::getCreateTime,
+                archivedOrderRepository::findWithItemsByIdIn, ArchivedOrder::getId);
+    }
+
+    /**
+     * 游标分页获取卖家的历史（已归档）销售订单列表（订单项只包含该卖家的商品）
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 归档订单分页
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ArchivedOrder> getSellerOrderHistoryPage(Long sellerId, Order.OrderStatus status, String cursor, int size) {
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Pageable limit = PageRequest.of(0, pageSize(size) + 1);
+        List<ArchivedOrder> orders = position == null
+                ? archivedOrderRepository.findSellerOrderPage(sellerId, status, limit)
+                : archivedOrderRepository.findSellerOrderPageAfter(sellerId, status, position.getCreateTime(), position.getId(), limit);
+        return toPage(orders, pageSize(size), ArchivedOrder::getId, ArchivedOrder::getCreateTime,
+                ids -> archivedOrderRepository.findWithSellerItemsByIdIn(ids, sellerId), ArchivedOrder::getId);
     }
 
     /**
@@ -245,7 +331,90 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public List<Order> getSellerOrdersByStatus(Long sellerId, Order.OrderStatus status) {
-        return orderRepository.findSellerOrdersByStatus(sellerId, status);
+        return loadInOrder(sellerOrderIndexRepository.findOrderIds(sellerId, status),
+                ids -> orderRepository.findWithSellerItemsByIdIn(ids, sellerId), Order::getId);
+    }
+
+    /**
+     * 游标分页获取买家订单列表
+     * 先按（创建时间, ID）倒序取一页订单，再用一次查询加载这一页的订单项
+     * @param buyerId 买家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 订单分页
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getBuyerOrderPage(Long buyerId, Order.OrderStatus status, String cursor, int size) {
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Pageable limit = PageRequest.of(0, pageSize(size) + 1);
+        List<Order> orders = position == null
+                ? orderRepository.findBuyerOrderPage(buyerId, status, limit)
+                : orderRepository.findBuyerOrderPageAfter(buyerId, status, position.getCreateTime(), position.getId(), limit);
+        return toPage(orders, pageSize(size), Order::getId, Order::getCreateTime, orderRepository::findWithItemsByIdIn,
+                Order::getId);
+    }
+
+    /**
+     * 游标分页获取卖家销售订单列表（订单项只包含该卖家的商品）
+     * 分页在卖家订单索引上完成，再按页内订单ID加载订单和订单项
+     * @param sellerId 卖家ID
+     * @param status 订单状态，为空表示全部
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 订单分页
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getSellerOrderPage(Long sellerId, Order.OrderStatus status, String cursor, int size) {
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Pageable limit = PageRequest.of(0, pageSize(size) + 1);
+        List<SellerOrderIndex> rows = position == null
+                ? sellerOrderIndexRepository.findPage(sellerId, status, limit)
+                : sellerOrderIndexRepository.findPageAfter(sellerId, status, position.getCreateTime(), position.getId(), limit);
+        return toPage(rows, pageSize(size), SellerOrderIndex::getOrderId, SellerOrderIndex::getCreateTime,
+                ids -> orderRepository.findWithSellerItemsByIdIn(ids, sellerId), Order::getId);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * 多取的一条只用来判断是否还有下一页；订单及订单项按页内订单ID批量加载
+     */
+    private <T, R> CursorPage<R> toPage(List<T> rows, int size, Function<T, Long> orderIdOf,
+                                        Function<T, LocalDateTime> createTimeOf,
+                                        Function<List<Long>, List<R>> orderLoader, Function<R, Long> loadedIdOf) {
+        boolean hasMore = rows.size() > size;
+        List<T> page = hasMore ? rows.subList(0, size) : rows;
+        if (page.isEmpty()) {
+            return new CursorPage<>(List.of(), null, false);
+        }
+        List<Long> ids = page.stream().map(orderIdOf).toList();
+        T last = page.get(page.size() - 1);
+        String nextCursor = hasMore ? CursorPage.encodeCursor(createTimeOf.apply(last), orderIdOf.apply(last)) : null;
+        return new CursorPage<>(loadInOrder(ids, orderLoader, loadedIdOf), nextCursor, hasMore);
+    }
+
+    /**
+     * 按给定的订单ID顺序分批加载订单
+     */
+    private static <R> List<R> loadInOrder(List<Long> ids, Function<List<Long>, List<R>> orderLoader,
+                                           Function<R, Long> loadedIdOf) {
+        Map<Long, R> orders = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            for (R order : orderLoader.apply(ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size())))) {
+                orders.put(loadedIdOf.apply(order), order);
+            }
+        }
+        List<R> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            R order = orders.get(id);
+            if (order != null) {
+                ordered.add(order);
+            }
+        }
+        return ordered;
     }
 
     /**
@@ -261,7 +430,7 @@ public class OrderService {
 
         // 验证权限：只有买家或卖家可以查看订单详情
         boolean isBuyer = order.getBuyerId().equals(userId);
-        boolean isSeller = orderRepository.existsByIdAndSellerId(orderId, userId);
+        boolean isSeller = sellerOrderIndexRepository.existsBySellerIdAndOrderId(userId, orderId);
         
         if (!isBuyer && !isSeller) {
             throw new RuntimeException("无权限查看此订单");
@@ -270,6 +439,29 @@ public class OrderService {
         return order;
     }
 
+    /**
+     * 获取历史（已归档）订单详情
+     * @param orderId 订单ID
+     * @param userId 用户ID（用于权限验证）
+     * @return 归档订单详情
+     */
+    @Transactional(readOnly = true)
+    public ArchivedOrder getArchivedOrderDetail(Long orderId, Long userId) {
+        ArchivedOrder order = archivedOrderRepository.findWithItemsByIdIn(List.of(orderId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("订单不存在"));
+
+        // 验证权限：只有买家或卖家可以查看订单详情
+        boolean isBuyer = order.getBuyerId().equals(userId);
+        boolean isSeller = archivedOrderRepository.existsSellerItem(orderId, userId);
+
+        if (!isBuyer && !isSeller) {
+            throw new RuntimeException("无权限查看此订单");
+        }
+
+        return order;
+    }
+
     /**
      * 取消订单
      * @param orderId 订单ID
@@ -301,8 +493,10 @@ public class OrderService {
             }
 
             // 更新订单状态
+            Order.OrderStatus previousStatus = order.getStatus();
             order.setStatus(Order.OrderStatus.CANCELLED);
             Order savedOrder = orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
 
             // 取消相关的超时任务
             try {
@@ -339,8 +533,11 @@ public class OrderService {
             throw new RuntimeException("订单状态不允许确认收货");
         }
 
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.COMPLETED);
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
+        return savedOrder;
     }
 
     /**
@@ -354,7 +551,7 @@ public class OrderService {
                 .orElseThrow(() -> new RuntimeException("订单不存在"));
 
         // 验证权限：只有卖家可以发货
-        if (!orderRepository.existsByIdAndSellerId(orderId, sellerId)) {
+        if (!sellerOrderIndexRepository.existsBySellerIdAndOrderId(sellerId, orderId)) {
             throw new RuntimeException("无权限操作此订单");
         }
 
@@ -363,8 +560,11 @@ public class OrderService {
             throw new RuntimeException("订单状态不允许发货");
         }
 
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.SHIPPING);
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
+        return savedOrder;
     }
 
     /**
@@ -405,7 +605,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public long countSellerOrders(Long sellerId) {
-        return orderRepository.countSellerOrders(sellerId);
+        return sellerOrderIndexRepository.countBySellerId(sellerId);
     }
 
     /**
@@ -416,7 +616,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public long countSellerOrdersByStatus(Long sellerId, Order.OrderStatus status) {
-        return orderRepository.countSellerOrdersByStatus(sellerId, status);
+        return sellerOrderIndexRepository.countBySellerIdAndStatus(sellerId, status);
     }
 
     /**
@@ -454,7 +654,7 @@ public class OrderService {
         } else {
             // 买家或卖家都可以
             return orderRepository.existsByIdAndBuyerId(orderId, userId) ||
-                   orderRepository.existsByIdAndSellerId(orderId, userId);
+                   sellerOrderIndexRepository.existsBySellerIdAndOrderId(userId, orderId);
         }
     }
 
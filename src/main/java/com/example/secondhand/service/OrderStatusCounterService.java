@@ -0,0 +1,251 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderCounterConfig;
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.event.OrderStatusChangedEvent;
+import com.example.secondhand.repository.ArchivedOrderRepository;
+import com.example.secondhand.repository.OrderRepository;
+import com.example.secondhand.repository.SellerOrderIndexRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 订单状态计数服务
+ * 按用户在Redis哈希中缓存各状态的订单数量（买家、卖家各一个哈希），查询计数只需一次HGETALL；
+ * 订单创建和状态变更提交后按原状态减一、新状态加一。
+ * 计数不存在时不做增减，首次查询时从数据库按状态分组统计一次后写入；
+ * 统计与状态变更交错时计数可能偏差（包括统计已包含某次变更、写入后才收到该变更的调整），
+ * 这类计数记入待修复集合，由修复任务删除后重新统计，
+ * 计数同时设置有效期，进程在提交后、更新计数前退出造成的偏差在过期后自动纠正。
+ * 统计时包含已归档的订单，归档不改变计数
+ */
+@Service
+public class OrderStatusCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCounterService.class);
+
+    private static final String BUYER_KEY_PREFIX = "order_count:buyer:";
+    private static final String SELLER_KEY_PREFIX = "order_count:seller:";
+    private static final String DIRTY_KEY = "order_count:dirty";
+    private static final String LOADED_SUFFIX = ":loaded";
+
+    /**
+     * 调整计数：KEYS[1]为待修复集合，其后依次为计数哈希及其刚统计标记；ARGV[1]原状态（新建订单为空），ARGV[2]新状态
+     * 计数不存在时不创建，只记入待修复集合（可能正在从数据库统计）；
+     * 计数刚从数据库统计写入时照常调整，同时记入待修复集合（统计结果可能已包含本次变更）
+     */
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #KEYS, 2 do " +
+            "  if redis.call('exists', KEYS[i]) == 1 then " +
+            "    if ARGV[1] ~= '' then redis.call('hincrby', KEYS[i], ARGV[1], -1) end " +
+            "    redis.call('hincrby', KEYS[i], ARGV[2], 1) " +
+            "    if redis.call('exists', KEYS[i + 1]) == 1 then redis.call('sadd', KEYS[1], KEYS[i]) end " +
+            "  else " +
+            "    redis.call('sadd', KEYS[1], KEYS[i]) " +
+            "  end " +
+            "end " +
+            "return (#KEYS - 1) / 2", Long.class);
+
+    /**
+     * 写入统计结果：计数不存在时才写入，并设置刚统计标记；KEYS[1]为计数哈希，KEYS[2]为刚统计标记，
+     * ARGV[1]为有效期，ARGV[2]为标记有效期，其后为状态和数量
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+            "for i = 3, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+            "redis.call('set', KEYS[2], '1', 'PX', ARGV[2]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SellerOrderIndexRepository sellerOrderIndexRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderCounterConfig orderCounterConfig;
+
+    // Redis不可用时未能更新的计数，Redis恢复后由修复任务删除
+    private final Set<String> pendingRepairs = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong adjustments = new AtomicLong();
+    private final AtomicLong repairs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * 获取买家各状态的订单数量
+     *
+     * @param buyerId 买家ID
+     * @return 状态 -> 数量（包含所有状态）
+     */
+    public Map<Order.OrderStatus, Long> getBuyerCounts(Long buyerId) {
+        return getCounts(BUYER_KEY_PREFIX + buyerId, () -> concat(orderRepository.countByBuyerIdGroupByStatus(buyerId),
+                archivedOrderRepository.countByBuyerIdGroupByStatus(buyerId)));
+    }
+
+    /**
+     * 获取卖家各状态的销售订单数量
+     *
+     * @param sellerId 卖家ID
+     * @return 状态 -> 数量（包含所有状态）
+     */
+    public Map<Order.OrderStatus, Long> getSellerCounts(Long sellerId) {
+        return getCounts(SELLER_KEY_PREFIX + sellerId, () -> concat(sellerOrderIndexRepository.countBySellerIdGroupByStatus(sellerId),
+                archivedOrderRepository.countBySellerIdGroupByStatus(sellerId)));
+    }
+
+    /**
+     * 订单创建或状态变更提交后调整计数
+     *
+     * @param event 订单状态变更事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getPreviousStatus() == event.getStatus()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(DIRTY_KEY);
+        addCounterKeys(keys, BUYER_KEY_PREFIX + event.getBuyerId());
+        for (Long sellerId : sellerOrderIndexRepository.findSellerIdsByOrderId(event.getOrderId())) {
+            addCounterKeys(keys, SELLER_KEY_PREFIX + sellerId);
+        }
+        String previous = event.getPreviousStatus() != null ? event.getPreviousStatus().name() : "";
+        try {
+            redisTemplate.execute(ADJUST_SCRIPT, keys, previous, event.getStatus().name());
+            adjustments.incrementAndGet();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            for (int i = 1; i < keys.size(); i += 2) {
+                pendingRepairs.add(keys.get(i));
+            }
+            logger.warn("更新订单状态计数失败，等待修复: orderId={}, {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 修复可能偏差的计数：删除后由下次查询重新统计
+     */
+    @Scheduled(fixedDelayString = "#{@orderCounterConfig.repairIntervalMs}")
+    public void repair() {
+        try {
+            List<String> keys = new ArrayList<>(pendingRepairs);
+            List<String> dirty = redisTemplate.opsForSet().pop(DIRTY_KEY, orderCounterConfig.getRepairBatchSize());
+            if (dirty != null) {
+                keys.addAll(dirty);
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            redisTemplate.delete(keys);
+            keys.forEach(pendingRepairs::remove);
+            repairs.addAndGet(keys.size());
+            logger.debug("已修复订单状态计数: {}个", keys.size());
+        } catch (Exception e) {
+            logger.warn("修复订单状态计数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long loadCount = loads.get();
+        stats.put("hits", hitCount);
+        stats.put("loads", loadCount);
+        stats.put("hitRate", hitCount + loadCount > 0 ? (double) hitCount / (hitCount + loadCount) : 0.0);
+        stats.put("adjustments", adjustments.get());
+        stats.put("repairs", repairs.get());
+        stats.put("failures", failures.get());
+        stats.put("pendingRepairs", pendingRepairs.size());
+        return stats;
+    }
+
+    private Map<Order.OrderStatus, Long> getCounts(String key, Supplier<List<Object[]>> loader) {
+        try {
+            Map<Object, Object> cached = redisTemplate.opsForHash().entries(key);
+            if (!cached.isEmpty()) {
+                hits.incrementAndGet();
+                Map<Order.OrderStatus, Long> counts = emptyCounts();
+                cached.forEach((status, count) ->
+                        counts.put(Order.OrderStatus.valueOf(status.toString()), Long.parseLong(count.toString())));
+                return counts;
+            }
+        } catch (Exception e) {
+            logger.warn("读取订单状态计数失败，从数据库统计: key={}, {}", key, e.getMessage());
+            return toCounts(loader.get());
+        }
+
+        loads.incrementAndGet();
+        Map<Order.OrderStatus, Long> counts = toCounts(loader.get());
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(orderCounterConfig.getTtlMs()));
+        args.add(String.valueOf(orderCounterConfig.getLoadGraceMs()));
+        // 数量为0的状态也写入，保证计数哈希非空
+        counts.forEach((status, count) -> {
+            args.add(status.name());
+            args.add(String.valueOf(count));
+        });
+        try {
+            redisTemplate.execute(LOAD_SCRIPT, List.of(key, key + LOADED_SUFFIX), args.toArray());
+        } catch (Exception e) {
+            logger.warn("写入订单状态计数失败: key={}, {}", key, e.getMessage());
+        }
+        return counts;
+    }
+
+    private static void addCounterKeys(List<String> keys, String key) {
+        keys.add(key);
+        keys.add(key + LOADED_SUFFIX);
+    }
+
+    private static Map<Order.OrderStatus, Long> toCounts(List<Object[]> rows) {
+        Map<Order.OrderStatus, Long> counts = emptyCounts();
+        for (Object[] row : rows) {
+            counts.merge((Order.OrderStatus) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+        return counts;
+    }
+
+    private static List<Object[]> concat(List<Object[]> live, List<Object[]> archived) {
+        List<Object[]> rows = new ArrayList<>(live);
+        rows.addAll(archived);
+        return rows;
+    }
+
+    private static Map<Order.OrderStatus, Long> emptyCounts() {
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderSubmitConfig;
+import com.example.secondhand.entity.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步下单服务
+ * 请求线程只做参数校验和入队，立即返回下单凭证；
+ * 下单请求按商品（购物车中最小的商品ID）分配到固定的处理线程，同一商品的下单不会在多个线程间争抢锁，
+ * 处理线程每次取出一批请求，按商品分组后依次调用准入控制和下单流程。
+ * 下单结果保存在Redis中，任意实例都能查询；在受理的实例上查询时可以等待结果
+ */
+@Service
+public class OrderSubmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSubmissionService.class);
+
+    private static final String TICKET_KEY_PREFIX = "order_ticket:";
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Autowired
+    private FlashSaleAdmissionService flashSaleAdmissionService;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private OrderSubmitConfig orderSubmitConfig;
+
+    @Autowired
+    @Qualifier("orderSubmitExecutor")
+    private Executor orderSubmitExecutor;
+
+    // 本实例受理的下单凭证
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private List<Worker> workers = List.of();
+
+    // 停止受理新的下单请求
+    private volatile boolean stopping;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedTickets = new AtomicLong();
+
+    /**
+     * 在异步下单线程池中启动处理循环
+     */
+    @PostConstruct
+    public void start() {
+        int threads = Math.max(1, orderSubmitConfig.getWorkerThreads());
+        int capacity = Math.max(1, orderSubmitConfig.getQueueCapacity() / threads);
+        List<Worker> started = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(capacity);
+            orderSubmitExecutor.execute(worker);
+            started.add(worker);
+        }
+        workers = started;
+        logger.info("异步下单处理线程已启动，线程数: {}, 每线程队列容量: {}", threads, capacity);
+    }
+
+    /**
+     * 停止受理新请求，等待处理循环处理完队列中的请求；超时仍未处理的请求标记为失败
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        for (Worker worker : workers) {
+            worker.running = false;
+        }
+
+        long deadline = System.currentTimeMillis() + orderSubmitConfig.getShutdownDrainMs();
+        try {
+            for (Worker worker : workers) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !worker.finished.await(remaining, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Worker worker : workers) {
+            List<Ticket> pending = new ArrayList<>();
+            worker.queue.drainTo(pending);
+            for (Ticket ticket : pending) {
+                complete(ticket, STATUS_FAILED, "服务正在停止，请重新下单");
+            }
+        }
+    }
+
+    /**
+     * 提交下单请求
+     *
+     * @param userId 用户ID
+     * @param cartItems 购物车商品信息（包含商品ID和数量）
+     * @param address 收货地址
+     * @param phone 联系电话
+     * @param remark 备注信息
+     * @return 下单凭证ID
+     */
+    public String submit(Long userId, List<Map<String, Object>> cartItems, String address, String phone, String remark) {
+        if (!orderSubmitConfig.isEnabled()) {
+            throw new RuntimeException("异步下单未启用");
+        }
+        if (stopping) {
+            throw new RuntimeException("服务正在停止，请稍后再试");
+        }
+        long productKey = productKey(cartItems);
+        Ticket ticket = new Ticket(UUID.randomUUID().toString().replace("-", ""), userId, productKey,
+                cartItems, address, phone, remark);
+        Worker worker = workers.get(Math.floorMod(productKey, workers.size()));
+
+        // 先登记再入队，避免处理完成的结果被排队状态覆盖
+        tickets.put(ticket.ticketId, ticket);
+        save(ticket);
+        if (!worker.queue.offer(ticket)) {
+            tickets.remove(ticket.ticketId);
+            discard(ticket);
+            rejected.incrementAndGet();
+            throw new RuntimeException("下单人数过多，请稍后再试");
+        }
+        submitted.incrementAndGet();
+        return ticket.ticketId;
+    }
+
+    /**
+     * 查询下单结果
+     *
+     * @param ticketId 下单凭证ID
+     * @return 下单结果，凭证不存在或已过期时返回null
+     */
+    public Map<String, Object> getTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket != null) {
+            return ticket.toView();
+        }
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(TICKET_KEY_PREFIX + ticketId);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("ticketId", ticketId);
+        view.put("userId", Long.valueOf(entries.get("userId").toString()));
+        view.put("status", entries.get("status"));
+        view.put("orderId", entries.containsKey("orderId") ? Long.valueOf(entries.get("orderId").toString()) : null);
+        view.put("orderNo", entries.get("orderNo"));
+        view.put("message", entries.get("message"));
+        return view;
+    }
+
+    /**
+     * 等待本实例受理的下单请求完成
+     *
+     * @param ticketId 下单凭证ID
+     * @return 完成时给出下单结果；凭证不是本实例受理的返回null
+     */
+    public CompletableFuture<Map<String, Object>> watch(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        return ticket != null ? ticket.completion : null;
+    }
+
+    /**
+     * 清理已过期的本地凭证
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredTickets() {
+        long expireBefore = System.currentTimeMillis() - orderSubmitConfig.getResultTtlMs();
+        tickets.values().removeIf(ticket -> ticket.completion.isDone() && ticket.finishTime < expireBefore);
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", orderSubmitConfig.isEnabled());
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        long batchCount = batches.get();
+        stats.put("batches", batchCount);
+        stats.put("avgBatchSize", batchCount > 0 ? (double) batchedTickets.get() / batchCount : 0.0);
+        List<Integer> queued = new ArrayList<>();
+        for (Worker worker : workers) {
+            queued.add(worker.queue.size());
+        }
+        stats.put("queued", queued);
+        stats.put("localTickets", tickets.size());
+        return stats;
+    }
+
+    /**
+     * 处理一批下单请求：同一商品的请求连续处理
+     */
+    private void processBatch(List<Ticket> batch) {
+        batches.incrementAndGet();
+        batchedTickets.addAndGet(batch.size());
+        Map<Long, List<Ticket>> groups = new LinkedHashMap<>();
+        for (Ticket ticket : batch) {
+            groups.computeIfAbsent(ticket.productKey, key -> new ArrayList<>()).add(ticket);
+        }
+        for (List<Ticket> group : groups.values()) {
+            for (Ticket ticket : group) {
+                process(ticket);
+            }
+        }
+    }
+
+    private void process(Ticket ticket) {
+        ticket.status = STATUS_PROCESSING;
+        try {
+            Order order = flashSaleAdmissionService.createOrder(ticket.userId, ticket.cartItems,
+                    ticket.address, ticket.phone, ticket.remark);
+            ticket.orderId = order.getId();
+            ticket.orderNo = order.getOrderNo();
+            succeeded.incrementAndGet();
+            complete(ticket, STATUS_SUCCESS, null);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            complete(ticket, STATUS_FAILED, e.getMessage());
+        }
+    }
+
+    private void complete(Ticket ticket, String status, String message) {
+        ticket.status = status;
+        ticket.message = message;
+        ticket.finishTime = System.currentTimeMillis();
+        save(ticket);
+        ticket.completion.complete(ticket.toView());
+    }
+
+    /**
+     * 保存凭证状态到Redis，失败时只能在本实例查询
+     */
+    private void save(Ticket ticket) {
+        String key = TICKET_KEY_PREFIX + ticket.ticketId;
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("userId", String.valueOf(ticket.userId));
+        fields.put("status", ticket.status);
+        if (ticket.orderId != null) {
+            fields.put("orderId", String.valueOf(ticket.orderId));
+            fields.put("orderNo", ticket.orderNo);
+        }
+        if (ticket.message != null) {
+            fields.put("message", ticket.message);
+        }
+        try {
+            redisTemplate.opsForHash().putAll(key, fields);
+            redisTemplate.expire(key, orderSubmitConfig.getResultTtlMs(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("保存下单凭证失败，仅本实例可查询: ticketId={}, {}", ticket.ticketId, e.getMessage());
+        }
+    }
+
+    private void discard(Ticket ticket) {
+        try {
+            redisTemplate.delete(TICKET_KEY_PREFIX + ticket.ticketId);
+        } catch (Exception e) {
+            logger.warn("删除下单凭证失败: ticketId={}, {}", ticket.ticketId, e.getMessage());
+        }
+    }
+
+    /**
+     * 分组用的商品键：购物车中最小的商品ID
+     */
+    private static long productKey(List<Map<String, Object>> cartItems) {
+        long key = Long.MAX_VALUE;
+        for (Map<String, Object> item : cartItems) {
+            key = Math.min(key, Long.parseLong(item.get("productId").toString()));
+        }
+        return key;
+    }
+
+    /**
+     * 处理循环：每次取出一批请求；停止时处理完队列中剩余的请求再退出
+     */
+    private class Worker implements Runnable {
+        private final BlockingQueue<Ticket> queue;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean running = true;
+
+        private Worker(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            int batchSize = Math.max(1, orderSubmitConfig.getBatchSize());
+            try {
+                while (true) {
+                    Ticket first = running ? queue.poll(200, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (first == null) {
+                        if (!running) {
+                            return;
+                        }
+                        continue;
+                    }
+                    List<Ticket> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    try {
+                        processBatch(batch);
+                    } catch (Exception e) {
+                        logger.error("处理异步下单请求失败", e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    /**
+     * 下单凭证
+     */
+    private static class Ticket {
+        private final String ticketId;
+        private final Long userId;
+        private final long productKey;
+        private final List<Map<String, Object>> cartItems;
+        private final String address;
+        private final String phone;
+        private final String remark;
+        private final CompletableFuture<Map<String, Object>> completion = new CompletableFuture<>();
+        private volatile String status = STATUS_QUEUED;
+        private volatile Long orderId;
+        private volatile String orderNo;
+        private volatile String message;
+        private volatile long finishTime;
+
+        private Ticket(String ticketId, Long userId, long productKey, List<Map<String, Object>> cartItems,
+                       String address, String phone, String remark) {
+            this.ticketId = ticketId;
+            this.userId = userId;
+            this.productKey = productKey;
+            this.cartItems = cartItems;
+            this.address = address;
+            this.phone = phone;
+            this.remark = remark;
+        }
+
+        private Map<String, Object> toView() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("ticketId", ticketId);
+            view.put("userId", userId);
+            view.put("status", status);
+            view.put("orderId", orderId);
+            view.put("orderNo", orderNo);
+            view.put("message", message);
+            return view;
+        }
+    }
+}
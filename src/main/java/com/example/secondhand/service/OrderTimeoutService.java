@@ -4,11 +4,13 @@ import com.example.secondhand.entity.Order;
 import com.example.secondhand.entity.OrderItem;
 import com.example.secondhand.entity.PaymentOrder;
 import com.example.secondhand.entity.TimeoutTask;
+import com.example.secondhand.event.OrderStatusChangedEvent;
 import com.example.secondhand.repository.OrderRepository;
 import com.example.secondhand.repository.OrderItemRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,6 +41,9 @@ public class OrderTimeoutService {
     @Lazy
     private TimeoutTaskManager timeoutTaskManager;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 为新订单调度超时任务
      * @param orderNo 订单号
@@ -358,8 +363,10 @@ public class OrderTimeoutService {
                         
                         // 如果订单已支付但状态仍是待付款，更新为待发货
                         if (order.getStatus() == Order.OrderStatus.PENDING_PAYMENT) {
+                            Order.OrderStatus previousStatus = order.getStatus();
                             order.setStatus(Order.OrderStatus.PENDING_SHIPMENT);
                             orderRepository.save(order);
+                            eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
                             logger.info("订单超时处理时发现已支付，已更新状态为待发货: orderNo={}", orderNo);
                         }
                         
@@ -380,8 +387,10 @@ public class OrderTimeoutService {
             }
 
             // 更新订单状态为已取消
+            Order.OrderStatus previousStatus = order.getStatus();
             order.setStatus(Order.OrderStatus.CANCELLED);
             orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
 
             logger.info("订单超时自动取消成功: orderNo={}, 创建时间={}, 取消时间={}, 恢复库存商品数={}", 
                 orderNo, order.getCreateTime(), LocalDateTime.now(), orderItems.size());
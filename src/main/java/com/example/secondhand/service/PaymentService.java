@@ -17,6 +17,7 @@ import com.example.secondhand.repository.PaymentLogRepository;
 import com.example.secondhand.repository.ProductRepository;
 import com.example.secondhand.repository.OrderItemRepository;
 import com.alibaba.fastjson.JSON;
+import com.example.secondhand.event.OrderStatusChangedEvent;
 import com.example.secondhand.event.PaymentSuccessEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
@@ -330,8 +331,10 @@ public class PaymentService {
                     // 只有在待付款状态时才更新为待发货，如果已经是已取消状态则恢复
                     if (order.getStatus() == Order.OrderStatus.PENDING_PAYMENT || 
                         order.getStatus() == Order.OrderStatus.CANCELLED) {
+                        Order.OrderStatus previousStatus = order.getStatus();
                         order.setStatus(Order.OrderStatus.PENDING_SHIPMENT);
                         orderRepository.save(order);
+                        eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
                         
                         // 🔥 支付成功后发布事件，取消订单超时任务，防止竞态条件
                         publishPaymentSuccessEvent(orderNo, alipayTradeNo, tradeStatus);
@@ -684,8 +687,10 @@ public class PaymentService {
             // 🔥 修复：支付成功时，无论当前状态是什么都更新为待发货（防止超时任务已经取消了订单）
             if (order.getStatus() == Order.OrderStatus.PENDING_PAYMENT || 
                 order.getStatus() == Order.OrderStatus.CANCELLED) {
+                Order.OrderStatus previousStatus = order.getStatus();
                 order.setStatus(Order.OrderStatus.PENDING_SHIPMENT); // 支付成功后更新为待发货状态
                 orderRepository.save(order);
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
                 
                 // 🔥 支付成功后发布事件，取消订单超时任务
                 publishPaymentSuccessEvent(paymentOrder.getOrderNo(), paymentOrder.getAlipayTradeNo(), "TRADE_SUCCESS");
@@ -879,8 +884,10 @@ public class PaymentService {
                     .orElseThrow(() -> new RuntimeException("订单不存在"));
             
             if (order.getStatus() == Order.OrderStatus.PENDING_PAYMENT) {
+                Order.OrderStatus previousStatus = order.getStatus();
                 order.setStatus(Order.OrderStatus.PENDING_SHIPMENT); // 支付成功后改为待发货状态
                 orderRepository.save(order);
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, previousStatus));
                 
                 PaymentLog.info(orderNo, PaymentLog.LogOperation.ORDER_UPDATE, 
                     "支付成功后订单状态已更新为待发货");
@@ -0,0 +1,92 @@
+package com.example.secondhand.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis熔断器
+ * Redis调用失败后在冷却时间内不再访问Redis，避免每个请求都等待Redis超时；
+ * 冷却结束后只放行一个探测请求，探测成功则恢复，失败则重新进入冷却
+ */
+public class RedisCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    private final String name;
+
+    private final AtomicBoolean open = new AtomicBoolean(false);
+    private final AtomicBoolean probing = new AtomicBoolean(false);
+    private volatile long openUntil;
+
+    private final AtomicLong modeSwitches = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public RedisCircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 是否允许访问Redis
+     *
+     * @return 熔断关闭或本次为冷却后的探测请求时返回true
+     */
+    public boolean allowRequest() {
+        if (!open.get()) {
+            return true;
+        }
+        if (System.currentTimeMillis() >= openUntil && probing.compareAndSet(false, true)) {
+            return true;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录Redis调用成功
+     */
+    public void recordSuccess() {
+        if (!open.get()) {
+            return;
+        }
+        probing.set(false);
+        if (open.compareAndSet(true, false)) {
+            modeSwitches.incrementAndGet();
+            logger.warn("Redis已恢复，{}切换回Redis模式，熔断期间跳过Redis调用次数: {}", name, rejectedCalls.get());
+        }
+    }
+
+    /**
+     * 记录Redis调用失败
+     *
+     * @param cooldownMs 冷却时间（毫秒）
+     * @param e 异常
+     */
+    public void recordFailure(long cooldownMs, Exception e) {
+        openUntil = System.currentTimeMillis() + cooldownMs;
+        probing.set(false);
+        if (open.compareAndSet(false, true)) {
+            modeSwitches.incrementAndGet();
+            logger.error("Redis不可用，{}切换为本地降级模式，冷却时间: {}ms", name, cooldownMs, e);
+        } else {
+            logger.debug("Redis探测失败，{}继续保持降级模式", name);
+        }
+    }
+
+    /**
+     * 是否处于熔断（降级）状态
+     */
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    public long getModeSwitches() {
+        return modeSwitches.get();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+}
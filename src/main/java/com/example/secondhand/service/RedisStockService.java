@@ -0,0 +1,393 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis库存计数器服务
+ * 将商品库存预加载到Redis计数器中，通过Lua脚本一次性原子地检查并扣减整单所有商品，
+ * 扣减结果异步持久化到MySQL（或开启写回合并后写入增量日志批量落库），并由定时对账发现两者之间的偏差
+ */
+@Service
+public class RedisStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStockService.class);
+
+    private static final String STOCK_PREFIX = "stock:product:";
+
+    // 预扣Lua脚本：先检查全部商品，全部充足后再统一扣减
+    // KEYS[1]为增量日志，KEYS[2..]为库存计数器；ARGV[1]为日志内容（为空表示不写日志），ARGV[2..]为扣减数量
+    // 返回 0 表示成功；返回 i 表示第i个商品库存不足；返回 -i 表示第i个商品计数器未加载
+    private static final DefaultRedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+        "for i = 2, #KEYS do " +
+        "    local stock = redis.call('get', KEYS[i]) " +
+        "    if not stock then return -(i - 1) end " +
+        "    if tonumber(stock) < tonumber(ARGV[i]) then return i - 1 end " +
+        "end " +
+        "for i = 2, #KEYS do " +
+        "    redis.call('decrby', KEYS[i], ARGV[i]) " +
+        "end " +
+        "if ARGV[1] ~= '' then redis.call('xadd', KEYS[1], '*', 'd', ARGV[1]) end " +
+        "return 0", Long.class);
+
+    // 恢复Lua脚本：先检查全部计数器已加载，再统一加回库存
+    // 参数布局与预扣脚本相同；返回 0 表示成功；返回 -i 表示第i个商品计数器未加载（不做任何修改）
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+        "for i = 2, #KEYS do " +
+        "    if redis.call('exists', KEYS[i]) == 0 then return -(i - 1) end " +
+        "end " +
+        "for i = 2, #KEYS do " +
+        "    redis.call('incrby', KEYS[i], ARGV[i]) " +
+        "end " +
+        "if ARGV[1] ~= '' then redis.call('xadd', KEYS[1], '*', 'd', ARGV[1]) end " +
+        "return 0", Long.class);
+
+    // 调整Lua脚本：计数器已加载时按增量调整，未加载时不处理（下次预扣时从MySQL加载）
+    // 返回 1 表示已调整，0 表示计数器未加载
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+        "redis.call('incrby', KEYS[1], ARGV[1]) " +
+        "return 1", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    @Qualifier("stockPersistExecutor")
+    private Executor stockPersistExecutor;
+
+    @Autowired
+    private InventoryWriteBehindService writeBehindService;
+
+    // 正在异步持久化的增量数（商品ID -> 数量），对账时跳过存在未落库增量的商品
+    private final ConcurrentHashMap<Long, AtomicInteger> inflightPersists = new ConcurrentHashMap<>();
+
+    // 本节点提交的持久化任务总数，用于对账时判断读取期间是否有新的扣减
+    private final AtomicLong persistSequence = new AtomicLong();
+
+    // 本节点操作过的商品，定时对账只检查这些商品
+    private final Set<Long> trackedProducts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 原子预扣整单库存
+     *
+     * @param quantities 商品ID -> 扣减数量
+     * @return 是否预扣成功（任一商品不足则全部不扣减）
+     */
+    public boolean reserve(Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        boolean writeBehind = writeBehindService.isEnabled();
+        List<String> keys = toScriptKeys(productIds);
+        Object[] args = toScriptArgs(productIds, quantities, writeBehind, -1);
+
+        // 计数器未加载时从MySQL加载后重试一次
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Long result = redisTemplate.execute(RESERVE_SCRIPT, keys, args);
+            if (result == null) {
+                throw new IllegalStateException("Redis预扣脚本返回空结果");
+            }
+
+            if (result == 0L) {
+                trackedProducts.addAll(productIds);
+                afterChange(quantities, writeBehind, -1);
+                return true;
+            }
+
+            if (result > 0) {
+                Long productId = productIds.get(result.intValue() - 1);
+                logger.warn("Redis库存不足，商品ID: {}, 需要数量: {}", productId, quantities.get(productId));
+                return false;
+            }
+
+            preload(productIds);
+        }
+
+        logger.error("Redis库存计数器加载失败，商品ID: {}", productIds);
+        return false;
+    }
+
+    /**
+     * 恢复库存（加回Redis计数器并异步持久化或写入增量日志）
+     *
+     * @param quantities 商品ID -> 恢复数量
+     */
+    public void restore(Map<Long, Integer> quantities) {
+        Map<Long, Integer> pending = new LinkedHashMap<>(quantities);
+        boolean writeBehind = writeBehindService.isEnabled();
+        boolean preloaded = false;
+
+        // 与预扣相同，计数器未加载时先从MySQL加载再加回，Redis和MySQL都记入这次恢复
+        while (!pending.isEmpty()) {
+            List<Long> productIds = new ArrayList<>(pending.keySet());
+            Long result = redisTemplate.execute(RESTORE_SCRIPT, toScriptKeys(productIds),
+                    toScriptArgs(productIds, pending, writeBehind, 1));
+            if (result == null) {
+                throw new IllegalStateException("Redis恢复脚本返回空结果");
+            }
+
+            if (result == 0L) {
+                trackedProducts.addAll(productIds);
+                afterChange(pending, writeBehind, 1);
+                return;
+            }
+
+            if (!preloaded) {
+                preload(productIds);
+                preloaded = true;
+                continue;
+            }
+
+            // 加载后仍未加载说明商品已不存在，跳过该商品
+            Long productId = productIds.get(-result.intValue() - 1);
+            logger.error("商品不存在，无法恢复库存，商品ID: {}", productId);
+            pending.remove(productId);
+        }
+    }
+
+    /**
+     * 按增量调整已加载的Redis库存计数器（商品库存在后台被直接修改时调用）
+     * 增量为修改前后MySQL库存的差值，计数器中尚未落库的扣减不受影响；计数器未加载时下次预扣从MySQL加载
+     *
+     * @param productId 商品ID
+     * @param delta 库存增量
+     */
+    public void adjustLoaded(Long productId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(ADJUST_SCRIPT, Collections.singletonList(STOCK_PREFIX + productId),
+                    String.valueOf(delta));
+        } catch (Exception e) {
+            logger.error("调整Redis库存计数器失败，商品ID: {}, 增量: {}", productId, delta, e);
+        }
+    }
+
+    /**
+     * 获取Redis中的商品库存
+     *
+     * @param productId 商品ID
+     * @return 库存数量，计数器未加载时返回null
+     */
+    public Integer getStock(Long productId) {
+        String value = redisTemplate.opsForValue().get(STOCK_PREFIX + productId);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * 批量获取Redis中的商品库存（一次MGET读取）
+     *
+     * @param productIds 商品ID列表
+     * @return 商品ID -> 库存数量，只包含已加载计数器的商品
+     */
+    public Map<Long, Integer> getStocks(List<Long> productIds) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        List<String> values = redisTemplate.opsForValue().multiGet(toKeys(productIds));
+        if (values == null) {
+            return stocks;
+        }
+        for (int i = 0; i < productIds.size(); i++) {
+            if (values.get(i) != null) {
+                stocks.put(productIds.get(i), Integer.valueOf(values.get(i)));
+            }
+        }
+        return stocks;
+    }
+
+    /**
+     * 本节点提交的持久化任务总数，两次读取之间不变说明本节点没有新的库存变更
+     */
+    public long getPersistSequence() {
+        return persistSequence.get();
+    }
+
+    /**
+     * 商品是否存在尚未落库的异步持久化增量
+     *
+     * @param productId 商品ID
+     */
+    public boolean isPersistPending(Long productId) {
+        AtomicInteger inflight = inflightPersists.get(productId);
+        return inflight != null && inflight.get() > 0;
+    }
+
+    /**
+     * 从MySQL加载库存到Redis计数器（已存在的计数器不会被覆盖）
+     *
+     * @param productIds 商品ID列表
+     */
+    public void preload(Collection<Long> productIds) {
+        for (Object[] row : productRepository.findQuantitiesByIds(new ArrayList<>(productIds))) {
+            Long productId = (Long) row[0];
+            Integer quantity = (Integer) row[1];
+            redisTemplate.opsForValue().setIfAbsent(STOCK_PREFIX + productId, String.valueOf(quantity));
+        }
+        trackedProducts.addAll(productIds);
+    }
+
+    /**
+     * 计数器变更后的持久化：写回合并模式下增量已在脚本中写入日志，否则逐条异步持久化
+     */
+    private void afterChange(Map<Long, Integer> quantities, boolean writeBehind, int sign) {
+        if (writeBehind) {
+            writeBehindService.onAppended();
+        } else {
+            persistAsync(quantities, sign);
+        }
+    }
+
+    /**
+     * 异步持久化库存增量到MySQL
+     *
+     * @param quantities 商品ID -> 数量
+     * @param sign 扣减为-1，恢复为1
+     */
+    private void persistAsync(Map<Long, Integer> quantities, int sign) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            int delta = sign * entry.getValue();
+
+            inflightPersists.computeIfAbsent(productId, id -> new AtomicInteger()).incrementAndGet();
+            persistSequence.incrementAndGet();
+
+            try {
+                stockPersistExecutor.execute(() -> {
+                    try {
+                        productRepository.adjustQuantity(productId, delta);
+                    } catch (Exception e) {
+                        // 持久化失败时MySQL与Redis出现偏差，由定时对账发现
+                        logger.error("库存异步持久化失败，商品ID: {}, 增量: {}", productId, delta, e);
+                    } finally {
+                        inflightPersists.get(productId).decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 线程池已关闭，增量未提交
+                inflightPersists.get(productId).decrementAndGet();
+                logger.error("库存异步持久化提交失败，商品ID: {}, 增量: {}", productId, delta, e);
+            }
+        }
+    }
+
+    /**
+     * 定时对账：Redis计数器为准，修复MySQL中的库存偏差
+     * 仅检查没有未落库增量的商品，读取期间发生新扣减时跳过本轮；
+     * 逐条异步持久化时看不到其他节点的在途增量，只报告偏差，开启写回合并后才自动修复
+     */
+    @Scheduled(fixedDelayString = "#{@inventoryConfig.reconcileIntervalMs}")
+    public void reconcile() {
+        if (trackedProducts.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 写回合并模式下日志中存在未落库增量时MySQL本就落后于Redis，跳过本轮
+            if (writeBehindService.isEnabled() && writeBehindService.hasPendingEntries()) {
+                return;
+            }
+
+            long sequenceBefore = persistSequence.get();
+            List<Long> candidates = new ArrayList<>();
+            for (Long productId : trackedProducts) {
+                AtomicInteger inflight = inflightPersists.get(productId);
+                if (inflight == null || inflight.get() == 0) {
+                    candidates.add(productId);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+
+            List<String> redisValues = redisTemplate.opsForValue().multiGet(toKeys(candidates));
+            List<Object[]> rows = productRepository.findQuantitiesByIds(candidates);
+            if (persistSequence.get() != sequenceBefore || redisValues == null
+                    || (writeBehindService.isEnabled() && writeBehindService.hasPendingEntries())) {
+                logger.debug("对账期间存在新的库存变更，跳过本轮对账");
+                return;
+            }
+
+            Map<Long, Integer> dbQuantities = new HashMap<>();
+            for (Object[] row : rows) {
+                dbQuantities.put((Long) row[0], (Integer) row[1]);
+            }
+
+            boolean repair = writeBehindService.isEnabled();
+            int repaired = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                Long productId = candidates.get(i);
+                String redisValue = redisValues.get(i);
+                Integer dbQuantity = dbQuantities.get(productId);
+
+                if (redisValue == null || dbQuantity == null) {
+                    // 计数器已失效或商品已删除，不再跟踪
+                    trackedProducts.remove(productId);
+                    continue;
+                }
+
+                Integer redisQuantity = Integer.valueOf(redisValue);
+                if (!redisQuantity.equals(dbQuantity) && !repair) {
+                    logger.warn("发现库存偏差（未开启写回合并，不自动修复），商品ID: {}, MySQL库存: {}, Redis库存: {}",
+                              productId, dbQuantity, redisQuantity);
+                } else if (!redisQuantity.equals(dbQuantity)
+                        && productRepository.compareAndSetQuantity(productId, dbQuantity, redisQuantity) > 0) {
+                    repaired++;
+                    logger.warn("修复库存偏差，商品ID: {}, MySQL库存: {}, Redis库存: {}",
+                              productId, dbQuantity, redisQuantity);
+                }
+            }
+
+            if (repaired > 0) {
+                logger.info("Redis库存对账完成，检查商品数: {}, 修复商品数: {}", candidates.size(), repaired);
+            }
+        } catch (Exception e) {
+            logger.error("Redis库存对账失败", e);
+        }
+    }
+
+    private List<String> toScriptKeys(List<Long> productIds) {
+        List<String> keys = new ArrayList<>(productIds.size() + 1);
+        keys.add(InventoryWriteBehindService.JOURNAL_KEY);
+        keys.addAll(toKeys(productIds));
+        return keys;
+    }
+
+    private Object[] toScriptArgs(List<Long> productIds, Map<Long, Integer> quantities, boolean writeBehind, int sign) {
+        Object[] args = new Object[productIds.size() + 1];
+        args[0] = writeBehind ? InventoryWriteBehindService.encodeDeltas(quantities, sign) : "";
+        for (int i = 0; i < productIds.size(); i++) {
+            args[i + 1] = String.valueOf(quantities.get(productIds.get(i)));
+        }
+        return args;
+    }
+
+    private List<String> toKeys(List<Long> productIds) {
+        List<String> keys = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            keys.add(STOCK_PREFIX + productId);
+        }
+        return keys;
+    }
+}
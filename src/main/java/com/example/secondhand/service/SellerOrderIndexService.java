@@ -0,0 +1,60 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.entity.OrderItem;
+import com.example.secondhand.entity.SellerOrderIndex;
+import com.example.secondhand.event.OrderStatusChangedEvent;
+import com.example.secondhand.repository.SellerOrderIndexRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 卖家订单索引维护服务
+ * 订单创建时按订单项中的卖家写入索引，订单状态变更事件在同一事务中同步更新索引中的状态，
+ * 订单和索引要么一起提交要么一起回滚
+ */
+@Service
+public class SellerOrderIndexService {
+
+    @Autowired
+    private SellerOrderIndexRepository sellerOrderIndexRepository;
+
+    /**
+     * 为新订单写入卖家索引（每个卖家一行）
+     *
+     * @param order 已保存的订单
+     * @param items 订单项
+     */
+    public void indexOrder(Order order, List<OrderItem> items) {
+        Set<Long> sellerIds = new LinkedHashSet<>();
+        for (OrderItem item : items) {
+            sellerIds.add(item.getSellerId());
+        }
+        List<SellerOrderIndex> rows = new ArrayList<>(sellerIds.size());
+        for (Long sellerId : sellerIds) {
+            rows.add(new SellerOrderIndex(sellerId, order));
+        }
+        sellerOrderIndexRepository.saveAll(rows);
+    }
+
+    /**
+     * 同步订单状态到卖家索引（新建订单的索引由indexOrder写入）
+     *
+     * @param event 订单状态变更事件
+     */
+    @EventListener
+    @Transactional
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.isCreated()) {
+            return;
+        }
+        sellerOrderIndexRepository.updateStatus(event.getOrderId(), event.getStatus());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.secondhand.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 频繁项草图
+ * 用固定数量的计数器近似统计出现次数最多的键：键已被跟踪时计数加一，
+ * 否则在计数器未满时新增，已满时替换计数最小的键（新键继承最小计数并记为误差上界）。
+ * 只在发生争用时记录，使用简单的同步即可
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 记录一次出现
+     *
+     * @param key 键
+     */
+    public synchronized void offer(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(key, 1, 0));
+            return;
+        }
+
+        Counter min = null;
+        for (Counter candidate : counters.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        counters.remove(min.key);
+        counters.put(key, new Counter(key, min.count + 1, min.count));
+    }
+
+    /**
+     * 获取出现次数最多的前k个键
+     *
+     * @param k 数量
+     * @return 按计数降序排列的键
+     */
+    public synchronized List<Entry> top(int k) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            entries.add(new Entry(counter.key, counter.count, counter.error));
+        }
+        entries.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+
+    private static class Counter {
+        private final String key;
+        private long count;
+        private final long error;
+
+        private Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 频繁项
+     */
+    public static class Entry {
+        private final String key;
+        private final long count;
+        private final long error;
+
+        public Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        // Getter 方法
+        public String getKey() { return key; }
+        public long getCount() { return count; }
+
+        /**
+         * 计数的最大高估值，count - error 为真实次数的下界
+         */
+        public long getError() { return error; }
+    }
+}
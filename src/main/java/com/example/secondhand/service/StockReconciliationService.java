@@ -0,0 +1,365 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis库存计数器全量对账服务
+ * 按商品ID键集分页扫描整个商品表，每块商品的Redis计数器用一次MGET读取，统计MySQL与Redis之间的偏差；
+ * 偏差需经过二次读取确认（排除正在落库的增量），开启写回合并时可选择以Redis为准自动修复。
+ * 扫描按每秒块数限速，多节点部署时同一时刻只有一个节点扫描
+ */
+@Service
+public class StockReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReconciliationService.class);
+
+    // 多节点部署时保证同一时刻只有一个节点扫描，锁由看门狗续期
+    private static final String SCAN_LOCK_KEY = "stock_full_reconcile";
+
+    // 每次扫描保留的偏差样本数
+    private static final int MAX_DRIFT_SAMPLES = 20;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private RedisStockService redisStockService;
+
+    @Autowired
+    private HotStockService hotStockService;
+
+    @Autowired
+    private InventoryWriteBehindService writeBehindService;
+
+    @Autowired
+    private ConcurrencyLockManager lockManager;
+
+    @Autowired
+    private InventoryConfig inventoryConfig;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile ScanReport currentScan;
+    private volatile ScanReport lastScan;
+
+    private final AtomicLong completedScans = new AtomicLong();
+    private final AtomicLong totalRepaired = new AtomicLong();
+
+    /**
+     * 定时全量对账（仅Redis库存计数器模式）
+     */
+    @Scheduled(initialDelayString = "#{@inventoryConfig.fullReconcileIntervalMs}",
+               fixedDelayString = "#{@inventoryConfig.fullReconcileIntervalMs}")
+    public void scheduledScan() {
+        if (!inventoryConfig.isRedisMode() || !inventoryConfig.isFullReconcileEnabled()) {
+            return;
+        }
+        scan();
+    }
+
+    /**
+     * 执行一次全量对账
+     *
+     * @return 扫描报告，已有扫描在进行时返回null
+     */
+    public ScanReport scan() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+
+        ConcurrencyLockManager.LockHandle lockHandle = null;
+        try {
+            lockHandle = lockManager.tryLeasedLocks(Collections.singletonList(SCAN_LOCK_KEY), Duration.ZERO);
+            if (lockHandle == null) {
+                logger.debug("其他节点正在执行库存全量对账，跳过本轮");
+                return null;
+            }
+
+            Long maxId = productRepository.findMaxId();
+            ScanReport report = new ScanReport(maxId != null ? maxId : 0L, isAutoRepairAllowed());
+            currentScan = report;
+            int chunkSize = inventoryConfig.getFullReconcileChunkSize();
+            long lastId = 0L;
+
+            while (true) {
+                if (lockHandle.isLeaseLost()) {
+                    logger.warn("库存全量对账锁租约已丢失，停止扫描，已扫描到商品ID: {}", lastId);
+                    report.aborted = true;
+                    break;
+                }
+
+                long chunkStart = System.nanoTime();
+                List<Object[]> rows = productRepository.findQuantitiesAfterId(lastId, PageRequest.of(0, chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+
+                int drifted = reconcileChunk(rows, report);
+                report.chunks++;
+                report.lastProductId = lastId;
+                logger.debug("库存全量对账进度: {}%, 块: {}, 扫描到商品ID: {}, 本块偏差: {}",
+                           String.format("%.1f", report.getProgressPercent()), report.chunks, lastId, drifted);
+
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+                throttle(chunkStart);
+            }
+
+            report.finish();
+            lastScan = report;
+            completedScans.incrementAndGet();
+            totalRepaired.addAndGet(report.repaired);
+            if (report.drifted > 0 || report.unsettled > 0) {
+                logger.warn("库存全量对账完成，扫描商品数: {}, 确认偏差: {}, 未稳定: {}, 修复: {}, 最大偏差: {}",
+                          report.scanned, report.drifted, report.unsettled, report.repaired, report.maxAbsDrift);
+            } else {
+                logger.info("库存全量对账完成，扫描商品数: {}, 块数: {}, 未发现偏差", report.scanned, report.chunks);
+            }
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("库存全量对账被中断");
+            return null;
+        } catch (Exception e) {
+            logger.error("库存全量对账失败", e);
+            return null;
+        } finally {
+            currentScan = null;
+            if (lockHandle != null) {
+                lockManager.releaseLocks(lockHandle);
+            }
+            running.set(false);
+        }
+    }
+
+    /**
+     * 是否允许自动修复
+     * 只有写回合并的增量日志在全集群可见，日志为空时MySQL不会再收到未落库的增量；
+     * 逐条异步持久化时只能看到本节点的在途增量，其他节点的增量落库后会与修复叠加，因此只报告偏差
+     */
+    private boolean isAutoRepairAllowed() {
+        if (!inventoryConfig.isFullReconcileAutoRepair()) {
+            return false;
+        }
+        if (!writeBehindService.isEnabled()) {
+            logger.warn("未开启库存写回合并，全量对账只报告偏差不自动修复");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 对账一块商品
+     *
+     * @param rows [商品ID, MySQL库存]
+     * @param report 扫描报告
+     * @return 本块确认的偏差数
+     */
+    int reconcileChunk(List<Object[]> rows, ScanReport report) {
+        List<Long> productIds = new ArrayList<>(rows.size());
+        Map<Long, Integer> dbQuantities = new HashMap<>();
+        for (Object[] row : rows) {
+            productIds.add((Long) row[0]);
+            dbQuantities.put((Long) row[0], (Integer) row[1]);
+        }
+        report.scanned += productIds.size();
+
+        long sequenceBefore = redisStockService.getPersistSequence();
+        Map<Long, Integer> redisQuantities = redisStockService.getStocks(productIds);
+        report.missingCounters += productIds.size() - redisQuantities.size();
+
+        // 热门商品的库存在分片上，未加载计数器的商品下次预扣时从MySQL加载，均不属于偏差
+        List<Long> candidates = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : redisQuantities.entrySet()) {
+            Long productId = entry.getKey();
+            if (!entry.getValue().equals(dbQuantities.get(productId)) && !hotStockService.isHot(productId)
+                    && !redisStockService.isPersistPending(productId)) {
+                candidates.add(productId);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // 二次读取确认：两次读取期间没有新的库存变更、没有未落库的日志，且两边数值都未变化才视为偏差
+        Map<Long, Integer> dbRecheck = new HashMap<>();
+        for (Object[] row : productRepository.findQuantitiesByIds(candidates)) {
+            dbRecheck.put((Long) row[0], (Integer) row[1]);
+        }
+        Map<Long, Integer> redisRecheck = redisStockService.getStocks(candidates);
+        boolean settled = redisStockService.getPersistSequence() == sequenceBefore
+            && !(writeBehindService.isEnabled() && writeBehindService.hasPendingEntries());
+
+        int drifted = 0;
+        for (Long productId : candidates) {
+            Integer dbQuantity = dbQuantities.get(productId);
+            Integer redisQuantity = redisQuantities.get(productId);
+            if (!settled || !dbQuantity.equals(dbRecheck.get(productId))
+                    || !redisQuantity.equals(redisRecheck.get(productId))) {
+                report.unsettled++;
+                continue;
+            }
+
+            drifted++;
+            report.recordDrift(productId, dbQuantity, redisQuantity);
+            if (report.autoRepair
+                    && productRepository.compareAndSetQuantity(productId, dbQuantity, redisQuantity) > 0) {
+                report.repaired++;
+                logger.warn("修复库存偏差，商品ID: {}, MySQL库存: {}, Redis库存: {}",
+                          productId, dbQuantity, redisQuantity);
+            }
+        }
+        return drifted;
+    }
+
+    /**
+     * 按每秒最多块数限速，给结算流量让出数据库和Redis
+     */
+    private void throttle(long chunkStartNanos) throws InterruptedException {
+        int maxChunksPerSecond = inventoryConfig.getFullReconcileMaxChunksPerSecond();
+        if (maxChunksPerSecond <= 0) {
+            return;
+        }
+        long minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / maxChunksPerSecond;
+        long remaining = minIntervalNanos - (System.nanoTime() - chunkStartNanos);
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    /**
+     * 获取对账统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", inventoryConfig.isRedisMode() && inventoryConfig.isFullReconcileEnabled());
+        stats.put("running", running.get());
+        stats.put("completedScans", completedScans.get());
+        stats.put("totalRepaired", totalRepaired.get());
+        stats.put("currentScan", currentScan);
+        stats.put("lastScan", lastScan);
+        return stats;
+    }
+
+    /**
+     * 扫描报告（扫描进行中时作为进度）
+     */
+    public static class ScanReport {
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final long maxProductId;
+        private final boolean autoRepair;
+        private volatile LocalDateTime finishTime;
+        private volatile long finishNanos;
+        private volatile boolean aborted;
+        private volatile long lastProductId;
+        private volatile long chunks;
+        private volatile long scanned;
+        private volatile long missingCounters;
+        private volatile long drifted;
+        private volatile long unsettled;
+        private volatile long repaired;
+        private volatile long totalAbsDrift;
+        private volatile long maxAbsDrift;
+        private final List<DriftSample> samples = Collections.synchronizedList(new ArrayList<>());
+
+        public ScanReport(long maxProductId, boolean autoRepair) {
+            this.maxProductId = maxProductId;
+            this.autoRepair = autoRepair;
+        }
+
+        private void finish() {
+            finishNanos = System.nanoTime();
+            finishTime = LocalDateTime.now();
+        }
+
+        private void recordDrift(Long productId, int dbQuantity, int redisQuantity) {
+            long absDrift = Math.abs((long) redisQuantity - dbQuantity);
+            drifted++;
+            totalAbsDrift += absDrift;
+            maxAbsDrift = Math.max(maxAbsDrift, absDrift);
+            if (samples.size() < MAX_DRIFT_SAMPLES) {
+                samples.add(new DriftSample(productId, dbQuantity, redisQuantity));
+            }
+        }
+
+        // Getter 方法
+        public LocalDateTime getStartTime() { return startTime; }
+        public LocalDateTime getFinishTime() { return finishTime; }
+        public boolean isAborted() { return aborted; }
+        public boolean isAutoRepair() { return autoRepair; }
+        public long getMaxProductId() { return maxProductId; }
+        public long getLastProductId() { return lastProductId; }
+        public long getChunks() { return chunks; }
+        public long getScanned() { return scanned; }
+        public long getMissingCounters() { return missingCounters; }
+        public long getDrifted() { return drifted; }
+        public long getUnsettled() { return unsettled; }
+        public long getRepaired() { return repaired; }
+        public long getTotalAbsDrift() { return totalAbsDrift; }
+        public long getMaxAbsDrift() { return maxAbsDrift; }
+        public List<DriftSample> getSamples() { return samples; }
+
+        /**
+         * 按商品ID估算的扫描进度（0~100）
+         */
+        public double getProgressPercent() {
+            if (finishTime != null || maxProductId <= 0) {
+                return 100.0;
+            }
+            return Math.min(100.0, lastProductId * 100.0 / maxProductId);
+        }
+
+        /**
+         * 扫描速度（商品数/秒）
+         */
+        public double getProductsPerSecond() {
+            long endNanos = finishTime != null ? finishNanos : System.nanoTime();
+            double seconds = (endNanos - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? scanned / seconds : 0.0;
+        }
+    }
+
+    /**
+     * 偏差样本
+     */
+    public static class DriftSample {
+        private final Long productId;
+        private final int dbQuantity;
+        private final int redisQuantity;
+
+        public DriftSample(Long productId, int dbQuantity, int redisQuantity) {
+            this.productId = productId;
+            this.dbQuantity = dbQuantity;
+            this.redisQuantity = redisQuantity;
+        }
+
+        // Getter 方法
+        public Long getProductId() { return productId; }
+        public int getDbQuantity() { return dbQuantity; }
+        public int getRedisQuantity() { return redisQuantity; }
+    }
+}
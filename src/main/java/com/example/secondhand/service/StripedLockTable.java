@@ -0,0 +1,91 @@
+package com.example.secondhand.service;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 进程内分段锁表
+ * Redis不可用时的降级锁：锁键按哈希映射到固定数量的分段，内存占用有上限，
+ * 同一节点上的同商品请求在本地串行，不同节点之间仍由数据库悲观锁兜底
+ */
+public class StripedLockTable {
+
+    private final Semaphore[] stripes;
+    private final int mask;
+
+    // 锁值 -> 持有的分段序号
+    private final ConcurrentHashMap<String, int[]> holders = new ConcurrentHashMap<>();
+
+    /**
+     * @param stripeCount 分段数量，向上取整为2的幂
+     */
+    public StripedLockTable(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Semaphore[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Semaphore(1);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 尝试获取一组锁键对应的所有分段（不等待，全部成功或全部失败）
+     * 分段按序号升序获取，多个请求交叉持有时不会死锁
+     *
+     * @param lockValue 锁值，释放时使用
+     * @param fullKeys 完整锁键
+     * @return 是否获取成功
+     */
+    public boolean tryLock(String lockValue, Collection<String> fullKeys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String fullKey : fullKeys) {
+            indexes.add(stripeIndex(fullKey));
+        }
+
+        int[] acquired = new int[indexes.size()];
+        int count = 0;
+        for (Integer index : indexes) {
+            if (!stripes[index].tryAcquire()) {
+                for (int i = 0; i < count; i++) {
+                    stripes[acquired[i]].release();
+                }
+                return false;
+            }
+            acquired[count++] = index;
+        }
+
+        holders.put(lockValue, acquired);
+        return true;
+    }
+
+    /**
+     * 释放锁值持有的所有分段
+     *
+     * @param lockValue 锁值
+     * @return 是否释放成功（锁值不存在返回false）
+     */
+    public boolean unlock(String lockValue) {
+        int[] acquired = holders.remove(lockValue);
+        if (acquired == null) {
+            return false;
+        }
+        for (int index : acquired) {
+            stripes[index].release();
+        }
+        return true;
+    }
+
+    /**
+     * 当前持有的本地锁数量
+     */
+    public int getHeldCount() {
+        return holders.size();
+    }
+
+    private int stripeIndex(String fullKey) {
+        int hash = fullKey.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
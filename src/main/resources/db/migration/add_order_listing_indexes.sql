@@ -0,0 +1,6 @@
+-- 订单列表游标分页索引
+-- 买家订单按（创建时间, ID）倒序分页，索引覆盖过滤和排序，翻页代价与历史订单数量无关
+CREATE INDEX IF NOT EXISTS idx_orders_buyer_create_time ON orders(buyer_id, create_time, id);
+
+-- 卖家销售订单通过订单项中的卖家ID过滤
+CREATE INDEX IF NOT EXISTS idx_order_items_seller_order ON order_items(seller_id, order_id);
@@ -0,0 +1,17 @@
+-- 主键序列表
+-- 订单、订单项、支付日志、购物车、商品、评论、预扣台账改为表生成器（pooled-lo）按批分配主键，以启用JDBC插入批处理。
+-- 每个实体一行，next_val 为下一段主键的起始值，必须大于表中已有的最大主键；
+-- 需在部署新版本前执行（应用启动时也会补齐缺失的行，见 IdSequenceInitializer）
+
+CREATE TABLE IF NOT EXISTS id_sequences (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'orders', COALESCE(MAX(id), 0) + 1 FROM orders;
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'order_items', COALESCE(MAX(id), 0) + 1 FROM order_items;
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'payment_logs', COALESCE(MAX(id), 0) + 1 FROM payment_logs;
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'cart', COALESCE(MAX(id), 0) + 1 FROM cart;
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'product', COALESCE(MAX(id), 0) + 1 FROM product;
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'product_comment', COALESCE(MAX(id), 0) + 1 FROM product_comment;
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'inventory_reservations', COALESCE(MAX(id), 0) + 1 FROM inventory_reservations;
@@ -0,0 +1,8 @@
+-- 库存增量日志检查点表
+-- Redis库存计数器模式开启写回合并时，记录已合并写入商品表的最后一条Redis Stream日志ID
+
+CREATE TABLE IF NOT EXISTS inventory_journal_checkpoints (
+    journal_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    last_entry_id VARCHAR(64) NOT NULL,
+    update_time DATETIME(6) NULL
+);
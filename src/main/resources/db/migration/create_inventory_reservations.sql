@@ -0,0 +1,24 @@
+-- 库存预扣台账表
+-- 每个订单项一行，记录预扣数量、状态和过期时间
+-- 状态：RESERVED（已预扣）/ CONFIRMED（已确认）/ RELEASED（已释放）/ EXPIRED（已过期回收）
+
+CREATE TABLE IF NOT EXISTS inventory_reservations (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    order_no VARCHAR(50) NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    expire_time DATETIME(6) NOT NULL,
+    sweep_id VARCHAR(50) NULL,
+    create_time DATETIME(6) NOT NULL,
+    update_time DATETIME(6) NULL
+);
+
+-- 按订单号确认、释放台账
+CREATE INDEX idx_reservation_order_no ON inventory_reservations(order_no);
+
+-- 过期回收：按状态 + 过期时间顺序扫描
+CREATE INDEX idx_reservation_status_expire ON inventory_reservations(status, expire_time);
+
+-- 按回收批次汇总并加回库存
+CREATE INDEX idx_reservation_sweep_id ON inventory_reservations(sweep_id);
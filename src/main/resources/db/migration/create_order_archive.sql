@@ -0,0 +1,42 @@
+-- 订单归档表
+-- 已完成或已取消且超过保留期限的订单由归档任务（app.order-archive）按订单ID分批移入，
+-- 订单表、订单项表只保留近期和进行中的订单；归档表字段与原表一致，另记录归档时间
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    order_no VARCHAR(255) NOT NULL,
+    buyer_id BIGINT NOT NULL,
+    buyer_name VARCHAR(255) NOT NULL,
+    total_amount DECIMAL(10, 2) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    address VARCHAR(500) NOT NULL,
+    phone VARCHAR(20) NOT NULL,
+    remark VARCHAR(200) NULL,
+    create_time DATETIME(6) NOT NULL,
+    update_time DATETIME(6) NULL,
+    archive_time DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_orders_archive_order_no (order_no),
+    INDEX idx_orders_archive_buyer_create_time (buyer_id, create_time, id)
+);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    product_name VARCHAR(200) NOT NULL,
+    product_image VARCHAR(500) NULL,
+    product_price DECIMAL(10, 2) NOT NULL,
+    quantity INT NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL,
+    seller_id BIGINT NOT NULL,
+    seller_name VARCHAR(100) NOT NULL,
+    INDEX idx_order_items_archive_order (order_id),
+    INDEX idx_order_items_archive_seller_order (seller_id, order_id)
+);
+
+-- 归档检查点：本轮已扫描到的最大订单ID
+CREATE TABLE IF NOT EXISTS order_archive_checkpoints (
+    archive_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    last_order_id BIGINT NOT NULL,
+    update_time DATETIME(6) NULL
+);
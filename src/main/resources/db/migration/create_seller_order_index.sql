@@ -0,0 +1,25 @@
+-- 卖家订单索引表
+-- 每个（卖家, 订单）一行，冗余订单状态和创建时间；卖家订单列表、计数和权限检查直接按卖家ID查询，
+-- 不再联表 order_items 后 DISTINCT 和排序。订单创建时写入，订单状态变更时在同一事务中更新
+
+CREATE TABLE IF NOT EXISTS seller_order_index (
+    id BIGINT NOT NULL PRIMARY KEY,
+    seller_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    create_time DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_seller_order (seller_id, order_id),
+    INDEX idx_seller_order_create_time (seller_id, create_time, order_id),
+    INDEX idx_seller_order_status_create_time (seller_id, status, create_time, order_id),
+    INDEX idx_seller_order_order_id (order_id)
+);
+
+-- 回填已有订单（主键按行号生成，之后的主键从序列表分配）
+INSERT IGNORE INTO seller_order_index (id, seller_id, order_id, status, create_time)
+SELECT ROW_NUMBER() OVER (ORDER BY t.order_id, t.seller_id), t.seller_id, t.order_id, t.status, t.create_time
+FROM (
+    SELECT DISTINCT oi.seller_id, o.id AS order_id, o.status, o.create_time
+    FROM orders o JOIN order_items oi ON oi.order_id = o.id
+) t;
+
+INSERT IGNORE INTO id_sequences (sequence_name, next_val) SELECT 'seller_order_index', COALESCE(MAX(id), 0) + 1 FROM seller_order_index;
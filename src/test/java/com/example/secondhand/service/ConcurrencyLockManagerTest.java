@@ -3,13 +3,16 @@ package com.example.secondhand.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -121,4 +124,184 @@ class ConcurrencyLockManagerTest {
         // Then
         assertEquals("order:ORDER123", lockKey);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAcquireLocks_SortsKeysIntoSingleScript() {
+        // Given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any())).thenReturn(0L);
+
+        // When
+        ConcurrencyLockManager.LockHandle handle = lockManager.acquireLocks(
+                List.of("product:2", "product:1"), Duration.ofSeconds(30));
+
+        // Then
+        assertNotNull(handle);
+        assertFalse(handle.isFallback());
+        assertEquals(List.of("inventory_lock:product:1", "inventory_lock:product:2"), handle.getFullKeys());
+        verify(redisTemplate, times(1)).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of("inventory_lock:product:1", "inventory_lock:product:2")), anyString(), eq("30000"));
+    }
+
+    @Test
+    void testAcquireLocks_KeyHeld() {
+        // Given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any())).thenReturn(2L);
+
+        // When
+        ConcurrencyLockManager.LockHandle handle = lockManager.acquireLocks(
+                List.of("product:1", "product:2"), Duration.ofSeconds(30));
+
+        // Then
+        assertNull(handle);
+    }
+
+    @Test
+    void testReleaseLocks() {
+        // Given
+        ConcurrencyLockManager.LockHandle handle = new ConcurrencyLockManager.LockHandle(
+                List.of("inventory_lock:product:1", "inventory_lock:product:2"), "value");
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any())).thenReturn(2L);
+
+        // When
+        boolean released = lockManager.releaseLocks(handle);
+
+        // Then
+        assertTrue(released);
+    }
+
+    @Test
+    void testTryLockWithTimeout_RecordsWaitStatistics() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class)))
+                .thenReturn(false, true);
+
+        // When
+        String lockValue = lockManager.tryLockWithTimeout("test-key", Duration.ofSeconds(30), Duration.ofSeconds(1));
+
+        // Then
+        assertNotNull(lockValue);
+        ConcurrencyLockManager.LockWaitStatistics stats = lockManager.getWaitStatistics();
+        assertEquals("POLL", stats.getWaitMode());
+        assertEquals(1, stats.getWaitCount());
+        assertEquals(1, stats.getPollWakeUps());
+        assertEquals(0, stats.getWaitTimeouts());
+    }
+
+    @Test
+    void testAcquireLock_RedisUnavailable_FallsBackToLocalLock() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class)))
+                .thenThrow(new RuntimeException("Redis connection refused"));
+
+        // When
+        String first = lockManager.acquireLock("test-key");
+        String second = lockManager.acquireLock("test-key");
+        boolean released = lockManager.releaseLock("test-key", first);
+        String third = lockManager.acquireLock("test-key");
+
+        // Then
+        assertTrue(first.startsWith("FALLBACK_"));
+        assertNull(second);
+        assertTrue(released);
+        assertNotNull(third);
+        // 熔断期间不再访问Redis
+        verify(valueOperations, times(1)).setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        ConcurrencyLockManager.FallbackStatistics stats = lockManager.getFallbackStatistics();
+        assertTrue(stats.isDegraded());
+        assertEquals(1, stats.getModeSwitches());
+    }
+
+    @Test
+    void testLockMetrics_RecordsFailuresHoldTimeAndContendedKeys() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class)))
+                .thenReturn(true, false);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any())).thenReturn(1L);
+
+        // When
+        String lockValue = lockManager.acquireLock("product:1");
+        String second = lockManager.acquireLock("product:1");
+        lockManager.releaseLock("product:1", lockValue);
+
+        // Then
+        assertNull(second);
+        LockMetrics.Snapshot snapshot = lockManager.getLockMetrics(10);
+        LockMetrics.PrefixSnapshot product = snapshot.getPrefixes().get("product");
+        assertEquals(1, product.getAcquired());
+        assertEquals(1, product.getFailures());
+        assertEquals(1, product.getAcquireLatency().getCount());
+        assertEquals(1, product.getHoldTime().getCount());
+        assertEquals(0, snapshot.getTrackedHolds());
+        assertEquals("product:1", snapshot.getTopContendedKeys().get(0).getKey());
+    }
+
+    @Test
+    void testWriteLock_ReentrantAcquisitionCountsHolds() {
+        // Given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any())).thenReturn(1L, 2L);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any())).thenReturn(1L, 0L);
+
+        // When
+        ConcurrencyLockManager.LockHandle outer = lockManager.tryWriteLock(
+                "product:1", Duration.ofSeconds(30), Duration.ofSeconds(1));
+        ConcurrencyLockManager.LockHandle inner = lockManager.tryWriteLock(
+                "product:1", Duration.ofSeconds(30), Duration.ofSeconds(1));
+        boolean innerReleased = lockManager.releaseLocks(inner);
+        boolean outerReleased = lockManager.releaseLocks(outer);
+
+        // Then
+        assertEquals(1, outer.getHoldCount());
+        assertEquals(2, inner.getHoldCount());
+        assertEquals(outer.getLockValue(), inner.getLockValue());
+        assertEquals(ConcurrencyLockManager.LockMode.WRITE, inner.getMode());
+        assertTrue(innerReleased);
+        assertTrue(outerReleased);
+        // 重入不计入加锁次数，持有时长从最外层获取算到最外层释放
+        LockMetrics.PrefixSnapshot product = lockManager.getLockMetrics(10).getPrefixes().get("product");
+        assertEquals(1, product.getAcquired());
+        assertEquals(1, product.getHoldTime().getCount());
+        verify(redisTemplate, times(2)).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of("inventory_lock:product:1")), endsWith(":w"));
+    }
+
+    @Test
+    void testLeasedWriteLocks_AcquiresAllKeysInSingleScript() {
+        // Given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any())).thenReturn(1L);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any())).thenReturn(2L);
+        List<String> fullKeys = List.of("inventory_lock:product:1", "inventory_lock:product:2");
+
+        // When
+        ConcurrencyLockManager.LockHandle handle = lockManager.tryLeasedWriteLocks(
+                List.of("product:2", "product:1"), Duration.ZERO);
+        boolean released = lockManager.releaseLocks(handle);
+
+        // Then
+        assertNotNull(handle);
+        assertEquals(fullKeys, handle.getFullKeys());
+        assertEquals(1, handle.getHoldCount());
+        assertTrue(released);
+        verify(redisTemplate, times(1)).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(fullKeys), endsWith(":w"), any());
+        verify(redisTemplate, times(1)).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(fullKeys), endsWith(":w"));
+    }
+
+    @Test
+    void testLeasedWriteLocks_BusyKeyAcquiresNone() {
+        // Given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any())).thenReturn(0L);
+
+        // When
+        ConcurrencyLockManager.LockHandle handle = lockManager.tryLeasedWriteLocks(
+                List.of("product:2", "product:1"), Duration.ZERO);
+
+        // Then
+        assertNull(handle);
+        verify(redisTemplate, times(1)).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of("inventory_lock:product:1", "inventory_lock:product:2")), any(), any());
+        // 脚本全部成功或全部失败，没有需要回滚释放的锁键
+        verify(redisTemplate, never()).execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.FlashSaleConfig;
+import com.example.secondhand.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlashSaleAdmissionServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Spy
+    private FlashSaleConfig flashSaleConfig = new FlashSaleConfig();
+
+    @InjectMocks
+    private FlashSaleAdmissionService admissionService;
+
+    private List<Map<String, Object>> cartItems;
+
+    @BeforeEach
+    void setUp() {
+        cartItems = List.of(Map.<String, Object>of("productId", 1L, "quantity", 1));
+    }
+
+    @Test
+    void testCreateOrder_Disabled_PassesThrough() {
+        // Given
+        Order order = new Order();
+        when(orderService.createOrderFromFrontendCart(1L, cartItems, "addr", "phone", "")).thenReturn(order);
+
+        // When
+        Order result = admissionService.createOrder(1L, cartItems, "addr", "phone", "");
+
+        // Then
+        assertSame(order, result);
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void testCreateOrder_SoldOut_RejectsWithoutCreatingOrder() {
+        // Given
+        flashSaleConfig.setEnabled(true);
+        when(inventoryService.getCurrentInventory(1L)).thenReturn(0);
+
+        // When
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> admissionService.createOrder(1L, cartItems, "addr", "phone", ""));
+
+        // Then
+        assertEquals("商品已售罄", e.getMessage());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testCreateOrder_FailedOrderReturnsToken() {
+        // Given
+        flashSaleConfig.setEnabled(true);
+        when(inventoryService.getCurrentInventory(1L)).thenReturn(1);
+        when(orderService.createOrderFromFrontendCart(any(), any(), any(), any(), any()))
+                .thenThrow(new RuntimeException("商品库存不足"))
+                .thenReturn(new Order());
+
+        // When
+        assertThrows(RuntimeException.class,
+                () -> admissionService.createOrder(1L, cartItems, "addr", "phone", ""));
+        Order second = admissionService.createOrder(2L, cartItems, "addr", "phone", "");
+        RuntimeException third = assertThrows(RuntimeException.class,
+                () -> admissionService.createOrder(3L, cartItems, "addr", "phone", ""));
+
+        // Then
+        assertNotNull(second);
+        assertEquals("商品已售罄", third.getMessage());
+        verify(orderService, times(2)).createOrderFromFrontendCart(any(), any(), any(), any(), any());
+        verify(inventoryService, times(1)).getCurrentInventory(1L);
+    }
+
+    @Test
+    void testCreateOrder_StockReadFailureAdmitsWithRateLimitedSync() {
+        // Given
+        flashSaleConfig.setEnabled(true);
+        when(inventoryService.getCurrentInventory(1L)).thenThrow(new RuntimeException("数据库不可用"));
+        when(orderService.createOrderFromFrontendCart(any(), any(), any(), any(), any())).thenReturn(new Order());
+
+        // When
+        Order first = admissionService.createOrder(1L, cartItems, "addr", "phone", "");
+        Order second = admissionService.createOrder(2L, cartItems, "addr", "phone", "");
+
+        // Then: 未校准的闸口不按售罄拒绝，校准间隔内只查询一次库存
+        assertNotNull(first);
+        assertNotNull(second);
+        verify(inventoryService, times(1)).getCurrentInventory(1L);
+        assertEquals(2L, admissionService.getStatistics().get("unsyncedAdmissions"));
+        assertEquals(0L, admissionService.getStatistics().get("soldOutRejections"));
+    }
+
+    @Test
+    void testEvictIdleGates_RebuildsGateFromStock() {
+        // Given
+        flashSaleConfig.setEnabled(true);
+        flashSaleConfig.setGateIdleTimeoutMs(-1L);
+        when(inventoryService.getCurrentInventory(1L)).thenReturn(1);
+        when(orderService.createOrderFromFrontendCart(any(), any(), any(), any(), any())).thenReturn(new Order());
+        admissionService.createOrder(1L, cartItems, "addr", "phone", "");
+
+        // When
+        admissionService.evictIdleGates();
+        Order second = admissionService.createOrder(2L, cartItems, "addr", "phone", "");
+
+        // Then: 闸口回收后按实际库存重新校准
+        assertNotNull(second);
+        verify(inventoryService, times(2)).getCurrentInventory(1L);
+        assertEquals(Map.of(1L, 0), admissionService.getStatistics().get("waiting"));
+    }
+}
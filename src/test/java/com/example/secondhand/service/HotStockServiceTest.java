@@ -0,0 +1,136 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.entity.ProductStockShard;
+import com.example.secondhand.repository.ProductRepository;
+import com.example.secondhand.repository.ProductStockShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotStockServiceTest {
+
+    @Mock
+    private ProductStockShardRepository shardRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Spy
+    private InventoryConfig inventoryConfig = new InventoryConfig();
+
+    @InjectMocks
+    private HotStockService hotStockService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryConfig.setHotShardCount(4);
+        hotStockService.activate(1L);
+    }
+
+    @Test
+    void testExtractHot() {
+        // Given
+        Map<Long, Integer> quantities = new HashMap<>(Map.of(1L, 2, 2L, 3));
+
+        // When
+        Map<Long, Integer> hot = hotStockService.extractHot(quantities);
+
+        // Then
+        assertEquals(Map.of(1L, 2), hot);
+        assertEquals(Map.of(2L, 3), quantities);
+    }
+
+    @Test
+    void testReserve_StartsOnlyWhereLaterShardsSuffice() {
+        // Given: 只有分片0有库存，升序尝试不回绕，起点只能是分片0
+        when(shardRepository.findShardQuantities(1L)).thenReturn(shards(2, 0, 0, 0));
+        when(shardRepository.decrementIfSufficient(1L, 0, 2)).thenReturn(1);
+
+        // When
+        boolean result = hotStockService.reserve(Map.of(1L, 2));
+
+        // Then
+        assertTrue(result);
+        verify(shardRepository, times(1)).decrementIfSufficient(eq(1L), anyInt(), eq(2));
+        verify(shardRepository, never()).findByProductIdFromShardForUpdate(any(), anyInt());
+    }
+
+    @Test
+    void testReserve_SpansShardsWhenNoSingleShardSuffices() {
+        // Given: 只有从分片0开始合计才足够
+        ProductStockShard shard0 = new ProductStockShard(1L, 0, 1);
+        ProductStockShard shard1 = new ProductStockShard(1L, 1, 2);
+        when(shardRepository.findShardQuantities(1L)).thenReturn(shards(1, 2, 0, 0));
+        when(shardRepository.decrementIfSufficient(eq(1L), anyInt(), eq(3))).thenReturn(0);
+        when(shardRepository.findByProductIdFromShardForUpdate(1L, 0)).thenReturn(List.of(shard0, shard1));
+
+        // When
+        boolean result = hotStockService.reserve(Map.of(1L, 3));
+
+        // Then: 按升序尝试全部分片后再锁定
+        assertTrue(result);
+        assertEquals(0, shard0.getQuantity());
+        assertEquals(0, shard1.getQuantity());
+        InOrder inOrder = inOrder(shardRepository);
+        for (int shardNo = 0; shardNo < 4; shardNo++) {
+            inOrder.verify(shardRepository).decrementIfSufficient(1L, shardNo, 3);
+        }
+        inOrder.verify(shardRepository).findByProductIdFromShardForUpdate(1L, 0);
+    }
+
+    @Test
+    void testReserve_InsufficientAcrossAllShards() {
+        // Given
+        when(shardRepository.findShardQuantities(1L)).thenReturn(shards(1, 1, 1, 1));
+
+        // When
+        boolean result = hotStockService.reserve(Map.of(1L, 5));
+
+        // Then: 快照合计不足，不加锁
+        assertFalse(result);
+        verify(shardRepository, never()).decrementIfSufficient(any(), anyInt(), anyInt());
+        verify(shardRepository, never()).findByProductIdFromShardForUpdate(any(), anyInt());
+    }
+
+    @Test
+    void testReserve_CompensatesIntoReservedShard() {
+        // Given: 商品1扣减分片2成功，商品2库存不足
+        hotStockService.activate(2L);
+        when(shardRepository.findShardQuantities(1L)).thenReturn(shards(0, 0, 5, 0));
+        when(shardRepository.decrementIfSufficient(1L, 2, 1)).thenReturn(1);
+        when(shardRepository.findShardQuantities(2L)).thenReturn(shards(0, 0, 0, 0));
+        Map<Long, Integer> quantities = new TreeMap<>(Map.of(1L, 1, 2L, 1));
+
+        // When
+        boolean result = hotStockService.reserve(quantities);
+
+        // Then
+        assertFalse(result);
+        verify(shardRepository).increment(1L, 2, 1);
+    }
+
+    private List<Object[]> shards(int... quantities) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < quantities.length; i++) {
+            rows.add(new Object[]{i, quantities[i]});
+        }
+        return rows;
+    }
+}
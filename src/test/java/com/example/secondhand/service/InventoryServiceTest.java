@@ -1,18 +1,26 @@
 package com.example.secondhand.service;
 
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.entity.InventoryReservation;
+import com.example.secondhand.entity.Order;
 import com.example.secondhand.entity.OrderItem;
 import com.example.secondhand.entity.Product;
+import com.example.secondhand.repository.InventoryReservationRepository;
 import com.example.secondhand.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +36,21 @@ class InventoryServiceTest {
     @Mock
     private ConcurrencyLockManager lockManager;
 
+    @Mock
+    private RedisStockService redisStockService;
+
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+
+    @Mock
+    private HotStockService hotStockService;
+
+    @Mock
+    private InventoryNearCache nearCache;
+
+    @Spy
+    private InventoryConfig inventoryConfig = new InventoryConfig();
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -45,6 +68,9 @@ class InventoryServiceTest {
         testOrderItem = new OrderItem();
         testOrderItem.setProductId(1L);
         testOrderItem.setQuantity(2);
+
+        // 近端缓存默认未命中（Mockito对Integer默认返回0）
+        lenient().when(nearCache.get(any())).thenReturn(null);
     }
 
     @Test
@@ -99,6 +125,19 @@ class InventoryServiceTest {
         verify(productRepository).findById(1L);
     }
 
+    @Test
+    void testCheckInventory_NearCacheHit() {
+        // Given
+        when(nearCache.get(1L)).thenReturn(3);
+
+        // When
+        boolean result = inventoryService.checkInventory(1L, 5);
+
+        // Then
+        assertFalse(result);
+        verify(productRepository, never()).findById(any());
+    }
+
     @Test
     void testGetCurrentInventory_ProductNotFound() {
         // Given
@@ -111,4 +150,203 @@ class InventoryServiceTest {
         assertEquals(0, inventory);
         verify(productRepository).findById(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReserveInventory_RedisMode() {
+        // Given
+        inventoryConfig.setMode(InventoryConfig.Mode.REDIS);
+        when(redisStockService.reserve(Map.of(1L, 2))).thenReturn(true);
+
+        // When
+        boolean result = inventoryService.reserveInventory(List.of(testOrderItem));
+
+        // Then
+        assertTrue(result);
+        verify(redisStockService).reserve(Map.of(1L, 2));
+        verifyNoInteractions(lockManager);
+    }
+
+    @Test
+    void testGetCurrentInventory_RedisMode() {
+        // Given
+        inventoryConfig.setMode(InventoryConfig.Mode.REDIS);
+        when(redisStockService.getStock(1L)).thenReturn(7);
+
+        // When
+        Integer inventory = inventoryService.getCurrentInventory(1L);
+
+        // Then
+        assertEquals(7, inventory);
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void testCheckInventory_RedisModeReadsCounterLikeGetCurrentInventory() {
+        // Given
+        inventoryConfig.setMode(InventoryConfig.Mode.REDIS);
+        when(redisStockService.getStock(1L)).thenReturn(7);
+
+        // When
+        boolean result = inventoryService.checkInventory(1L, 5);
+
+        // Then
+        assertTrue(result);
+        verify(nearCache).put(1L, 7);
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void testReserveInventory_PessimisticMode_BatchUpdate() {
+        // Given
+        OrderItem secondItem = new OrderItem();
+        secondItem.setProductId(2L);
+        secondItem.setQuantity(1);
+        ConcurrencyLockManager.LockHandle handle = writeLock("inventory_lock:product:1", "inventory_lock:product:2");
+        when(lockManager.tryLeasedWriteLocks(any(), any())).thenReturn(handle);
+        when(productRepository.lockQuantitiesForUpdate(any())).thenReturn(Map.of(1L, 10, 2L, 5));
+
+        // When
+        boolean result = inventoryService.reserveInventory(List.of(secondItem, testOrderItem));
+
+        // Then
+        assertTrue(result);
+        verify(productRepository).batchAdjustQuantities(Map.of(1L, -2, 2L, -1));
+        verify(productRepository, never()).findByIdWithPessimisticLock(any());
+        verify(lockManager, times(1)).releaseLocks(handle);
+    }
+
+    @Test
+    void testReserveInventory_PessimisticMode_InsufficientStock() {
+        // Given
+        ConcurrencyLockManager.LockHandle handle = writeLock("inventory_lock:product:1");
+        when(lockManager.tryLeasedWriteLocks(any(), any())).thenReturn(handle);
+        when(productRepository.lockQuantitiesForUpdate(any())).thenReturn(Map.of(1L, 1));
+
+        // When
+        boolean result = inventoryService.reserveInventory(List.of(testOrderItem));
+
+        // Then
+        assertFalse(result);
+        verify(productRepository, never()).batchAdjustQuantities(any());
+        verify(lockManager).releaseLocks(handle);
+    }
+
+    @Test
+    void testReserveInventory_OptimisticMode_Success() {
+        // Given
+        inventoryConfig.setMode(InventoryConfig.Mode.OPTIMISTIC);
+        when(productRepository.decrementIfSufficient(1L, 2)).thenReturn(1);
+
+        // When
+        boolean result = inventoryService.reserveInventory(List.of(testOrderItem));
+
+        // Then
+        assertTrue(result);
+        verifyNoInteractions(lockManager);
+    }
+
+    @Test
+    void testReserveInventory_OptimisticMode_CompensatesOnGuardFailure() {
+        // Given
+        inventoryConfig.setMode(InventoryConfig.Mode.OPTIMISTIC);
+        OrderItem secondItem = new OrderItem();
+        secondItem.setProductId(2L);
+        secondItem.setQuantity(3);
+        when(productRepository.decrementIfSufficient(1L, 2)).thenReturn(1);
+        when(productRepository.decrementIfSufficient(2L, 3)).thenReturn(0);
+
+        // When
+        boolean result = inventoryService.reserveInventory(List.of(secondItem, testOrderItem));
+
+        // Then
+        assertFalse(result);
+        verify(productRepository).batchAdjustQuantities(Map.of(1L, 2));
+        verifyNoInteractions(lockManager);
+    }
+
+    @Test
+    void testRestoreInventory_SkipsWhenReservationAlreadySwept() {
+        // Given
+        Order order = new Order();
+        order.setOrderNo("ORDER123");
+        testOrderItem.setOrder(order);
+        when(reservationRepository.releaseByOrderNo(eq("ORDER123"), any())).thenReturn(0);
+        when(reservationRepository.countByOrderNo("ORDER123")).thenReturn(1L);
+
+        // When
+        boolean result = inventoryService.restoreInventory(List.of(testOrderItem));
+
+        // Then
+        assertTrue(result);
+        verify(productRepository, never()).batchAdjustQuantities(any());
+    }
+
+    @Test
+    void testHandleInventoryTimeout_RestoresReservedLines() {
+        // Given
+        when(reservationRepository.releaseReservedByOrderNo(eq("ORDER123"), any(), any())).thenReturn(1);
+        when(reservationRepository.sumQuantitiesBySweepId(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+        when(productRepository.lockQuantitiesForUpdate(any())).thenReturn(Map.of(1L, 8));
+
+        // When
+        boolean result = inventoryService.handleInventoryTimeout("ORDER123");
+
+        // Then
+        assertTrue(result);
+        verify(productRepository).batchAdjustQuantities(Map.of(1L, 2));
+    }
+
+    @Test
+    void testHandleInventoryTimeout_SkipsConfirmedOrder() {
+        // Given
+        when(reservationRepository.releaseReservedByOrderNo(eq("ORDER123"), any(), any())).thenReturn(0);
+
+        // When
+        boolean result = inventoryService.handleInventoryTimeout("ORDER123");
+
+        // Then
+        assertTrue(result);
+        verify(reservationRepository, never()).sumQuantitiesBySweepId(any());
+        verify(productRepository, never()).batchAdjustQuantities(any());
+    }
+
+    @Test
+    void testHandleInventoryTimeout_RestoreFailureRollsBack() {
+        // Given
+        when(reservationRepository.releaseReservedByOrderNo(eq("ORDER123"), any(), any())).thenReturn(1);
+        when(reservationRepository.sumQuantitiesBySweepId(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+        when(productRepository.lockQuantitiesForUpdate(any())).thenThrow(new RuntimeException("数据库不可用"));
+
+        // When & Then: 异常抛出，释放台账的更新随事务回滚
+        assertThrows(RuntimeException.class, () -> inventoryService.handleInventoryTimeout("ORDER123"));
+    }
+
+    @Test
+    void testHandleInventoryTimeout_RedisRestoreRunsAfterCommit() {
+        // Given
+        inventoryConfig.setMode(InventoryConfig.Mode.REDIS);
+        when(reservationRepository.releaseReservedByOrderNo(eq("ORDER123"), any(), any())).thenReturn(1);
+        when(reservationRepository.sumQuantitiesBySweepId(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            boolean result = inventoryService.handleInventoryTimeout("ORDER123");
+
+            // Then: 提交前不加回Redis计数器
+            assertTrue(result);
+            verify(redisStockService, never()).restore(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(redisStockService).restore(Map.of(1L, 2));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private ConcurrencyLockManager.LockHandle writeLock(String... fullKeys) {
+        return new ConcurrencyLockManager.LockHandle(List.of(fullKeys), "owner",
+                ConcurrencyLockManager.LockMode.WRITE, 1);
+    }
+}
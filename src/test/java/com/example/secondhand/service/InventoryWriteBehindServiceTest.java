@@ -0,0 +1,142 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.entity.InventoryJournalCheckpoint;
+import com.example.secondhand.repository.InventoryJournalCheckpointRepository;
+import com.example.secondhand.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryWriteBehindServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryJournalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private InventoryConfig inventoryConfig = new InventoryConfig();
+
+    @InjectMocks
+    private InventoryWriteBehindService writeBehindService;
+
+    @Test
+    void testFlushBatch_CoalescesDeltasAndAdvancesCheckpoint() {
+        // Given
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(checkpointRepository.findById("product_quantity"))
+                .thenReturn(Optional.of(new InventoryJournalCheckpoint("product_quantity", "1-0")));
+        when(streamOperations.range(eq(InventoryWriteBehindService.JOURNAL_KEY), ArgumentMatchers.<Range<String>>any(), any(Limit.class)))
+                .thenReturn(List.of(entry("1-0", "1:-1"), entry("2-0", "1:-2,2:-1"),
+                        entry("3-0", "1:-3"), entry("4-0", "2:1")));
+        when(checkpointRepository.advance(eq("product_quantity"), eq("1-0"), eq("4-0"), any())).thenReturn(1);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        // When
+        int flushed = writeBehindService.flushBatch();
+
+        // Then
+        assertEquals(3, flushed);
+        // 商品2扣减后又恢复，合并后无需写入
+        verify(productRepository).batchAdjustQuantities(Map.of(1L, -5));
+        verify(streamOperations).delete(InventoryWriteBehindService.JOURNAL_KEY,
+                RecordId.of("2-0"), RecordId.of("3-0"), RecordId.of("4-0"));
+        assertEquals(3, writeBehindService.getStatistics().getFlushedEntries());
+    }
+
+    @Test
+    void testFlushBatch_RollsBackWhenCheckpointAlreadyAdvanced() {
+        // Given
+        TransactionStatus status = mock(TransactionStatus.class);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(checkpointRepository.findById("product_quantity")).thenReturn(Optional.empty());
+        when(streamOperations.range(eq(InventoryWriteBehindService.JOURNAL_KEY), ArgumentMatchers.<Range<String>>any(), any(Limit.class)))
+                .thenReturn(List.of(entry("1-0", "1:-1"), entry("2-0", "1:-2")));
+        when(checkpointRepository.advance(eq("product_quantity"), eq("0-0"), eq("2-0"), any())).thenReturn(0);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(status));
+
+        // When
+        int flushed = writeBehindService.flushBatch();
+
+        // Then
+        assertEquals(0, flushed);
+        verify(checkpointRepository).insertIfAbsent(eq("product_quantity"), eq("0-0"), any());
+        verify(status).setRollbackOnly();
+        verifyNoInteractions(productRepository);
+        verify(streamOperations, never()).delete(any(String.class), any(RecordId[].class));
+    }
+
+    @Test
+    void testFlushBatch_NothingAfterCheckpoint() {
+        // Given
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(checkpointRepository.findById("product_quantity")).thenReturn(Optional.empty());
+        when(streamOperations.range(eq(InventoryWriteBehindService.JOURNAL_KEY), ArgumentMatchers.<Range<String>>any(), any(Limit.class)))
+                .thenReturn(List.of());
+
+        // When
+        int flushed = writeBehindService.flushBatch();
+
+        // Then
+        assertEquals(0, flushed);
+        verifyNoInteractions(transactionTemplate, productRepository);
+    }
+
+    @Test
+    void testEncodeDeltas() {
+        // Given
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 2);
+        quantities.put(2L, 3);
+
+        // When
+        String payload = InventoryWriteBehindService.encodeDeltas(quantities, -1);
+
+        // Then
+        assertEquals("1:-2,2:-3", payload);
+    }
+
+    private MapRecord<String, Object, Object> entry(String id, String deltas) {
+        return StreamRecords.newRecord()
+                .in(InventoryWriteBehindService.JOURNAL_KEY)
+                .withId(RecordId.of(id))
+                .ofMap(Map.<Object, Object>of(InventoryWriteBehindService.DELTA_FIELD, deltas));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.LockConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LockWatchdogTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Spy
+    private LockConfig lockConfig = new LockConfig();
+
+    @InjectMocks
+    private LockWatchdog lockWatchdog;
+
+    @Test
+    void testRenewAll_AllKeysRenewed() {
+        // Given
+        ConcurrencyLockManager.LockHandle handle = new ConcurrencyLockManager.LockHandle(
+                List.of("inventory_lock:product:1", "inventory_lock:product:2"), "value");
+        lockWatchdog.register(handle);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any(), any()))
+                .thenReturn(0L);
+
+        // When
+        lockWatchdog.renewAll();
+
+        // Then
+        assertFalse(handle.isLeaseLost());
+        assertEquals(1, lockWatchdog.getActiveLeaseCount());
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of("inventory_lock:product:1", "inventory_lock:product:2")), eq("3000"), eq("value"), eq("value"));
+    }
+
+    @Test
+    void testRenewAll_LeaseLost() {
+        // Given
+        ConcurrencyLockManager.LockHandle handle = new ConcurrencyLockManager.LockHandle(
+                List.of("inventory_lock:product:1", "inventory_lock:product:2"), "value");
+        lockWatchdog.register(handle);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any(), any()))
+                .thenReturn(1L);
+
+        // When
+        lockWatchdog.renewAll();
+
+        // Then
+        assertTrue(handle.isLeaseLost());
+        assertEquals(0, lockWatchdog.getActiveLeaseCount());
+        assertEquals(1, lockWatchdog.getTotalLost());
+    }
+
+    @Test
+    void testRenewAll_ReadWriteLockUsesHoldField() {
+        // Given
+        ConcurrencyLockManager.LockHandle handle = new ConcurrencyLockManager.LockHandle(
+                List.of("inventory_lock:product:1"), "node:1", ConcurrencyLockManager.LockMode.WRITE, 1);
+        lockWatchdog.register(handle);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any()))
+                .thenReturn(0L);
+
+        // When
+        lockWatchdog.renewAll();
+
+        // Then
+        assertFalse(handle.isLeaseLost());
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of("inventory_lock:product:1")), eq("3000"), eq("node:1:w"));
+    }
+
+    @Test
+    void testRenewAll_SkipsWhileRedisUnavailable() {
+        // Given
+        ConcurrencyLockManager.LockHandle handle = new ConcurrencyLockManager.LockHandle(
+                List.of("inventory_lock:product:1"), "value");
+        lockWatchdog.register(handle);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // When
+        lockWatchdog.renewAll();
+        lockWatchdog.renewAll();
+
+        // Then: 冷却期内不再访问Redis，登记保留
+        verify(redisTemplate, times(1)).execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any());
+        assertFalse(handle.isLeaseLost());
+        assertEquals(1, lockWatchdog.getActiveLeaseCount());
+    }
+}
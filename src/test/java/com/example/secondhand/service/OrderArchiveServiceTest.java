@@ -0,0 +1,100 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderArchiveConfig;
+import com.example.secondhand.entity.OrderArchiveCheckpoint;
+import com.example.secondhand.repository.ArchivedOrderRepository;
+import com.example.secondhand.repository.OrderArchiveCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiveServiceTest {
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private OrderArchiveCheckpointRepository checkpointRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private OrderArchiveConfig orderArchiveConfig = new OrderArchiveConfig();
+
+    @InjectMocks
+    private OrderArchiveService orderArchiveService;
+
+    @Test
+    void testArchive_ResumesFromCheckpointAndResetsAtEnd() {
+        // Given
+        orderArchiveConfig.setChunkSize(2);
+        orderArchiveConfig.setChunkPauseMs(0);
+        when(checkpointRepository.findById("orders")).thenReturn(Optional.of(new OrderArchiveCheckpoint("orders", 10L)));
+        when(archivedOrderRepository.findArchivableOrderIds(eq(10L), any(), eq(2))).thenReturn(List.of(11L, 12L));
+        when(archivedOrderRepository.findArchivableOrderIds(eq(12L), any(), eq(2))).thenReturn(List.of(15L));
+        when(archivedOrderRepository.moveToArchive(List.of(11L, 12L))).thenReturn(2);
+        when(archivedOrderRepository.moveToArchive(List.of(15L))).thenReturn(1);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+
+        // When
+        int moved = orderArchiveService.archive();
+
+        // Then
+        assertEquals(3, moved);
+        // 每批提交后推进检查点，扫描到表尾后归零
+        ArgumentCaptor<OrderArchiveCheckpoint> checkpoints = ArgumentCaptor.forClass(OrderArchiveCheckpoint.class);
+        verify(checkpointRepository, times(3)).save(checkpoints.capture());
+        assertEquals(List.of(12L, 15L, 0L),
+                checkpoints.getAllValues().stream().map(OrderArchiveCheckpoint::getLastOrderId).toList());
+        assertEquals(1L, orderArchiveService.getStatistics().get("completedPasses"));
+    }
+
+    @Test
+    void testArchive_StopsAfterMaxChunksWithCheckpointKept() {
+        // Given
+        orderArchiveConfig.setChunkSize(1);
+        orderArchiveConfig.setChunkPauseMs(0);
+        orderArchiveConfig.setMaxChunksPerRun(1);
+        when(checkpointRepository.findById("orders")).thenReturn(Optional.empty());
+        when(archivedOrderRepository.findArchivableOrderIds(eq(0L), any(), eq(1))).thenReturn(List.of(3L));
+        when(archivedOrderRepository.moveToArchive(List.of(3L))).thenReturn(1);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+
+        // When
+        int moved = orderArchiveService.archive();
+
+        // Then
+        assertEquals(1, moved);
+        ArgumentCaptor<OrderArchiveCheckpoint> checkpoint = ArgumentCaptor.forClass(OrderArchiveCheckpoint.class);
+        verify(checkpointRepository).save(checkpoint.capture());
+        assertEquals(3L, checkpoint.getValue().getLastOrderId());
+        assertEquals(0L, orderArchiveService.getStatistics().get("completedPasses"));
+    }
+
+    @Test
+    void testScheduledArchive_DisabledDoesNothing() {
+        // When
+        orderArchiveService.scheduledArchive();
+
+        // Then
+        verifyNoInteractions(archivedOrderRepository, checkpointRepository, transactionTemplate);
+    }
+}
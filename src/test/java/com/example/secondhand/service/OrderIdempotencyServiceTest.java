@@ -0,0 +1,148 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderIdempotencyConfig;
+import com.example.secondhand.entity.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    private static final String KEY = "order_idem:1:retry-key";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private Supplier<Order> creator;
+
+    @Spy
+    private OrderIdempotencyConfig orderIdempotencyConfig = new OrderIdempotencyConfig();
+
+    @InjectMocks
+    private OrderIdempotencyService idempotencyService;
+
+    private final Map<String, Object> request = Map.of("userId", 1, "address", "addr", "phone", "phone");
+
+    @Test
+    void testCreateOnce_FirstRequestCreatesAndRecordsOrderNo() {
+        // Given
+        when(redisTemplate.execute(any(), eq(List.of(KEY)), any(), eq("60000"))).thenReturn(1L);
+        Order order = order();
+        when(creator.get()).thenReturn(order);
+
+        // When
+        Order result = idempotencyService.createOnce(1L, "retry-key", request, creator);
+
+        // Then
+        assertSame(order, result);
+        // 结果、指纹和有效期在一个脚本中写入
+        verify(redisTemplate).execute(any(), eq(List.of(KEY)), eq(fingerprint(request)), eq("100"), eq("ORD1"),
+                eq("86400000"));
+    }
+
+    @Test
+    void testFingerprint_IgnoresOrderAndUnrelatedFields() {
+        // Given
+        Map<String, Object> original = Map.of("userId", 1, "address", "addr", "phone", "phone",
+                "cartItems", List.of(Map.of("productId", 11, "quantity", 1), Map.of("productId", 12, "quantity", 2)));
+        Map<String, Object> retry = new LinkedHashMap<>();
+        retry.put("cartItems", List.of(Map.of("quantity", 2, "productId", 12), Map.of("quantity", 1, "productId", 11)));
+        retry.put("phone", "phone");
+        retry.put("address", "addr");
+        retry.put("userId", 1);
+        retry.put("clientTime", 123456789L);
+        Map<String, Object> changed = new LinkedHashMap<>(retry);
+        changed.put("cartItems", List.of(Map.of("productId", 12, "quantity", 3), Map.of("productId", 11, "quantity", 1)));
+
+        // Then
+        assertEquals(fingerprint(original), fingerprint(retry));
+        assertNotEquals(fingerprint(original), fingerprint(changed));
+    }
+
+    @Test
+    void testCreateOnce_RetryReturnsOriginalOrderWithoutCreating() {
+        // Given
+        when(redisTemplate.execute(any(), anyList(), any(), any())).thenReturn(0L);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(KEY)).thenReturn(Map.<Object, Object>of(
+                "status", "SUCCESS", "fingerprint", fingerprint(request), "orderId", "100", "orderNo", "ORD1"));
+        Order order = order();
+        when(orderService.getOrderByOrderNo("ORD1")).thenReturn(Optional.of(order));
+
+        // When
+        Order result = idempotencyService.createOnce(1L, "retry-key", request, creator);
+
+        // Then
+        assertSame(order, result);
+        verifyNoInteractions(creator);
+        assertEquals(1L, idempotencyService.getStatistics().get("replayed"));
+    }
+
+    @Test
+    void testCreateOnce_RetryWhileProcessingIsRejected() {
+        // Given
+        when(redisTemplate.execute(any(), anyList(), any(), any())).thenReturn(0L);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(KEY)).thenReturn(Map.<Object, Object>of(
+                "status", "PROCESSING", "fingerprint", fingerprint(request)));
+
+        // When
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> idempotencyService.createOnce(1L, "retry-key", request, creator));
+
+        // Then
+        assertEquals("订单正在处理中，请勿重复提交", e.getMessage());
+        verifyNoInteractions(creator, orderService);
+    }
+
+    @Test
+    void testCreateOnce_FailedCreationReleasesKey() {
+        // Given
+        when(redisTemplate.execute(any(), anyList(), any(), any())).thenReturn(1L);
+        when(creator.get()).thenThrow(new RuntimeException("商品已售罄"));
+
+        // When
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> idempotencyService.createOnce(1L, "retry-key", request, creator));
+
+        // Then
+        assertEquals("商品已售罄", e.getMessage());
+        verify(redisTemplate).delete(KEY);
+    }
+
+    private Order order() {
+        Order order = new Order();
+        order.setId(100L);
+        order.setOrderNo("ORD1");
+        return order;
+    }
+
+    private static String fingerprint(Map<String, Object> request) {
+        return OrderIdempotencyService.fingerprint(request);
+    }
+}
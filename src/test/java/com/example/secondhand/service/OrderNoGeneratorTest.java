@@ -0,0 +1,119 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderNoConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderNoGeneratorTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Spy
+    private OrderNoConfig orderNoConfig = new OrderNoConfig();
+
+    @InjectMocks
+    private OrderNoGenerator generator;
+
+    @Test
+    void testNextOrderNo_UniqueAcrossThreads() throws Exception {
+        // Given
+        orderNoConfig.setNodeId(7);
+        generator.start();
+        Set<String> orderNos = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    orderNos.add(generator.nextOrderNo());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(40000, orderNos.size());
+        String sample = orderNos.iterator().next();
+        assertEquals(26, sample.length());
+        assertEquals("007", sample.substring(20, 23));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testNextOrderNo_ClockRollbackKeepsIncreasing() {
+        // Given
+        orderNoConfig.setNodeId(1);
+        generator.start();
+        generator.clock = mockClock(1_700_000_010_000L, 1_700_000_010_000L, 1_700_000_009_000L);
+
+        // When
+        String first = generator.nextOrderNo();
+        String second = generator.nextOrderNo();
+        String third = generator.nextOrderNo();
+
+        // Then
+        assertTrue(second.compareTo(first) > 0);
+        assertTrue(third.compareTo(second) > 0);
+        assertEquals(first.substring(0, 20), third.substring(0, 20));
+        assertEquals("002", third.substring(23));
+        assertEquals(1L, generator.getStatistics().get("clockBackwards"));
+    }
+
+    @Test
+    void testNextOrderNo_LeasedNodeStartsAfterPreviousHolder() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+        // 上一个持有者记录的发号时间比本机时钟晚（例如本机时钟回拨后重启）
+        when(valueOperations.get(endsWith(":last_ms"))).thenReturn("1700000050000");
+        generator.clock = () -> 1_700_000_010_000L;
+
+        // When
+        generator.start();
+        generator.nextOrderNo();
+
+        // Then
+        Map<String, Object> stats = generator.getStatistics();
+        assertTrue((Long) stats.get("lastIssuedMs") >= 1_700_000_050_000L + orderNoConfig.getLeaseTtlMs());
+        assertEquals(1L, stats.get("nodeLeases"));
+        assertTrue((Integer) stats.get("nodeId") >= 0);
+    }
+
+    private LongSupplier mockClock(long... values) {
+        AtomicInteger index = new AtomicInteger();
+        return () -> values[Math.min(index.getAndIncrement(), values.length - 1)];
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.common.CursorPage;
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.entity.OrderItem;
+import com.example.secondhand.entity.Product;
+import com.example.secondhand.entity.SellerOrderIndex;
+import com.example.secondhand.entity.User;
+import com.example.secondhand.event.OrderStatusChangedEvent;
+import com.example.secondhand.repository.OrderItemRepository;
+import com.example.secondhand.repository.OrderRepository;
+import com.example.secondhand.repository.ProductRepository;
+import com.example.secondhand.repository.SellerOrderIndexRepository;
+import com.example.secondhand.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private OrderTimeoutService orderTimeoutService;
+
+    @Mock
+    private OrderNoGenerator orderNoGenerator;
+
+    @Mock
+    private SellerOrderIndexRepository sellerOrderIndexRepository;
+
+    @Mock
+    private SellerOrderIndexService sellerOrderIndexService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateOrderFromFrontendCart_LoadsProductsInOneQuery() {
+        // Given
+        User user = new User();
+        user.setUsername("buyer");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(orderNoGenerator.nextOrderNo()).thenReturn("ORD20260101120000000001000");
+        when(productRepository.findAllById(List.of(11L, 12L)))
+                .thenReturn(List.of(product(12L, "5.00"), product(11L, "10.00")));
+        when(inventoryService.reserveInventory(any())).thenReturn(true);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<Map<String, Object>> cartItems = List.of(
+                Map.of("productId", 11L, "quantity", 2),
+                Map.of("productId", 12L, "quantity", 1));
+
+        // When
+        Order order = orderService.createOrderFromFrontendCart(1L, cartItems, "addr", "phone", "");
+
+        // Then
+        assertEquals("ORD20260101120000000001000", order.getOrderNo());
+        assertEquals(new BigDecimal("25.00"), order.getTotalAmount());
+        verify(productRepository, never()).findById(anyLong());
+        verify(orderRepository, times(1)).save(any(Order.class));
+        ArgumentCaptor<List<OrderItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(orderItemRepository).saveAll(items.capture());
+        assertEquals(List.of(11L, 12L), items.getValue().stream().map(OrderItem::getProductId).toList());
+        verify(sellerOrderIndexService).indexOrder(order, items.getValue());
+        verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
+    }
+
+    @Test
+    void testCreateOrderFromFrontendCart_MissingProduct() {
+        // Given
+        User user = new User();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(productRepository.findAllById(List.of(11L))).thenReturn(List.of());
+
+        // When
+        RuntimeException e = assertThrows(RuntimeException.class, () -> orderService.createOrderFromFrontendCart(
+                1L, List.of(Map.of("productId", 11L, "quantity", 1)), "addr", "phone", ""));
+
+        // Then
+        assertTrue(e.getMessage().contains("商品不存在: 11"));
+        verifyNoInteractions(inventoryService, orderRepository, orderItemRepository);
+    }
+
+    @Test
+    void testGetBuyerOrderPage_FetchesItemsForPageOnly() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        List<Order> rows = List.of(order(30L, now), order(20L, now), order(10L, now.minusMinutes(1)));
+        when(orderRepository.findBuyerOrderPage(eq(1L), isNull(), any(Pageable.class))).thenReturn(rows);
+        when(orderRepository.findWithItemsByIdIn(List.of(30L, 20L))).thenReturn(List.of(rows.get(1), rows.get(0)));
+
+        // When
+        CursorPage<Order> page = orderService.getBuyerOrderPage(1L, null, null, 2);
+
+        // Then
+        assertEquals(List.of(30L, 20L), page.getItems().stream().map(Order::getId).toList());
+        assertTrue(page.isHasMore());
+        CursorPage.Cursor cursor = CursorPage.decodeCursor(page.getNextCursor());
+        assertEquals(now, cursor.getCreateTime());
+        assertEquals(20L, cursor.getId());
+    }
+
+    @Test
+    void testGetSellerOrderPage_ContinuesAfterCursor() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+        String cursor = CursorPage.encodeCursor(time, 20L);
+        SellerOrderIndex row = new SellerOrderIndex(2L, order(10L, time));
+        when(sellerOrderIndexRepository.findPageAfter(eq(2L), eq(Order.OrderStatus.PENDING_SHIPMENT), eq(time), eq(20L),
+                any(Pageable.class))).thenReturn(List.of(row));
+        when(orderRepository.findWithSellerItemsByIdIn(List.of(10L), 2L)).thenReturn(List.of(order(10L, time)));
+
+        // When
+        CursorPage<Order> page = orderService.getSellerOrderPage(2L, Order.OrderStatus.PENDING_SHIPMENT, cursor, 2);
+
+        // Then
+        assertEquals(List.of(10L), page.getItems().stream().map(Order::getId).toList());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetSellerOrderCount_UsesSellerIndex() {
+        // Given
+        when(sellerOrderIndexRepository.countBySellerIdAndStatus(2L, Order.OrderStatus.SHIPPING)).thenReturn(3L);
+
+        // When
+        long count = orderService.countSellerOrdersByStatus(2L, Order.OrderStatus.SHIPPING);
+
+        // Then
+        assertEquals(3L, count);
+        verifyNoInteractions(orderRepository, orderItemRepository);
+    }
+
+    private Order order(Long id, LocalDateTime createTime) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCreateTime(createTime);
+        return order;
+    }
+
+    private Product product(Long id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("商品" + id);
+        product.setPrice(new BigDecimal(price));
+        product.setStatus(1);
+        product.setSellerId(2L);
+        product.setSellerName("seller");
+        return product;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderCounterConfig;
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.event.OrderStatusChangedEvent;
+import com.example.secondhand.repository.ArchivedOrderRepository;
+import com.example.secondhand.repository.OrderRepository;
+import com.example.secondhand.repository.SellerOrderIndexRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusCounterServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private SellerOrderIndexRepository sellerOrderIndexRepository;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Spy
+    private OrderCounterConfig orderCounterConfig = new OrderCounterConfig();
+
+    @InjectMocks
+    private OrderStatusCounterService counterService;
+
+    @Test
+    void testGetBuyerCounts_CachedHashNeedsNoQuery() {
+        // Given
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("order_count:buyer:1")).thenReturn(Map.<Object, Object>of(
+                "PENDING_PAYMENT", "2", "COMPLETED", "3", "CANCELLED", "0"));
+
+        // When
+        Map<Order.OrderStatus, Long> counts = counterService.getBuyerCounts(1L);
+
+        // Then
+        assertEquals(2L, counts.get(Order.OrderStatus.PENDING_PAYMENT));
+        assertEquals(3L, counts.get(Order.OrderStatus.COMPLETED));
+        assertEquals(0L, counts.get(Order.OrderStatus.SHIPPING));
+        verifyNoInteractions(orderRepository);
+        assertEquals(1L, counterService.getStatistics().get("hits"));
+    }
+
+    @Test
+    void testGetSellerCounts_MissLoadsFromDatabaseOnce() {
+        // Given
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("order_count:seller:7")).thenReturn(Map.of());
+        when(sellerOrderIndexRepository.countBySellerIdGroupByStatus(7L)).thenReturn(List.of(
+                new Object[]{Order.OrderStatus.PENDING_SHIPMENT, 4L},
+                new Object[]{Order.OrderStatus.COMPLETED, 1L}));
+        when(archivedOrderRepository.countBySellerIdGroupByStatus(7L)).thenReturn(List.<Object[]>of(
+                new Object[]{Order.OrderStatus.COMPLETED, 5L}));
+
+        // When
+        Map<Order.OrderStatus, Long> counts = counterService.getSellerCounts(7L);
+
+        // Then
+        assertEquals(4L, counts.get(Order.OrderStatus.PENDING_SHIPMENT));
+        // 已归档的订单也计入
+        assertEquals(6L, counts.get(Order.OrderStatus.COMPLETED));
+        assertEquals(0L, counts.get(Order.OrderStatus.PENDING_PAYMENT));
+        // 所有状态（包括数量为0的）一次写入，同时设置刚统计标记
+        verify(redisTemplate).execute(any(), eq(List.of("order_count:seller:7", "order_count:seller:7:loaded")),
+                eq("86400000"), eq("10000"),
+                eq("PENDING_PAYMENT"), eq("0"), eq("PENDING_SHIPMENT"), eq("4"), eq("SHIPPING"), eq("0"),
+                eq("COMPLETED"), eq("6"), eq("CANCELLED"), eq("0"));
+        assertEquals(1L, counterService.getStatistics().get("loads"));
+    }
+
+    @Test
+    void testOnOrderStatusChanged_AdjustsBuyerAndSellerCounters() {
+        // Given
+        when(sellerOrderIndexRepository.findSellerIdsByOrderId(100L)).thenReturn(List.of(7L, 8L));
+
+        // When
+        counterService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(this, order(Order.OrderStatus.CANCELLED), Order.OrderStatus.PENDING_PAYMENT));
+
+        // Then
+        verify(redisTemplate).execute(any(),
+                eq(List.of("order_count:dirty", "order_count:buyer:1", "order_count:buyer:1:loaded",
+                        "order_count:seller:7", "order_count:seller:7:loaded",
+                        "order_count:seller:8", "order_count:seller:8:loaded")),
+                eq("PENDING_PAYMENT"), eq("CANCELLED"));
+        assertEquals(1L, counterService.getStatistics().get("adjustments"));
+    }
+
+    @Test
+    void testRepair_DeletesCountersMissedWhileRedisWasDown() {
+        // Given
+        when(sellerOrderIndexRepository.findSellerIdsByOrderId(100L)).thenReturn(List.of(7L));
+        when(redisTemplate.execute(any(), anyList(), any(), any())).thenThrow(new RuntimeException("连接失败"));
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.pop("order_count:dirty", 200L)).thenReturn(List.of("order_count:buyer:2"));
+        counterService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(this, order(Order.OrderStatus.PENDING_PAYMENT), null));
+        assertEquals(2, counterService.getStatistics().get("pendingRepairs"));
+
+        // When
+        counterService.repair();
+
+        // Then
+        verify(redisTemplate).delete(argThat((List<String> keys) -> keys.size() == 3
+                && keys.containsAll(List.of("order_count:buyer:1", "order_count:seller:7", "order_count:buyer:2"))));
+        assertEquals(0, counterService.getStatistics().get("pendingRepairs"));
+        assertEquals(3L, counterService.getStatistics().get("repairs"));
+    }
+
+    private Order order(Order.OrderStatus status) {
+        Order order = new Order("ORD1", 1L, "buyer", BigDecimal.TEN, "addr", "phone", "");
+        order.setId(100L);
+        order.setStatus(status);
+        return order;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.OrderSubmitConfig;
+import com.example.secondhand.entity.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderSubmissionServiceTest {
+
+    @Mock
+    private FlashSaleAdmissionService flashSaleAdmissionService;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Spy
+    private OrderSubmitConfig orderSubmitConfig = new OrderSubmitConfig();
+
+    @Spy
+    private Executor orderSubmitExecutor = new SimpleAsyncTaskExecutor("order-submit-test-");
+
+    @InjectMocks
+    private OrderSubmissionService submissionService;
+
+    @AfterEach
+    void tearDown() {
+        submissionService.shutdown();
+    }
+
+    @Test
+    void testSubmit_ReturnsTicketAndCompletesAsynchronously() throws Exception {
+        // Given
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        Order order = new Order();
+        order.setId(100L);
+        order.setOrderNo("ORD20260101120000000001000");
+        when(flashSaleAdmissionService.createOrder(eq(1L), anyList(), eq("addr"), eq("phone"), eq("")))
+                .thenReturn(order);
+        submissionService.start();
+
+        // When
+        String ticketId = submissionService.submit(1L, cart(11L), "addr", "phone", "");
+        Map<String, Object> result = submissionService.watch(ticketId).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(OrderSubmissionService.STATUS_SUCCESS, result.get("status"));
+        assertEquals(100L, result.get("orderId"));
+        assertEquals("ORD20260101120000000001000", result.get("orderNo"));
+        assertEquals(OrderSubmissionService.STATUS_SUCCESS, submissionService.getTicket(ticketId).get("status"));
+        // 排队和完成各保存一次，其他实例可以查询结果
+        verify(hashOperations, times(2)).putAll(eq("order_ticket:" + ticketId), any());
+    }
+
+    @Test
+    void testSubmit_QueueFullIsRejected() throws Exception {
+        // Given
+        orderSubmitConfig.setWorkerThreads(1);
+        orderSubmitConfig.setQueueCapacity(1);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(flashSaleAdmissionService.createOrder(any(), anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    entered.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    throw new RuntimeException("商品已售罄");
+                });
+        submissionService.start();
+
+        // When
+        String processing = submissionService.submit(1L, cart(11L), "addr", "phone", "");
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        String queued = submissionService.submit(2L, cart(11L), "addr", "phone", "");
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> submissionService.submit(3L, cart(11L), "addr", "phone", ""));
+        release.countDown();
+        Map<String, Object> result = submissionService.watch(processing).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("下单人数过多，请稍后再试", e.getMessage());
+        assertEquals(OrderSubmissionService.STATUS_FAILED, result.get("status"));
+        assertEquals("商品已售罄", result.get("message"));
+        assertNotNull(submissionService.watch(queued));
+        assertEquals(1L, submissionService.getStatistics().get("rejected"));
+    }
+
+    @Test
+    void testShutdown_DrainsQueuedTickets() throws Exception {
+        // Given
+        orderSubmitConfig.setWorkerThreads(1);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(flashSaleAdmissionService.createOrder(any(), anyList(), anyString(), anyString(), anyString()))
+                .thenReturn(new Order());
+        submissionService.start();
+        String first = submissionService.submit(1L, cart(11L), "addr", "phone", "");
+        String second = submissionService.submit(2L, cart(11L), "addr", "phone", "");
+
+        // When
+        submissionService.shutdown();
+
+        // Then: 已受理的请求处理完成，停止后不再受理
+        assertEquals(OrderSubmissionService.STATUS_SUCCESS, submissionService.watch(first).getNow(null).get("status"));
+        assertEquals(OrderSubmissionService.STATUS_SUCCESS, submissionService.watch(second).getNow(null).get("status"));
+        assertThrows(RuntimeException.class, () -> submissionService.submit(3L, cart(11L), "addr", "phone", ""));
+    }
+
+    private List<Map<String, Object>> cart(Long productId) {
+        return List.of(Map.of("productId", productId, "quantity", 1));
+    }
+}
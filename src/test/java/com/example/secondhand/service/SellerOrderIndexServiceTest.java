@@ -0,0 +1,68 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.entity.Order;
+import com.example.secondhand.entity.OrderItem;
+import com.example.secondhand.entity.SellerOrderIndex;
+import com.example.secondhand.event.OrderStatusChangedEvent;
+import com.example.secondhand.repository.SellerOrderIndexRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SellerOrderIndexServiceTest {
+
+    @Mock
+    private SellerOrderIndexRepository sellerOrderIndexRepository;
+
+    @InjectMocks
+    private SellerOrderIndexService sellerOrderIndexService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testIndexOrder_OneRowPerSeller() {
+        // Given
+        Order order = new Order("ORD1", 1L, "buyer", BigDecimal.TEN, "addr", "phone", "");
+        order.setId(100L);
+        List<OrderItem> items = List.of(item(order, 7L), item(order, 8L), item(order, 7L));
+
+        // When
+        sellerOrderIndexService.indexOrder(order, items);
+
+        // Then
+        ArgumentCaptor<List<SellerOrderIndex>> rows = ArgumentCaptor.forClass(List.class);
+        verify(sellerOrderIndexRepository).saveAll(rows.capture());
+        assertEquals(List.of(7L, 8L), rows.getValue().stream().map(SellerOrderIndex::getSellerId).toList());
+        assertTrue(rows.getValue().stream().allMatch(row -> row.getOrderId().equals(100L)
+                && row.getStatus() == Order.OrderStatus.PENDING_PAYMENT
+                && row.getCreateTime().equals(order.getCreateTime())));
+    }
+
+    @Test
+    void testOnOrderStatusChanged_UpdatesAllSellerRows() {
+        // Given
+        Order order = new Order("ORD1", 1L, "buyer", BigDecimal.TEN, "addr", "phone", "");
+        order.setId(100L);
+        order.setStatus(Order.OrderStatus.CANCELLED);
+
+        // When
+        sellerOrderIndexService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(this, order, Order.OrderStatus.PENDING_PAYMENT));
+
+        // Then
+        verify(sellerOrderIndexRepository).updateStatus(100L, Order.OrderStatus.CANCELLED);
+    }
+
+    private OrderItem item(Order order, Long sellerId) {
+        return new OrderItem(order, 11L, "商品", null, BigDecimal.ONE, 1, sellerId, "seller" + sellerId);
+    }
+}
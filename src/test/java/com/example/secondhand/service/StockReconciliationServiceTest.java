@@ -0,0 +1,119 @@
+package com.example.secondhand.service;
+
+import com.example.secondhand.config.InventoryConfig;
+import com.example.secondhand.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReconciliationServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private RedisStockService redisStockService;
+
+    @Mock
+    private HotStockService hotStockService;
+
+    @Mock
+    private InventoryWriteBehindService writeBehindService;
+
+    @Mock
+    private ConcurrencyLockManager lockManager;
+
+    @Spy
+    private InventoryConfig inventoryConfig = new InventoryConfig();
+
+    @InjectMocks
+    private StockReconciliationService reconciliationService;
+
+    @Test
+    void testScan_RepairsConfirmedDriftOnly() {
+        // Given
+        inventoryConfig.setFullReconcileAutoRepair(true);
+        when(writeBehindService.isEnabled()).thenReturn(true);
+        ConcurrencyLockManager.LockHandle handle = new ConcurrencyLockManager.LockHandle(
+                List.of("inventory_lock:stock_full_reconcile"), "value");
+        when(lockManager.tryLeasedLocks(any(), any())).thenReturn(handle);
+        when(productRepository.findMaxId()).thenReturn(3L);
+        when(productRepository.findQuantitiesAfterId(eq(0L), any())).thenReturn(List.of(
+                new Object[]{1L, 10}, new Object[]{2L, 5}, new Object[]{3L, 7}));
+        // 商品3的计数器未加载，不属于偏差
+        when(redisStockService.getStocks(List.of(1L, 2L, 3L))).thenReturn(Map.of(1L, 10, 2L, 3));
+        when(redisStockService.getStocks(List.of(2L))).thenReturn(Map.of(2L, 3));
+        when(productRepository.findQuantitiesByIds(List.of(2L))).thenReturn(List.<Object[]>of(new Object[]{2L, 5}));
+        when(productRepository.compareAndSetQuantity(2L, 5, 3)).thenReturn(1);
+
+        // When
+        StockReconciliationService.ScanReport report = reconciliationService.scan();
+
+        // Then
+        assertNotNull(report);
+        assertEquals(3, report.getScanned());
+        assertEquals(1, report.getMissingCounters());
+        assertEquals(1, report.getDrifted());
+        assertEquals(1, report.getRepaired());
+        assertEquals(2, report.getMaxAbsDrift());
+        assertEquals(100.0, report.getProgressPercent());
+        verify(productRepository, never()).compareAndSetQuantity(eq(1L), any(), any());
+        verify(lockManager).releaseLocks(handle);
+    }
+
+    @Test
+    void testScan_ReportsOnlyWithoutWriteBehind() {
+        // Given
+        inventoryConfig.setFullReconcileAutoRepair(true);
+        when(lockManager.tryLeasedLocks(any(), any())).thenReturn(
+                new ConcurrencyLockManager.LockHandle(List.of("inventory_lock:stock_full_reconcile"), "value"));
+        when(productRepository.findMaxId()).thenReturn(1L);
+        when(productRepository.findQuantitiesAfterId(eq(0L), any())).thenReturn(List.<Object[]>of(new Object[]{1L, 10}));
+        when(redisStockService.getStocks(List.of(1L))).thenReturn(Map.of(1L, 8));
+        when(productRepository.findQuantitiesByIds(List.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 10}));
+
+        // When
+        StockReconciliationService.ScanReport report = reconciliationService.scan();
+
+        // Then
+        assertFalse(report.isAutoRepair());
+        assertEquals(1, report.getDrifted());
+        assertEquals(0, report.getRepaired());
+        verify(productRepository, never()).compareAndSetQuantity(anyLong(), any(), any());
+    }
+
+    @Test
+    void testScan_ChangeDuringRecheckIsNotRepaired() {
+        // Given
+        inventoryConfig.setFullReconcileAutoRepair(true);
+        when(lockManager.tryLeasedLocks(any(), any())).thenReturn(
+                new ConcurrencyLockManager.LockHandle(List.of("inventory_lock:stock_full_reconcile"), "value"));
+        when(productRepository.findMaxId()).thenReturn(1L);
+        when(productRepository.findQuantitiesAfterId(eq(0L), any())).thenReturn(List.<Object[]>of(new Object[]{1L, 10}));
+        when(redisStockService.getStocks(List.of(1L))).thenReturn(Map.of(1L, 8));
+        when(productRepository.findQuantitiesByIds(List.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 10}));
+        // 两次读取之间本节点提交了新的持久化任务
+        when(redisStockService.getPersistSequence()).thenReturn(5L, 6L);
+
+        // When
+        StockReconciliationService.ScanReport report = reconciliationService.scan();
+
+        // Then
+        assertEquals(0, report.getDrifted());
+        assertEquals(1, report.getUnsettled());
+        verify(productRepository, never()).compareAndSetQuantity(anyLong(), any(), any());
+    }
+}